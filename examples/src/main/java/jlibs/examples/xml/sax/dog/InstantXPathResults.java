@@ -40,15 +40,15 @@ public class InstantXPathResults extends InstantEvaluationListener{
 
     @Override
     public void onNodeHit(Expression expression, NodeItem nodeItem){
-        LongTreeMap<NodeItem> map = (LongTreeMap<NodeItem>)instantResults[expression.id];
+        LongTreeMap<NodeItem> map = (LongTreeMap<NodeItem>)instantResults[expression.id()];
         if(map==null)
-            instantResults[expression.id] = map = new LongTreeMap<NodeItem>();
+            instantResults[expression.id()] = map = new LongTreeMap<NodeItem>();
         map.put(nodeItem.order, nodeItem);
     }
 
     @Override
     public void finishedNodeSet(Expression expression){
-        LongTreeMap<NodeItem> map = (LongTreeMap<NodeItem>)instantResults[expression.id];
+        LongTreeMap<NodeItem> map = (LongTreeMap<NodeItem>)instantResults[expression.id()];
         if(map==null)
             results.put(expression, Collections.<Object>emptyList());
         else
@@ -16,11 +16,36 @@
 
 package jlibs.examples.xml.sax.dog;
 
+import jlibs.xml.sax.dog.sniff.EvaluationProfiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
+ * Runs test suite with XMLDog and reports the costliest expressions,
+ * by number of sax events examined, partial evaluations created
+ * and text buffered.
+ *
  * @author Santhosh Kumar T
  */
 public class Profiler{
+    public static final int TOP = 20;
+
     public static void main(String[] args) throws Exception{
-        new TestSuite("xpaths.xml").usingXMLDog();
-    }    
+        TestCase.useProfiler = true;
+        TestSuite suite = new TestSuite("xpaths.xml");
+        suite.usingXMLDog();
+
+        List<EvaluationProfiler.Profile> profiles = new ArrayList<EvaluationProfiler.Profile>();
+        for(TestCase testCase: suite.testCases){
+            if(testCase.profiler!=null)
+                profiles.addAll(testCase.profiler.getProfiles());
+        }
+        Collections.sort(profiles, EvaluationProfiler.BY_COST);
+        if(profiles.size()>TOP)
+            profiles = profiles.subList(0, TOP);
+        System.out.println();
+        EvaluationProfiler.print(profiles, System.out);
+    }
 }
@@ -24,6 +24,7 @@ import jlibs.xml.sax.dog.XMLDog;
 import jlibs.xml.sax.dog.XPathResults;
 import jlibs.xml.sax.dog.expr.Expression;
 import jlibs.xml.sax.dog.sniff.DOMBuilder;
+import jlibs.xml.sax.dog.sniff.EvaluationProfiler;
 import jlibs.xml.sax.dog.sniff.Event;
 import jlibs.xml.stream.STAXXMLReader;
 import jlibs.xml.xpath.DefaultXPathVariableResolver;
@@ -52,6 +53,9 @@ public class TestCase{
     public static boolean useSTAX = false;
     public static boolean useXMLBuilder = false;
     public static boolean useInstantResults = false;
+    public static boolean useProfiler = false;
+    public static boolean useSharePrefixes = false;
+    public static boolean reuseEvent = false;
     public static XPathEngine domEngine =
 //            new JDKEngine(new com.sun.org.apache.xpath.internal.jaxp.XPathFactoryImpl());
 //            new JDKEngine(new org.apache.xpath.jaxp.XPathFactoryImpl());
@@ -72,9 +76,12 @@ public class TestCase{
     }
 
     public List<Object> dogResult;
+    public EvaluationProfiler profiler;
     public List<Object> usingXMLDog() throws Exception{
         InputSource source = new InputSource(file);
         final XMLDog dog = new XMLDog(nsContext, variableResolver, functionResolver);
+        if(useSharePrefixes)
+            dog.setSharePrefixes(true);
         Expression expressions[] = new Expression[xpaths.size()];
         for(int i=0; i<xpaths.size(); i++){
             XPathInfo xpathInfo = xpaths.get(i);
@@ -84,9 +91,17 @@ public class TestCase{
         Event event = dog.createEvent();
         if(useXMLBuilder)
             event.setXMLBuilder(new DOMBuilder());
+        if(useProfiler)
+            event.setProfiling(true);
 
         dogResult = new ArrayList<Object>(xpaths.size());
         XMLReader reader = useSTAX ? staxXMLReader : saxXMLReader;
+        if(reuseEvent){
+            // results below are from an event which already sniffed the document once
+            event.setListener(new XPathResults(event));
+            dog.sniff(event, source, reader);
+            event.reset();
+        }
         if(useInstantResults){
             InstantXPathResults dogResults = new InstantXPathResults(dog.getDocumentXPathsCount());
             event.setListener(dogResults);
@@ -101,6 +116,7 @@ public class TestCase{
                 dogResult.add(dogResults.getResult(expr));
         }
         resultNSContext = (DefaultNamespaceContext)event.getNamespaceContext();
+        profiler = event.getProfiler();
         return dogResult;
     }
 
@@ -141,15 +157,15 @@ public class TestCase{
     Comparator<NodeItem> attrComparator = new Comparator<NodeItem>(){
         @Override
         public int compare(NodeItem item1, NodeItem item2){
-            return item1.location.compareTo(item2.location);
+            return item1.location().compareTo(item2.location());
         }
     };
 
     Comparator<NodeItem> nsComparator = new Comparator<NodeItem>(){
         @Override
         public int compare(NodeItem item1, NodeItem item2){
-            String location1 = item1.location.substring(item1.location.lastIndexOf('/'));
-            String location2 = item2.location.substring(item2.location.lastIndexOf('/'));
+            String location1 = item1.location().substring(item1.location().lastIndexOf('/'));
+            String location2 = item2.location().substring(item2.location().lastIndexOf('/'));
             return location1.compareTo(location2);
         }
     };
@@ -206,8 +222,8 @@ public class TestCase{
             }else if(jdkItem instanceof NodeItem){
                 NodeItem jdkNodeItem = (NodeItem)jdkItem;
                 NodeItem dogNodeItem = (NodeItem)dogItem;
-                String jdkLocation = jdkNodeItem.location;
-                String dogLocation = dogNodeItem.location;
+                String jdkLocation = jdkNodeItem.location();
+                String dogLocation = dogNodeItem.location();
                 if(dogNodeItem.type==NodeItem.NAMESPACE){
                     jdkLocation = jdkLocation.substring(jdkLocation.lastIndexOf('/'));
                     dogLocation = dogLocation.substring(dogLocation.lastIndexOf('/'));
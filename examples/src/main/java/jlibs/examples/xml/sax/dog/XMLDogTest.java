@@ -136,7 +136,7 @@ public class XMLDogTest{
                 @Override
                 public void onNodeHit(Expression expression, NodeItem nodeItem){
                     if(printResults){
-                        System.out.print("XPath: "+expression.getXPath()+" Node["+ ++nodeCounts[expression.id]+"]: ");
+                        System.out.print("XPath: "+expression.getXPath()+" Node["+ ++nodeCounts[expression.id()]+"]: ");
                         nodeItem.printTo(System.out);
                         System.out.println();
                     }
@@ -35,7 +35,8 @@ public class XPathConformanceTest{
 
     public void run() throws Exception{
         System.out.println("-----------------------------------------------------------------------");
-        System.out.println("useSTAX: "+TestCase.useSTAX+"\t useXMLBuilder: "+TestCase.useXMLBuilder+"\t useInstantResults: "+TestCase.useInstantResults);
+        System.out.println("useSTAX: "+TestCase.useSTAX+"\t useXMLBuilder: "+TestCase.useXMLBuilder+"\t useInstantResults: "+TestCase.useInstantResults
+                +"\t useSharePrefixes: "+TestCase.useSharePrefixes+"\t reuseEvent: "+TestCase.reuseEvent);
 //        System.out.println("Press <ENTER> to run tests.....");
 //        System.in.read();
 
@@ -81,5 +82,16 @@ public class XPathConformanceTest{
 
         new XPathConformanceTest(args, true, true, false).run();
         new XPathConformanceTest(args, true, true, true).run();
+
+        TestCase.useSharePrefixes = true;
+        new XPathConformanceTest(args, false, false, false).run();
+        new XPathConformanceTest(args, false, true, true).run();
+        TestCase.useSharePrefixes = false;
+
+        TestCase.reuseEvent = true;
+        new XPathConformanceTest(args, false, false, false).run();
+        new XPathConformanceTest(args, false, true, true).run();
+        new XPathConformanceTest(args, true, false, true).run();
+        TestCase.reuseEvent = false;
     }
 }
\ No newline at end of file
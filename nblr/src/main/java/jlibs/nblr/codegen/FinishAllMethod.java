@@ -75,14 +75,43 @@ public class FinishAllMethod{
         );
     }
 
+    /*-------------------------------------------------[ Table ]---------------------------------------------------*/
+
+    /**
+     * Returns name of the bit-table, which has a bit set for each
+     * BMP character (other than '\r' and '\n') accepted by matcher.
+     * Returns null, if this method doesn't need such table.
+     */
+    public String tableName(){
+        if(SyntaxClass.FINISH_ALL.equals(methodName) || SyntaxClass.FINISH_ALL_OTHER_THAN.equals(methodName))
+            return null;
+        return matcher.clashesWith(Range.NON_SUPPLIMENTAL) ? "TABLE_"+methodName : null;
+    }
+
+    /** prints the statement setting the bit of <code>ch</code>, if it is accepted by matcher */
+    public void generateTableEntry(Printer printer){
+        String table = tableName();
+        printer.printlns(
+            "if("+matcher._javaCode("ch")+")",
+                PLUS,
+                table+"[ch>>>6] |= 1L<<ch;",
+                MINUS
+        );
+    }
+
+    private String lookup(String ch){
+        return "("+tableName()+"["+ch+">>>6] & (1L<<"+ch+"))!=0";
+    }
+
+    /*-------------------------------------------------[ Method ]---------------------------------------------------*/
+
     public void generate(Printer printer){
         String condition = matcher._javaCode("ch");
-        String _condition = condition;
         if(matcher.checkFor(NBParser.EOF) || matcher.checkFor(NBParser.EOC))
             condition = "ch>=0 && "+condition;
 
         if(!matcher.clashesWith(Range.SUPPLIMENTAL) && !matcher.clashesWith(Any.NEW_LINE)){
-            condition = matcher._javaCode("ch");
+            condition = lookup("ch");
             String returnType = returnValueRequired ? "int" : "boolean";
             String returnValue = returnValueRequired ? "codePoint()" : "position==limit && marker==EOC";
             printer.printlns(
@@ -162,10 +191,35 @@ public class FinishAllMethod{
                         MINUS
                 );
             }
+            // consume the run of accepted characters in a tight loop
             printer.printlns(
                 "while(position<"+max+"){",
-                    PLUS,
-                    "ch = input[position];"
+                    PLUS
+            );
+            if(buffering!=Answer.NO)
+                printer.println("int _position = position;");
+            printer.printlns(
+                    "do{",
+                        PLUS,
+                        "ch = input[position];",
+                        MINUS,
+                    "}while("+lookup("ch")+" && ++position<"+max+");"
+            );
+            if(buffering!=Answer.NO){
+                String isBuffering = buffering==Answer.MAY_BE ? " && buffer.isBuffering()" : "";
+                printer.printlns(
+                    "int len = position-_position;",
+                    "if(len>0"+isBuffering+")",
+                        PLUS,
+                        "buffer.append(input, _position, len);",
+                        MINUS
+                );
+            }
+            printer.printlns(
+                    "if(position=="+max+")",
+                        PLUS,
+                        "break;",
+                        MINUS
             );
 
             boolean addElse = false;
@@ -173,8 +227,13 @@ public class FinishAllMethod{
                 printer.printlns(
                     "if(ch=='\\r'){",
                         PLUS,
-                        "line++;",
-                        "linePosition = ++position;"
+                        "position++;",
+                        "if(trackLocation){",
+                            PLUS,
+                            "line++;",
+                            "linePosition = position;",
+                            MINUS,
+                        "}"
                 );
 
                 if(buffering!=Answer.NO){
@@ -201,23 +260,41 @@ public class FinishAllMethod{
             if(matcher.clashesWith(new Any('\n'))){
                 if(addElse)
                     printer.print("else ");
-                printer.printlns(
-                    "if(ch=='\\n'){",
-                        PLUS,
-                        "linePosition = ++position;",
-                        "char lastChar = position==start+1 ? this.lastChar : input[position-2];",
-                        "if(lastChar!='\\r')",
+                if(buffering==Answer.NO){
+                    printer.printlns(
+                        "if(ch=='\\n'){",
                             PLUS,
-                            "line++;",
-                            MINUS
-                );
-
-                if(buffering!=Answer.NO){
+                            "position++;",
+                            "if(trackLocation){",
+                                PLUS,
+                                "linePosition = position;",
+                                "char lastChar = position==start+1 ? this.lastChar : input[position-2];",
+                                "if(lastChar!='\\r')",
+                                    PLUS,
+                                    "line++;",
+                                    MINUS,
+                                MINUS,
+                            "}"
+                    );
+                }else{
                     printer.printlns(
-                        "else if(coalesceNewLines)",
+                        "if(ch=='\\n'){",
                             PLUS,
-                            "continue;",
-                            MINUS
+                            "position++;",
+                            "char lastChar = position==start+1 ? this.lastChar : input[position-2];",
+                            "if(trackLocation){",
+                                PLUS,
+                                "linePosition = position;",
+                                "if(lastChar!='\\r')",
+                                    PLUS,
+                                    "line++;",
+                                    MINUS,
+                                MINUS,
+                            "}",
+                            "if(lastChar=='\\r' && coalesceNewLines)",
+                                PLUS,
+                                "continue;",
+                                MINUS
                     );
 
                     if(buffering==Answer.MAY_BE){
@@ -244,27 +321,7 @@ public class FinishAllMethod{
             if(addElse)
                 printer.print("else ");
             printer.printlns(
-                "if("+_condition+"){",
-                    PLUS
-            );
-            if(buffering!=Answer.NO){
-                if(buffering==Answer.MAY_BE){
-                    printer.printlns(
-                        "if(buffer.isBuffering())",
-                            PLUS
-                    );
-                }
-                printer.printlns("chars[buffer.count++] = (char)ch;");
-                if(buffering==Answer.MAY_BE){
-                    printer.printlns(
-                            MINUS
-                    );
-                }
-            }
-            printer.printlns(
-                    "position++;",
-                    MINUS,
-                "}else if(ch>=MIN_HIGH_SURROGATE && ch<=MAX_HIGH_SURROGATE)",
+                "if(ch>=MIN_HIGH_SURROGATE && ch<=MAX_HIGH_SURROGATE)",
                     PLUS,
                     "break asciiLoop;",
                     MINUS,
@@ -111,12 +111,24 @@ public class RuleMethod{
     }
 
     public void generate(Printer printer){
-        printer.println("public static final int RULE_"+rule.name.toUpperCase()+" = "+rule.id+';');
+        String ruleID = "RULE_"+rule.name.toUpperCase();
+        printer.println("public static final int "+ruleID+" = "+rule.id+';');
         
         printer.printlns(
             "private boolean "+rule.name+"(int state) throws Exception{",
                 PLUS
         );
+        if(SyntaxClass.RULE_STATS){
+            printer.printlns(
+                "jlibs.nbp.ParserStats stats = this.stats;",
+                "if(stats!=null)",
+                    PLUS,
+                    "stats.ruleStarted("+ruleID+");",
+                    MINUS,
+                "try{",
+                    PLUS
+            );
+        }
 
         if(readCodePoint())
             printer.println("int ch;");
@@ -156,8 +168,23 @@ public class RuleMethod{
         }
 
         printer.printlns(
-                "exiting(RULE_"+rule.name.toUpperCase()+", state);",
-                "return false;",
+            "exiting("+ruleID+", state);",
+            "return false;"
+        );
+        if(SyntaxClass.RULE_STATS){
+            printer.printlns(
+                    MINUS,
+                "}finally{",
+                    PLUS,
+                    "if(stats!=null)",
+                        PLUS,
+                        "stats.ruleEnded();",
+                        MINUS,
+                    MINUS,
+                "}"
+            );
+        }
+        printer.printlns(
                 MINUS,
             "}"
         );
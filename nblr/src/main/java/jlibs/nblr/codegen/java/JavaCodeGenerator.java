@@ -49,6 +49,7 @@ public class JavaCodeGenerator extends CodeGenerator{
 
     @Override
     protected void startParser(){
+        SyntaxClass.RULE_STATS = !debuggable && booleanProperty(PARSER_RULE_STATS);
         String className[] = className(stringProperty(PARSER_CLASS_NAME));
         if(className[0].length()>0){
             printer.printlns(
@@ -197,11 +198,7 @@ public class JavaCodeGenerator extends CodeGenerator{
             "@Override",
             "protected final boolean "+prefix+"callRule() throws Exception{",
                 PLUS,
-                "if(SHOW_STATS)",
-                    PLUS,
-                    "callRuleCount++;",
-                    MINUS,
-                    "int rule = stack[free-2];"
+                "int rule = stack[free-2];"
         );
         if(!debuggable){
             printer.printlns(
@@ -772,6 +769,8 @@ public class JavaCodeGenerator extends CodeGenerator{
 
     public static final String PARSER_CLASS_NAME = "PARSER_CLASS_NAME";
     public static final String PARSER_FINAL = "PARSER_FINAL";
+    /** if true, rule calls and time spent are recorded in ParserStats, at the cost of try/finally in each rule */
+    public static final String PARSER_RULE_STATS = "PARSER_RULE_STATS";
     private static final String PARSER_SUPER_CLASS = "PARSER_SUPER_CLASS";
     public static final String HANDLER_CLASS_NAME = "HANDLER_CLASS_NAME";
     public static final String HANDLER_IS_CLASS = "HANDLER_IS_CLASS";
@@ -781,6 +780,7 @@ public class JavaCodeGenerator extends CodeGenerator{
     static{
         DEFAULTS.put(PARSER_CLASS_NAME, "UntitledParser");
         DEFAULTS.put(PARSER_FINAL, "true");
+        DEFAULTS.put(PARSER_RULE_STATS, "false");
         DEFAULTS.put(PARSER_SUPER_CLASS, NBParser.class.getName());
 
         DEFAULTS.put(HANDLER_CLASS_NAME, "UntitledHandler");
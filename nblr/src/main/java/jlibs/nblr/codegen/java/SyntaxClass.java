@@ -39,6 +39,9 @@ import static jlibs.core.annotation.processing.Printer.PLUS;
 public class SyntaxClass{
     public static boolean DEBUGGABLE = false;
 
+    /** if true, rule methods report to ParserStats on entry and exit */
+    public static boolean RULE_STATS = false;
+
     public Syntax syntax;
     public List<RuleMethod> ruleMethods = new ArrayList<RuleMethod>();
 
@@ -192,6 +195,35 @@ public class SyntaxClass{
     }
 
     private void generateFinishAllMethods(Printer printer){
+        List<FinishAllMethod> tables = new ArrayList<FinishAllMethod>();
+        for(FinishAllMethod method: finishAllMethods.values()){
+            if(method.tableName()!=null)
+                tables.add(method);
+        }
+        if(tables.size()>0){
+            printer.emptyLine(true);
+            for(FinishAllMethod method: tables)
+                printer.println("private static final long "+method.tableName()+"[] = new long[1024];");
+            printer.printlns(
+                "static{",
+                    PLUS,
+                    "for(int ch=0; ch<=0xFFFF; ch++){",
+                        PLUS,
+                        "if(ch=='\\r' || ch=='\\n')",
+                            PLUS,
+                            "continue;",
+                            MINUS
+            );
+            for(FinishAllMethod method: tables)
+                method.generateTableEntry(printer);
+            printer.printlns(
+                        MINUS,
+                    "}",
+                    MINUS,
+                "}"
+            );
+        }
+
         for(FinishAllMethod method: finishAllMethods.values()){
             printer.emptyLine(true);
             method.generate(printer);
@@ -252,11 +284,7 @@ public class SyntaxClass{
         printer.printlns(
             "@Override",
             "protected final boolean callRule(int rule, int state) throws Exception{",
-                PLUS,
-                "if(SHOW_STATS)",
-                    PLUS,
-                    "callRuleCount++;",
-                    MINUS
+                PLUS
         );
         if(!DEBUGGABLE){
             printer.printlns(
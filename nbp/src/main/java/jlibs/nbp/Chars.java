@@ -30,6 +30,7 @@ public final class Chars implements CharSequence{
 
     private int stack[] = new int[50];
     int free = 0;
+    int expansions;
 
     public boolean isBuffering(){
         return free>0;
@@ -46,6 +47,7 @@ public final class Chars implements CharSequence{
         if(newCapacity<0)
             newCapacity = Integer.MAX_VALUE;
         buff = Arrays.copyOf(buff, newCapacity);
+        expansions++;
     }
 
     public void append(char character){
@@ -55,7 +57,7 @@ public final class Chars implements CharSequence{
     }
 
     public void append(char chars[], int offset, int len){
-        if(count+len==chars.length)
+        if(count+len>buff.length)
             expandCapacity(len);
         System.arraycopy(chars, offset, buff, count, len);
         count += len;
@@ -51,6 +51,8 @@ public class NBChannel implements ReadableCharChannel{
         eofSeen = decode = false;
         fallbackEncoding = Charset.defaultCharset().name();
         encoding = null;
+        if(decoder!=null)
+            lastDecoder = decoder;
         decoder = null;
     }
 
@@ -64,13 +66,20 @@ public class NBChannel implements ReadableCharChannel{
             this.encoding = encoding;
     }
 
-    private CharsetDecoder decoder;
+    private CharsetDecoder decoder, lastDecoder;
     public CharsetDecoder decoder(){
         return decoder;
     }
 
     public void decoder(CharsetDecoder decoder){
         this.decoder = decoder;
+        String charset = decoder.charset().name();
+        if(charset.equals("UTF-8"))
+            fastPath = UTF8;
+        else if(charset.equals("US-ASCII"))
+            fastPath = ASCII;
+        else
+            fastPath = NONE;
     }
 
     protected CharsetDecoder createDecoder(ByteBuffer byteBuffer, boolean eof){
@@ -90,7 +99,11 @@ public class NBChannel implements ReadableCharChannel{
                 bom = BOM.get(marker, false);
                 encoding = bom==null ? fallbackEncoding : bom.encoding();
             }
-            return Charset.forName(encoding).newDecoder();
+            // reuse decoder of previous channel, if same charset
+            Charset charset = Charset.forName(encoding);
+            if(lastDecoder!=null && lastDecoder.charset().equals(charset))
+                return lastDecoder.reset();
+            return charset.newDecoder();
         }else
             return null;
     }
@@ -131,7 +144,11 @@ public class NBChannel implements ReadableCharChannel{
                 }
             }
 
-            CoderResult cr = decoder.decode(byteBuffer, charBuffer, eofSeen);
+            CoderResult cr;
+            if(fastPath!=NONE && charBuffer.hasArray())
+                cr = decode(byteBuffer, charBuffer, eofSeen);
+            else
+                cr = decoder.decode(byteBuffer, charBuffer, eofSeen);
             if(cr.isOverflow()) // insufficient space in charBuffer
                 break;
             else if(cr.isUnderflow()){ // required more bytes
@@ -157,6 +174,105 @@ public class NBChannel implements ReadableCharChannel{
         return charBuffer.position()-pos;
     }
 
+    /*-------------------------------------------------[ Fast Path ]---------------------------------------------------*/
+
+    private static final int NONE = 0;
+    private static final int ASCII = 1;
+    private static final int UTF8 = 2;
+    private int fastPath;
+
+    /**
+     * Decodes UTF-8 and US-ASCII bytes directly into the char array, without
+     * going through CharsetDecoder. Only characters which need more care, i.e
+     * supplementary characters, malformed or incomplete sequences, are passed
+     * to the decoder one at a time, so that errors are reported the same way.
+     */
+    private CoderResult decode(ByteBuffer in, CharBuffer out, boolean eof){
+        while(true){
+            if(fastPath==UTF8)
+                decodeUTF8(in, out);
+            else
+                decodeASCII(in, out);
+            if(!in.hasRemaining())
+                return CoderResult.UNDERFLOW;
+            if(!out.hasRemaining())
+                return CoderResult.OVERFLOW;
+
+            int inLimit = in.limit();
+            int outLimit = out.limit();
+            boolean truncated = in.remaining()>4;
+            if(truncated)
+                in.limit(in.position()+4);
+            if(out.remaining()>2)
+                out.limit(out.position()+2);
+            int pos = in.position();
+            CoderResult cr = decoder.decode(in, out, eof && !truncated);
+            in.limit(inLimit);
+            out.limit(outLimit);
+            if(cr.isError() || in.position()==pos)
+                return cr;
+        }
+    }
+
+    private static void decodeASCII(ByteBuffer in, CharBuffer out){
+        byte src[] = in.array();
+        int sp = in.arrayOffset()+in.position();
+        char dst[] = out.array();
+        int dp = out.arrayOffset()+out.position();
+        int len = Math.min(in.remaining(), out.remaining());
+
+        int end = sp+len;
+        while(sp<end){
+            byte b = src[sp];
+            if(b<0)
+                break;
+            dst[dp++] = (char)b;
+            sp++;
+        }
+        in.position(sp-in.arrayOffset());
+        out.position(dp-out.arrayOffset());
+    }
+
+    private static void decodeUTF8(ByteBuffer in, CharBuffer out){
+        byte src[] = in.array();
+        int sp = in.arrayOffset()+in.position();
+        int sl = in.arrayOffset()+in.limit();
+        char dst[] = out.array();
+        int dp = out.arrayOffset()+out.position();
+        int dl = out.arrayOffset()+out.limit();
+
+        while(sp<sl && dp<dl){
+            int b1 = src[sp];
+            if(b1>=0){
+                dst[dp++] = (char)b1;
+                sp++;
+            }else if((b1&0xE0)==0xC0){
+                if(sl-sp<2)
+                    break;
+                int b2 = src[sp+1];
+                if((b2&0xC0)!=0x80 || (b1&0x1E)==0) // overlong
+                    break;
+                dst[dp++] = (char)(((b1&0x1F)<<6) | (b2&0x3F));
+                sp += 2;
+            }else if((b1&0xF0)==0xE0){
+                if(sl-sp<3)
+                    break;
+                int b2 = src[sp+1];
+                int b3 = src[sp+2];
+                if((b2&0xC0)!=0x80 || (b3&0xC0)!=0x80)
+                    break;
+                int ch = ((b1&0x0F)<<12) | ((b2&0x3F)<<6) | (b3&0x3F);
+                if(ch<0x800 || (ch>=0xD800 && ch<=0xDFFF)) // overlong or surrogate
+                    break;
+                dst[dp++] = (char)ch;
+                sp += 3;
+            }else
+                break;
+        }
+        in.position(sp-in.arrayOffset());
+        out.position(dp-out.arrayOffset());
+    }
+
     @Override
     public boolean isOpen(){
         return channel!=null;
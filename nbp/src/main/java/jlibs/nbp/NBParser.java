@@ -25,15 +25,11 @@ import static java.lang.Character.*;
  * @author Santhosh Kumar T
  */
 public abstract class NBParser{
-    public static final boolean SHOW_STATS = false;
-    public static int callRuleCount = 0;
-    public static int chunkCount = 0;
-    public void printStats(){
-        System.out.println("callRuleCount = " + callRuleCount);
-        System.out.println("chunkCount = " + chunkCount);
-        System.out.println("lineCount = " + getLineNumber());
-        System.out.println("charCount = " + getCharacterOffset());
-    }
+    /**
+     * if not null, parser records its statistics into it.
+     * Can be set or cleared between calls to consume.
+     */
+    public ParserStats stats;
 
     protected final Chars buffer = new Chars();
 
@@ -93,6 +89,16 @@ public abstract class NBParser{
     }
 
     public boolean coalesceNewLines = false;
+
+    /**
+     * if false, line and column are not maintained while consuming input.
+     * Line number is then reported as -1, and column is computed only when
+     * asked, by scanning current chunk back to the start of line. The start
+     * of line is carried across chunks by scanning each chunk back for its
+     * last newline, once it is consumed.
+     */
+    public boolean trackLocation = true;
+
     protected static final int FROM_LA = -2;
     protected final void consume(int cp){
         if(cp==FROM_LA){
@@ -103,16 +109,20 @@ public abstract class NBParser{
 
         assert cp!=EOF;
         if(cp=='\r'){
-            line++;
-            linePosition = position;
+            if(trackLocation){
+                line++;
+                linePosition = position;
+            }
             cp = coalesceNewLines ? '\n' : '\r';
         }else if(cp=='\n'){
-            linePosition = position;
             char lastChar = position==start+1 ? this.lastChar : input[position-2];
-            if(lastChar!='\r')
-                line++;
-            else if(coalesceNewLines)
-                    return;
+            if(trackLocation){
+                linePosition = position;
+                if(lastChar!='\r')
+                    line++;
+            }
+            if(lastChar=='\r' && coalesceNewLines)
+                return;
         }
         if(buffer.free>0)
             buffer.append(cp);
@@ -128,12 +138,16 @@ public abstract class NBParser{
             laIncrement = increment;
         }
         la[laLen++] = cp;
+        if(stats!=null)
+            stats.lookAheadChars++;
         position += increment;
     }
 
     protected final void resetLookAhead(){
         this.position = laPosition;
         laLen = 0;
+        if(stats!=null)
+            stats.lookAheadResets++;
     }
 
     protected int offset, line, linePosition;
@@ -144,11 +158,24 @@ public abstract class NBParser{
     }
 
     public final int getLineNumber(){
-        return line;
+        return trackLocation ? line : -1;
     }
 
     public final int getColumnNumber(){
-        return position-linePosition;
+        if(trackLocation)
+            return position-linePosition;
+        int i = lineStart(start, position);
+        return position-(i<0 ? linePosition : i);
+    }
+
+    // returns position after last newline in input[from, to), -1 if none
+    private int lineStart(int from, int to){
+        for(int i=to; i>from; i--){
+            char ch = input[i-1];
+            if(ch=='\n' || ch=='\r')
+                return i;
+        }
+        return -1;
     }
 
     public final void setLocation(NBParser parser){
@@ -160,11 +187,10 @@ public abstract class NBParser{
 
     public boolean stop, pop;
     public final int consume(char chars[], int position, int limit, boolean eof) throws IOException{
-        if(SHOW_STATS){
-            chunkCount++;
-            if(chars!=null)
-                System.out.println("chunk["+chunkCount+"] = {"+new String(chars, position, limit-position)+'}');
-        }
+        ParserStats stats = this.stats;
+        if(stats!=null)
+            stats.chunkStarted(limit-position, free>>1);
+        boolean failed = true;
         try{
             input = chars;
             start = this.position = position;
@@ -197,6 +223,11 @@ public abstract class NBParser{
                 onSuccessful();
 
             if(this.position!=position){
+                if(!trackLocation){
+                    int i = lineStart(position, this.position);
+                    if(i>=0)
+                        linePosition = i;
+                }
                 lastChar = input[this.position-1];
                 offset += this.position-position;
                 linePosition -= this.position;
@@ -204,6 +235,7 @@ public abstract class NBParser{
             }
             start = this.position = 0;
 
+            failed = false;
             return position;
         }catch(IOException ex){
             throw ex;
@@ -212,6 +244,12 @@ public abstract class NBParser{
                 throw (IOException)ex.getCause();
             else
                 throw new IOException(ex);
+        }finally{
+            if(stats!=null){
+                stats.chunkEnded(buffer);
+                if(eof || failed)
+                    stats.flush();
+            }
         }
     }
 
@@ -253,6 +291,8 @@ public abstract class NBParser{
     protected int exitStack[] = new int[100];
     protected int exitFree = 0;
     protected final void exiting(int rule, int state){
+        if(stats!=null)
+            stats.suspended++;
         exitFree += 2;
         if(exitFree>exitStack.length)
             exitStack = Arrays.copyOf(exitStack, exitFree*2);
@@ -0,0 +1,324 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.nbp;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Runtime statistics of {@link NBParser}, recorded only when
+ * an instance is set in {@link NBParser#stats}.
+ * <p>
+ * It records chunks consumed, rules suspended at end of chunk and resumed
+ * in next chunk, look-ahead usage, and expansions of parser buffer.
+ * If the parser is generated with <code>PARSER_RULE_STATS=true</code>,
+ * it also records for each rule, number of calls and time spent in the
+ * rule itself excluding the rules it called. This is off by default,
+ * because it wraps every rule method in try/finally; rule figures of
+ * such parsers stay zero.
+ * <p>
+ * Recording is not thread-safe. An instance should be used by a single
+ * parser, or by parsers driven by same thread (for example parsers of a
+ * document and its external entities). To aggregate figures across threads,
+ * give each parser its own instance created with a shared parent. Parser
+ * {@link #flush() flushes} into the parent whenever it reaches end of input,
+ * and the parent can be read, {@link #reset() reset} and
+ * {@link #register(String) exposed over JMX} from any thread.
+ *
+ * @author Santhosh Kumar T
+ */
+public class ParserStats implements ParserStatsMXBean{
+    private final ParserStats parent;
+    private final String ruleNames[];
+    private final long ruleCalls[];
+    private final long ruleNanos[];
+
+    long chunks;
+    long chars;
+    long resumed;
+    long suspended;
+    long lookAheadChars;
+    long lookAheadResets;
+    long bufferExpansions;
+    int maxBufferSize;
+
+    /**
+     * @param parserClass generated parser class, whose <code>RULE_xxx</code>
+     *                    constants are used to name the rules
+     */
+    public ParserStats(Class<? extends NBParser> parserClass){
+        this(null, ruleNames(parserClass));
+    }
+
+    /** creates stats, which can be flushed into given parent */
+    public ParserStats(ParserStats parent){
+        this(parent, parent.ruleNames);
+    }
+
+    private ParserStats(ParserStats parent, String ruleNames[]){
+        this.parent = parent;
+        this.ruleNames = ruleNames;
+        ruleCalls = new long[ruleNames.length];
+        ruleNanos = new long[ruleNames.length];
+    }
+
+    private static String[] ruleNames(Class<?> parserClass){
+        List<String> names = new ArrayList<String>();
+        for(Field field: parserClass.getFields()){
+            if(Modifier.isStatic(field.getModifiers()) && field.getType()==int.class && field.getName().startsWith("RULE_")){
+                try{
+                    int rule = field.getInt(null);
+                    if(rule>=0){
+                        while(names.size()<=rule)
+                            names.add(null);
+                        names.set(rule, field.getName().substring("RULE_".length()).toLowerCase());
+                    }
+                }catch(IllegalAccessException ex){
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    public ParserStats getParent(){
+        return parent;
+    }
+
+    /*-------------------------------------------------[ Recording ]---------------------------------------------------*/
+
+    private int stack[] = new int[50];
+    private int depth;
+    private long mark;
+
+    /** called by parsers generated with PARSER_RULE_STATS, on entering a rule */
+    public final void ruleStarted(int rule){
+        long now = System.nanoTime();
+        if(depth>0)
+            ruleNanos[stack[depth-1]] += now-mark;
+        if(depth==stack.length)
+            stack = Arrays.copyOf(stack, depth<<1);
+        stack[depth++] = rule;
+        ruleCalls[rule]++;
+        mark = now;
+    }
+
+    /** called by parsers generated with PARSER_RULE_STATS, on leaving a rule normally or abruptly */
+    public final void ruleEnded(){
+        long now = System.nanoTime();
+        ruleNanos[stack[--depth]] += now-mark;
+        mark = now;
+    }
+
+    void chunkStarted(int length, int rulesToResume){
+        chunks++;
+        chars += length;
+        resumed += rulesToResume;
+    }
+
+    void chunkEnded(Chars buffer){
+        bufferExpansions += buffer.expansions;
+        buffer.expansions = 0;
+        int bufferSize = buffer.array().length;
+        if(bufferSize>maxBufferSize)
+            maxBufferSize = bufferSize;
+    }
+
+    /**
+     * Adds figures recorded so far into parent and clears them.
+     * Does nothing if this has no parent.
+     */
+    public void flush(){
+        if(parent!=null){
+            parent.add(this);
+            clear();
+        }
+    }
+
+    /*-------------------------------------------------[ Aggregation ]---------------------------------------------------*/
+
+    public synchronized void add(ParserStats that){
+        synchronized(that){
+            for(int i=0; i<ruleCalls.length; i++){
+                ruleCalls[i] += that.ruleCalls[i];
+                ruleNanos[i] += that.ruleNanos[i];
+            }
+            chunks += that.chunks;
+            chars += that.chars;
+            resumed += that.resumed;
+            suspended += that.suspended;
+            lookAheadChars += that.lookAheadChars;
+            lookAheadResets += that.lookAheadResets;
+            bufferExpansions += that.bufferExpansions;
+            maxBufferSize = Math.max(maxBufferSize, that.maxBufferSize);
+        }
+    }
+
+    private synchronized void clear(){
+        Arrays.fill(ruleCalls, 0);
+        Arrays.fill(ruleNanos, 0);
+        chunks = chars = resumed = suspended = 0;
+        lookAheadChars = lookAheadResets = bufferExpansions = 0;
+        maxBufferSize = 0;
+    }
+
+    @Override
+    public void reset(){
+        clear();
+    }
+
+    /*-------------------------------------------------[ Figures ]---------------------------------------------------*/
+
+    public int ruleCount(){
+        return ruleNames.length;
+    }
+
+    public String ruleName(int rule){
+        return ruleNames[rule];
+    }
+
+    public synchronized long ruleCalls(int rule){
+        return ruleCalls[rule];
+    }
+
+    /** @return nano seconds spent in given rule, excluding the rules it called */
+    public synchronized long ruleNanos(int rule){
+        return ruleNanos[rule];
+    }
+
+    @Override
+    public synchronized long getChunks(){
+        return chunks;
+    }
+
+    @Override
+    public synchronized long getCharacters(){
+        return chars;
+    }
+
+    @Override
+    public synchronized long getResumedRules(){
+        return resumed;
+    }
+
+    @Override
+    public synchronized long getSuspendedRules(){
+        return suspended;
+    }
+
+    @Override
+    public synchronized long getLookAheadChars(){
+        return lookAheadChars;
+    }
+
+    @Override
+    public synchronized long getLookAheadResets(){
+        return lookAheadResets;
+    }
+
+    @Override
+    public synchronized long getBufferExpansions(){
+        return bufferExpansions;
+    }
+
+    @Override
+    public synchronized int getMaxBufferSize(){
+        return maxBufferSize;
+    }
+
+    /** @return rules sorted by time spent, descending */
+    private synchronized Integer[] hotRules(){
+        List<Integer> rules = new ArrayList<Integer>();
+        for(int i=0; i<ruleCalls.length; i++){
+            if(ruleCalls[i]>0)
+                rules.add(i);
+        }
+        Collections.sort(rules, new Comparator<Integer>(){
+            @Override
+            public int compare(Integer rule1, Integer rule2){
+                long nanos1 = ruleNanos[rule1];
+                long nanos2 = ruleNanos[rule2];
+                return nanos1<nanos2 ? 1 : (nanos1==nanos2 ? 0 : -1);
+            }
+        });
+        return rules.toArray(new Integer[rules.size()]);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getRuleCalls(){
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for(int rule: hotRules())
+            map.put(ruleNames[rule], ruleCalls[rule]);
+        return map;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getRuleTimes(){
+        Map<String, Long> map = new LinkedHashMap<String, Long>();
+        for(int rule: hotRules())
+            map.put(ruleNames[rule], ruleNanos[rule]/1000);
+        return map;
+    }
+
+    @Override
+    public synchronized String toString(){
+        StringBuilder buff = new StringBuilder();
+        buff.append("chunks = ").append(chunks).append('\n');
+        buff.append("characters = ").append(chars).append('\n');
+        buff.append("resumedRules = ").append(resumed).append('\n');
+        buff.append("suspendedRules = ").append(suspended).append('\n');
+        buff.append("lookAheadChars = ").append(lookAheadChars).append('\n');
+        buff.append("lookAheadResets = ").append(lookAheadResets).append('\n');
+        buff.append("bufferExpansions = ").append(bufferExpansions).append('\n');
+        buff.append("maxBufferSize = ").append(maxBufferSize).append('\n');
+        for(int rule: hotRules()){
+            buff.append(ruleNames[rule]).append(": calls = ").append(ruleCalls[rule]);
+            buff.append(", time = ").append(ruleNanos[rule]/1000).append("us\n");
+        }
+        return buff.toString();
+    }
+
+    /*-------------------------------------------------[ Management ]---------------------------------------------------*/
+
+    private ObjectName objName;
+
+    /** registers this with platform MBeanServer as <code>jlibs.nbp:type=ParserStats,name=&lt;name&gt;</code> */
+    public void register(String name){
+        unregister();
+        try{
+            ObjectName objName = new ObjectName("jlibs.nbp:type=ParserStats,name="+ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objName);
+            this.objName = objName;
+        }catch(Exception ex){
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public void unregister(){
+        if(objName!=null){
+            try{
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objName);
+            }catch(Exception ex){
+                throw new RuntimeException(ex);
+            }
+            objName = null;
+        }
+    }
+}
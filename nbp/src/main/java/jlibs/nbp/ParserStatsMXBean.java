@@ -0,0 +1,39 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.nbp;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ParserStats}.
+ * Rule times are reported in microseconds.
+ *
+ * @author Santhosh Kumar T
+ */
+public interface ParserStatsMXBean{
+    public long getChunks();
+    public long getCharacters();
+    public long getResumedRules();
+    public long getSuspendedRules();
+    public long getLookAheadChars();
+    public long getLookAheadResets();
+    public long getBufferExpansions();
+    public int getMaxBufferSize();
+    public Map<String, Long> getRuleCalls();
+    public Map<String, Long> getRuleTimes();
+    public void reset();
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.nbp;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.MalformedInputException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests decoding of NBChannel, with bytes arriving in arbitrary chunks.
+ * Heap char buffers take the fast path for UTF-8 and US-ASCII, while
+ * direct char buffers are decoded by CharsetDecoder.
+ *
+ * @author Santhosh Kumar T
+ */
+public class NBChannelTest{
+    private static final String TEXT = "<a b='\u00e9\u00df'>x\u4e16\u754c \uD835\uDC00y\uD83D\uDE00</a>\u00ff\u0800\ufffd\n";
+
+    /** returns given bytes, atmost chunk bytes per read, and 0 bytes on every other read */
+    private static class ChunkedChannel implements ReadableByteChannel{
+        private final ByteBuffer bytes;
+        private final int chunk;
+        private boolean starve;
+
+        ChunkedChannel(byte bytes[], int chunk){
+            this.bytes = ByteBuffer.wrap(bytes);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(ByteBuffer dst){
+            if(!bytes.hasRemaining())
+                return -1;
+            starve = !starve;
+            if(starve)
+                return 0;
+            int read = Math.min(chunk, Math.min(bytes.remaining(), dst.remaining()));
+            for(int i=0; i<read; i++)
+                dst.put(bytes.get());
+            return read;
+        }
+
+        @Override
+        public boolean isOpen(){
+            return true;
+        }
+
+        @Override
+        public void close(){}
+    }
+
+    private static CharBuffer charBuffer(boolean fastPath, int size){
+        return fastPath ? CharBuffer.allocate(size) : ByteBuffer.allocateDirect(2*size).asCharBuffer();
+    }
+
+    /**
+     * reads all chars using given channel. chars decoded before
+     * an exception are appended to given buffer
+     */
+    private static String read(NBChannel channel, boolean fastPath, int charBufferSize, StringBuilder buff) throws IOException{
+        CharBuffer charBuffer = charBuffer(fastPath, charBufferSize);
+        try{
+            while(true){
+                charBuffer.clear();
+                int read = channel.read(charBuffer);
+                if(read==-1)
+                    return buff.toString();
+                charBuffer.flip();
+                buff.append(charBuffer);
+            }
+        }catch(IOException ex){
+            charBuffer.flip();
+            buff.append(charBuffer);
+            throw ex;
+        }
+    }
+
+    private static String read(byte bytes[], String encoding, int chunk, boolean fastPath, int charBufferSize) throws IOException{
+        NBChannel channel = new NBChannel(new ChunkedChannel(bytes, chunk), 16);
+        if(encoding!=null)
+            channel.setEncoding(encoding, false);
+        return read(channel, fastPath, charBufferSize, new StringBuilder());
+    }
+
+    private static void assertDecoded(byte bytes[], String encoding, String expected) throws IOException{
+        for(boolean fastPath: new boolean[]{ true, false }){
+            for(int chunk=1; chunk<=9; chunk++){
+                for(int charBufferSize=2; charBufferSize<=7; charBufferSize++){
+                    assertEquals(read(bytes, encoding, chunk, fastPath, charBufferSize), expected,
+                            "fastPath="+fastPath+" chunk="+chunk+" charBufferSize="+charBufferSize);
+                }
+            }
+        }
+    }
+
+    private static byte[] concat(byte a[], byte b[]){
+        byte bytes[] = new byte[a.length+b.length];
+        System.arraycopy(a, 0, bytes, 0, a.length);
+        System.arraycopy(b, 0, bytes, a.length, b.length);
+        return bytes;
+    }
+
+    @Test(description="multibyte sequences and surrogate pairs split across reads")
+    public void utf8() throws IOException{
+        assertDecoded(TEXT.getBytes("UTF-8"), "UTF-8", TEXT);
+        assertDecoded(concat(new byte[]{ (byte)0xEF, (byte)0xBB, (byte)0xBF }, TEXT.getBytes("UTF-8")), null, TEXT);
+
+        // every split of a supplementary character
+        String text = "a\uD835\uDC00b";
+        byte bytes[] = text.getBytes("UTF-8");
+        for(int chunk=1; chunk<bytes.length; chunk++)
+            assertEquals(read(bytes, "UTF-8", chunk, true, 2), text);
+    }
+
+    @Test(description="byte order mark is skipped, and picks the encoding")
+    public void utf16() throws IOException{
+        assertDecoded(concat(new byte[]{ (byte)0xFE, (byte)0xFF }, TEXT.getBytes("UTF-16BE")), null, TEXT);
+        assertDecoded(concat(new byte[]{ (byte)0xFF, (byte)0xFE }, TEXT.getBytes("UTF-16LE")), null, TEXT);
+        assertDecoded(TEXT.getBytes("UTF-16BE"), "UTF-16BE", TEXT);
+    }
+
+    @Test(description="US-ASCII fast path")
+    public void ascii() throws IOException{
+        String text = "<a b='c'>\r\n\tx</a>";
+        assertDecoded(text.getBytes("US-ASCII"), "US-ASCII", text);
+    }
+
+    private static void assertMalformed(byte bytes[], String encoding, String prefix) throws IOException{
+        for(boolean fastPath: new boolean[]{ true, false }){
+            for(int chunk=1; chunk<=9; chunk++){
+                NBChannel channel = new NBChannel(new ChunkedChannel(bytes, chunk), 16);
+                channel.setEncoding(encoding, false);
+                StringBuilder buff = new StringBuilder();
+                try{
+                    read(channel, fastPath, 4, buff);
+                    fail("malformed input not reported: fastPath="+fastPath+" chunk="+chunk);
+                }catch(MalformedInputException ex){
+                    assertEquals(buff.toString(), prefix, "fastPath="+fastPath+" chunk="+chunk);
+                }
+            }
+        }
+    }
+
+    @Test(description="malformed input is reported after the chars preceding it")
+    public void malformed() throws IOException{
+        byte prefix[] = "ab\u00e9\u4e16".getBytes("UTF-8");
+        byte malformed[][] = {
+            { (byte)0xFF },                         // invalid byte
+            { (byte)0xC0, (byte)0x80 },             // overlong 2 byte
+            { (byte)0xE0, (byte)0x80, (byte)0x80 }, // overlong 3 byte
+            { (byte)0xED, (byte)0xA0, (byte)0x80 }, // encoded surrogate
+            { (byte)0xC3, 'x' },                    // missing continuation byte
+            { (byte)0xF0, (byte)0x9D, 'x' },        // truncated 4 byte
+            { (byte)0x80 },                         // unexpected continuation byte
+        };
+        for(byte bytes[]: malformed)
+            assertMalformed(concat(prefix, concat(bytes, "tail".getBytes("UTF-8"))), "UTF-8", "ab\u00e9\u4e16");
+
+        // incomplete sequence at end of input
+        assertMalformed(concat(prefix, new byte[]{ (byte)0xE4, (byte)0xB8 }), "UTF-8", "ab\u00e9\u4e16");
+        assertMalformed(concat(prefix, new byte[]{ (byte)0xF0, (byte)0x9D, (byte)0x90 }), "UTF-8", "ab\u00e9\u4e16");
+
+        assertMalformed(concat("abc".getBytes("US-ASCII"), new byte[]{ (byte)0x80, 'd' }), "US-ASCII", "abc");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.benchmark;
+
+import jlibs.nio.util.BufferAllocator;
+import jlibs.nio.util.Buffers;
+import jlibs.nio.util.PooledBufferAllocator;
+import jlibs.nio.util.UnpooledBufferAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation churn of {@link BufferAllocator} implementations,
+ * as done by reactors per read/write, and {@link Buffers} round trips.
+ * <p>
+ * Run with {@code -prof gc} to compare allocation rates.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(2)
+public class AllocatorBenchmark{
+    @Param({ "pooled-direct", "pooled-heap", "unpooled-direct", "unpooled-heap" })
+    public String allocator;
+
+    @Param({ "16384" })
+    public int size;
+
+    /** number of buffers held at once before freeing them */
+    @Param({ "1", "32" })
+    public int depth;
+
+    private BufferAllocator bufferAllocator;
+    private ByteBuffer held[];
+    private byte payload[];
+    private ByteBuffer dst;
+
+    @Setup
+    public void setup(){
+        switch(allocator){
+            case "pooled-direct":
+                bufferAllocator = new PooledBufferAllocator(true);
+                break;
+            case "pooled-heap":
+                bufferAllocator = new PooledBufferAllocator(false);
+                break;
+            case "unpooled-direct":
+                bufferAllocator = UnpooledBufferAllocator.DIRECT;
+                break;
+            case "unpooled-heap":
+                bufferAllocator = UnpooledBufferAllocator.HEAP;
+                break;
+            default:
+                throw new IllegalArgumentException(allocator);
+        }
+        held = new ByteBuffer[depth];
+        payload = new byte[3*size+size/2];
+        dst = ByteBuffer.allocate(size);
+    }
+
+    @Benchmark
+    public void allocateFree(Blackhole bh){
+        for(int i=0; i<held.length; i++){
+            held[i] = bufferAllocator.allocate(size);
+            bh.consume(held[i]);
+        }
+        for(int i=0; i<held.length; i++){
+            bufferAllocator.free(held[i]);
+            held[i] = null;
+        }
+    }
+
+    /** writes payload into {@link Buffers} and reads it back, freeing drained buffers */
+    @Benchmark
+    public int buffersRoundTrip(){
+        Buffers buffers = new Buffers();
+        int offset = 0;
+        while(offset<payload.length){
+            ByteBuffer buffer = bufferAllocator.allocate(size);
+            int len = Math.min(buffer.remaining(), payload.length-offset);
+            buffer.put(payload, offset, len);
+            buffer.flip();
+            buffers.append(buffer);
+            offset += len;
+        }
+        int read = 0;
+        while(true){
+            dst.clear();
+            int n = buffers.read(dst, bufferAllocator);
+            if(n==-1)
+                break;
+            read += dst.position();
+        }
+        return read;
+    }
+}
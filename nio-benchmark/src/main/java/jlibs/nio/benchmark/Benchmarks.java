@@ -0,0 +1,49 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with results in JSON, so that runs can be compared.
+ * <p>
+ * Accepts all JMH command line options, and defaults to:
+ * <pre>
+ * -rf json -rff nio-benchmark.json -prof gc jlibs.nio.benchmark.*
+ * </pre>
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class Benchmarks{
+    public static void main(String[] args) throws Exception{
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+        if(cmdOptions.getIncludes().isEmpty())
+            options.include(Benchmarks.class.getPackage().getName()+".*");
+        if(!cmdOptions.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if(!cmdOptions.getResult().hasValue())
+            options.result("nio-benchmark.json");
+        if(cmdOptions.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
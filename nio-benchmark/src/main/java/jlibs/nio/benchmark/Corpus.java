@@ -0,0 +1,79 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.benchmark;
+
+import jlibs.core.io.IOUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captured http message heads used by parser benchmarks.
+ * <p>
+ * By default the samples bundled under {@code jlibs/nio/benchmark/corpus}
+ * are used. Set system property {@value #DIR_PROPERTY} to a directory of
+ * raw captures (one message head per file) to benchmark real traffic.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class Corpus{
+    public static final String DIR_PROPERTY = "jlibs.nio.benchmark.corpus";
+
+    private static final String REQUESTS[] = { "browser-get.txt", "soap-post.txt", "api-put.txt", "minimal-get.txt" };
+    private static final String RESPONSES[] = { "response-200.txt" };
+
+    public static ByteBuffer[] requests() throws IOException{
+        return load("request", REQUESTS);
+    }
+
+    public static ByteBuffer[] responses() throws IOException{
+        return load("response", RESPONSES);
+    }
+
+    private static ByteBuffer[] load(String prefix, String resources[]) throws IOException{
+        List<ByteBuffer> buffers = new ArrayList<>();
+        String dir = System.getProperty(DIR_PROPERTY);
+        if(dir!=null){
+            File files[] = new File(dir).listFiles();
+            if(files!=null){
+                for(File file: files){
+                    boolean response = file.getName().startsWith("response");
+                    if(response==prefix.equals("response"))
+                        buffers.add(toDirect(Files.readAllBytes(file.toPath())));
+                }
+            }
+        }
+        if(buffers.isEmpty()){
+            for(String resource: resources){
+                InputStream in = Corpus.class.getResourceAsStream("corpus/"+resource);
+                buffers.add(toDirect(IOUtil.pump(in, true).toByteArray()));
+            }
+        }
+        return buffers.toArray(new ByteBuffer[buffers.size()]);
+    }
+
+    private static ByteBuffer toDirect(byte bytes[]){
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.benchmark;
+
+import jlibs.core.net.SSLUtil;
+import jlibs.nio.Reactors;
+import jlibs.nio.TCPEndpoint;
+import jlibs.nio.http.HTTPServer;
+import jlibs.nio.http.msg.Response;
+import jlibs.nio.http.msg.Status;
+import jlibs.nio.http.msg.StringPayload;
+import jlibs.nio.servers.EchoServer;
+import jlibs.nio.servers.TCPProxyServer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end round trips over loopback against servers running on jlibs reactors.
+ * <p>
+ * Each benchmark thread holds one persistent blocking connection, so
+ * {@code -t} controls the number of concurrent connections.
+ * Secure variants need {@code javax.net.ssl.keyStore} to point to
+ * a keystore with server key (defaults to {@code ../keystore.ks} of this repository).
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(value=1, jvmArgsAppend={ "-Djavax.net.ssl.keyStore=../keystore.ks", "-Djavax.net.ssl.keyStorePassword=dontknow" })
+public class LoopbackBenchmark{
+    @State(Scope.Benchmark)
+    public static class Servers{
+        @Param({ "false", "true" })
+        public boolean secure;
+
+        @Param({ "128", "16384" })
+        public int payloadSize;
+
+        public int echoPort, proxyPort, httpPort;
+        private EchoServer echoServer, backendServer;
+        private TCPProxyServer proxyServer;
+        private HTTPServer httpServer;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception{
+            if(Reactors.get()==null)
+                Reactors.start(Integer.getInteger("jlibs.nio.benchmark.reactors", 1));
+
+            echoPort = freePort();
+            TCPEndpoint echoEndpoint = new TCPEndpoint("localhost", echoPort);
+            if(secure)
+                echoEndpoint.sslContext = SSLUtil.defaultContext();
+            echoServer = new EchoServer(echoEndpoint);
+            echoServer.start();
+
+            // proxy terminates ssl if any, and tunnels to plain echo server
+            TCPEndpoint backendEndpoint = new TCPEndpoint("localhost", freePort());
+            backendServer = new EchoServer(backendEndpoint);
+            backendServer.start();
+
+            proxyPort = freePort();
+            TCPEndpoint proxyEndpoint = new TCPEndpoint("localhost", proxyPort);
+            if(secure)
+                proxyEndpoint.sslContext = SSLUtil.defaultContext();
+            proxyServer = new TCPProxyServer(proxyEndpoint, backendEndpoint);
+            proxyServer.start();
+
+            httpPort = freePort();
+            TCPEndpoint httpEndpoint = new TCPEndpoint("localhost", httpPort);
+            if(secure)
+                httpEndpoint.sslContext = SSLUtil.defaultContext();
+            char chars[] = new char[payloadSize];
+            Arrays.fill(chars, 'x');
+            String content = new String(chars);
+            httpServer = new HTTPServer(httpEndpoint);
+            httpServer.listener = exchange -> {
+                Response response = new Response();
+                response.status = Status.OK;
+                response.setPayload(new StringPayload(content));
+                exchange.setResponse(response);
+                return true;
+            };
+            httpServer.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop(){
+            httpServer.stop();
+            proxyServer.stop();
+            backendServer.stop();
+            echoServer.stop();
+        }
+
+        private static int freePort() throws IOException{
+            try(ServerSocket socket = new ServerSocket(0)){
+                return socket.getLocalPort();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client{
+        private Socket echo, proxy, http;
+        private InputStream httpIn;
+        private byte payload[], echoed[];
+        private byte httpRequest[];
+
+        @Setup(Level.Trial)
+        public void connect(Servers servers) throws Exception{
+            echo = connect(servers.echoPort, servers.secure);
+            proxy = connect(servers.proxyPort, servers.secure);
+            http = connect(servers.httpPort, servers.secure);
+            httpIn = new BufferedInputStream(http.getInputStream());
+            payload = new byte[servers.payloadSize];
+            Arrays.fill(payload, (byte)'x');
+            echoed = new byte[servers.payloadSize];
+            httpRequest = "GET /benchmark HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException{
+            echo.close();
+            proxy.close();
+            http.close();
+        }
+
+        private static Socket connect(int port, boolean secure) throws Exception{
+            Socket socket;
+            if(secure){
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, SSLUtil.DUMMY_TRUST_MANAGERS, null);
+                socket = context.getSocketFactory().createSocket("localhost", port);
+                ((SSLSocket)socket).startHandshake();
+            }else
+                socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+
+        int roundTrip(Socket socket) throws IOException{
+            socket.getOutputStream().write(payload);
+            socket.getOutputStream().flush();
+            readFully(socket.getInputStream(), echoed);
+            return echoed[echoed.length-1];
+        }
+
+        int httpRoundTrip() throws IOException{
+            OutputStream out = http.getOutputStream();
+            out.write(httpRequest);
+            out.flush();
+            InputStream in = httpIn;
+            int contentLength = -1;
+            StringBuilder line = new StringBuilder();
+            while(true){
+                int ch = in.read();
+                if(ch==-1)
+                    throw new EOFException();
+                if(ch=='\n'){
+                    if(line.length()==0)
+                        break;
+                    String header = line.toString();
+                    if(header.regionMatches(true, 0, "Content-Length:", 0, 15))
+                        contentLength = Integer.parseInt(header.substring(15).trim());
+                    line.setLength(0);
+                }else if(ch!='\r')
+                    line.append((char)ch);
+            }
+            if(contentLength<0)
+                throw new IOException("missing Content-Length");
+            byte body[] = contentLength==echoed.length ? echoed : new byte[contentLength];
+            readFully(in, body);
+            return contentLength;
+        }
+
+        private static void readFully(InputStream in, byte bytes[]) throws IOException{
+            int offset = 0;
+            while(offset<bytes.length){
+                int read = in.read(bytes, offset, bytes.length-offset);
+                if(read==-1)
+                    throw new EOFException();
+                offset += read;
+            }
+        }
+    }
+
+    @Benchmark
+    public int echo(Client client) throws IOException{
+        return client.roundTrip(client.echo);
+    }
+
+    @Benchmark
+    public int tcpProxy(Client client) throws IOException{
+        return client.roundTrip(client.proxy);
+    }
+
+    @Benchmark
+    public int http(Client client) throws IOException{
+        return client.httpRoundTrip();
+    }
+}
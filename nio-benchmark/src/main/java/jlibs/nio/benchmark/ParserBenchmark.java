@@ -0,0 +1,118 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.benchmark;
+
+import jlibs.nio.http.msg.Request;
+import jlibs.nio.http.msg.Response;
+import jlibs.nio.http.msg.parser.HeadersParser;
+import jlibs.nio.http.msg.parser.RequestParser;
+import jlibs.nio.http.msg.parser.ResponseParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses every message head in {@link Corpus} per invocation.
+ * <p>
+ * {@code fragment} splits each head into chunks of given size
+ * to exercise the parser's resumable states, as seen on slow
+ * or segmented connections. 0 means the whole head is available at once.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(2)
+public class ParserBenchmark{
+    @Param({ "0", "16" })
+    public int fragment;
+
+    private ByteBuffer requests[];
+    private ByteBuffer responses[];
+    private ByteBuffer headers[];
+    private final RequestParser requestParser = new RequestParser(0);
+    private final ResponseParser responseParser = new ResponseParser();
+    private final HeadersParser headersParser = new HeadersParser();
+
+    @Setup
+    public void setup() throws IOException{
+        requests = Corpus.requests();
+        responses = Corpus.responses();
+        headers = new ByteBuffer[requests.length];
+        for(int i=0; i<requests.length; i++){
+            ByteBuffer buffer = requests[i].duplicate();
+            while(buffer.get()!='\n'){
+                // skip request line
+            }
+            headers[i] = buffer.slice();
+        }
+    }
+
+    private boolean parse(HeadersParser parser, ByteBuffer buffer){
+        buffer.clear();
+        if(fragment==0)
+            return parser.parse(buffer, false);
+        int limit = buffer.limit();
+        try{
+            while(true){
+                buffer.limit(Math.min(limit, buffer.position()+fragment));
+                if(parser.parse(buffer, false))
+                    return true;
+                if(buffer.limit()==limit)
+                    return false;
+            }
+        }finally{
+            buffer.limit(limit);
+        }
+    }
+
+    @Benchmark
+    public void requestHead(Blackhole bh){
+        for(ByteBuffer buffer: requests){
+            Request request = new Request();
+            requestParser.reset(request);
+            bh.consume(parse(requestParser, buffer));
+            bh.consume(request);
+        }
+    }
+
+    @Benchmark
+    public void responseHead(Blackhole bh){
+        for(ByteBuffer buffer: responses){
+            Response response = new Response();
+            responseParser.reset(response);
+            bh.consume(parse(responseParser, buffer));
+            bh.consume(response);
+        }
+    }
+
+    /** headers only, skipping the request line */
+    @Benchmark
+    public void headers(Blackhole bh){
+        for(ByteBuffer buffer: headers){
+            Request request = new Request();
+            headersParser.reset(request.headers, request.badMessageStatus());
+            bh.consume(parse(headersParser, buffer));
+            bh.consume(request.headers);
+        }
+    }
+}
@@ -38,6 +38,11 @@ public class ConnectionPool{
         return count;
     }
 
+    public int count(String key){
+        Entry entry = entries.get(key);
+        return entry==null ? 0 : entry.count;
+    }
+
     public void add(String key, Connection connection){
         add(key, connection, timeout);
     }
@@ -46,7 +46,21 @@ public class Management{
         public void close() throws IOException;
     }
 
-    static ObjectName register(Object mbean, String name){
+    @MXBean
+    public static interface LatencyMXBean{
+        public String getUnit();
+        public Map<String, Long> getCount();
+        public Map<String, Long> getMean();
+        public Map<String, Long> getMax();
+        public Map<String, Long> getP50();
+        public Map<String, Long> getP90();
+        public Map<String, Long> getP99();
+        public Map<String, Long> getP999();
+        public long getPercentile(String phase, double percentile);
+        public void reset();
+    }
+
+    public static ObjectName register(Object mbean, String name){
         try{
             ObjectName objName = new ObjectName(name);
             if(!MBEAN_SERVER.isRegistered(objName))
@@ -57,9 +71,9 @@ public class Management{
         }
     }
 
-    static void unregister(ObjectName name){
+    public static void unregister(ObjectName name){
         try{
-            if(name!=null && !MBEAN_SERVER.isRegistered(name))
+            if(name!=null && MBEAN_SERVER.isRegistered(name))
                 MBEAN_SERVER.unregisterMBean(name);
         }catch(Exception ex){
             throw new RuntimeException(ex);
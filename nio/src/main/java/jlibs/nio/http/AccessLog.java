@@ -75,7 +75,7 @@ public class AccessLog{
             Class messageType = Response.class;
             if(REQUEST_VARS.contains(group2) || group2.startsWith("request."))
                 messageType = Request.class;
-            boolean captureOnFinish = CAPTURE_ON_FINISH.contains(group2);
+            boolean captureOnFinish = CAPTURE_ON_FINISH.contains(group2) || group2.startsWith("latency.");
             attributes.add(new Attribute(Expression.compile(group2), exchangeType, messageType, captureOnFinish));
 
             cursor = matcher.end();
@@ -49,6 +49,10 @@ public class ClientExchange extends Exchange{
 
     private AccessLog accessLog;
     private AccessLog.Record accessLogRecord;
+    private Latencies<Phase>.Record latencyRecord;
+
+    UpstreamGroup.Upstream upstream;
+    private long upstreamStart;
 
     protected ClientExchange(HTTPClient client, TCPEndpoint endpoint){
         super(client.maxResponseHeadSize, new ResponseParser(), OP_WRITE);
@@ -62,6 +66,24 @@ public class ClientExchange extends Exchange{
             accessLogRecord = accessLog.records.allocate();
             accessLogRecord.setLogHandler(client.logHandler);
         }
+        if(client.latencies!=null){
+            latencyRecord = client.latencies.new Record();
+            readMessage.trackFirstByte = true;
+        }
+    }
+
+    public enum Phase{
+        REQUEST_FILTERS,
+        /** includes connection pool lookup, proxy negotiation and tcp connect */
+        CONNECT,
+        /** includes ssl handshake on new secure connections */
+        WRITE_REQUEST,
+        /** from end of request to first byte of response */
+        WAIT_RESPONSE,
+        READ_HEAD,
+        RESPONSE_FILTERS,
+        /** from execute to completion, including retries */
+        TOTAL
     }
 
     enum State{
@@ -87,6 +109,8 @@ public class ClientExchange extends Exchange{
                         if(in!=null)
                             in.setInputListener(null);
                         filters = requestFilters.iterator();
+                        if(latencyRecord!=null)
+                            latencyRecord.start(Phase.REQUEST_FILTERS);
                         state = FILTER_REQUEST;
                         if(HTTP)
                             println("state = "+state);
@@ -95,7 +119,11 @@ public class ClientExchange extends Exchange{
                             if(!filters.next().filter(this, FilterType.REQUEST))
                                 return false;
                         }
+                        if(latencyRecord!=null)
+                            latencyRecord.stop(Phase.REQUEST_FILTERS);
                         if(in==null){
+                            if(latencyRecord!=null)
+                                latencyRecord.start(Phase.CONNECT);
                             endpoint.getConnection(this::connectCompleted, client.proxy);
                             return false;
                         }
@@ -121,6 +149,8 @@ public class ClientExchange extends Exchange{
                         writeMessage.reset(request, null, !continue100Expected);
                         if(accessLog!=null)
                             accessLogRecord.process(this, request);
+                        if(latencyRecord!=null)
+                            latencyRecord.start(Phase.WRITE_REQUEST);
                         setChild(writeMessage);
                         return true;
                     case READ_RESPONSE:
@@ -131,6 +161,8 @@ public class ClientExchange extends Exchange{
                     case PREPARE_RESPONSE_FILTERS:
                         in.setInputListener(null);
                         filters = responseFilters.iterator();
+                        if(latencyRecord!=null)
+                            latencyRecord.start(Phase.RESPONSE_FILTERS);
                         state = FILTER_RESPONSE;
                         if(HTTP)
                             println("state = "+state);
@@ -145,6 +177,8 @@ public class ClientExchange extends Exchange{
                         if(HTTP)
                             println("state = "+state);
                     case DELIVER_RESPONSE:
+                        if(latencyRecord!=null)
+                            latencyRecord.stop(Phase.RESPONSE_FILTERS);
                         if(retry==null)
                             user.process(this, error);
                         state = COMPLETE;
@@ -170,6 +204,10 @@ public class ClientExchange extends Exchange{
                             if(!drainInputs())
                                 return false;
                         }
+                        if(keepAlive && retry==null && upstream!=null && upstream.maxIdleConnections>0){
+                            if(Reactor.current().connectionPool.count(endpoint.toString())>=upstream.maxIdleConnections)
+                                keepAlive = false;
+                        }
                         if(keepAlive){
                             if(retry==null)
                                 Reactor.current().connectionPool.add(endpoint.toString(), (Connection)in.channel(), Math.abs(client.keepAliveTimeout));
@@ -201,6 +239,8 @@ public class ClientExchange extends Exchange{
                     case CLOSED:
                         return true;
                     case SEND_REQUEST_PAYLOAD:
+                        if(latencyRecord!=null)
+                            latencyRecord.start(Phase.WRITE_REQUEST);
                         setChild(writeMessage);
                         return true;
                 }
@@ -220,6 +260,12 @@ public class ClientExchange extends Exchange{
             println(this+".execute{");
         user = listener;
         assert state==PREPARE_REQUEST_FILTERS;
+        if(latencyRecord!=null)
+            latencyRecord.start(Phase.TOTAL);
+        if(upstream!=null){
+            upstreamStart = System.nanoTime();
+            upstream.started();
+        }
         process(OP_WRITE);
         if(HTTP)
             println("}");
@@ -227,6 +273,8 @@ public class ClientExchange extends Exchange{
 
     private void connectCompleted(Result<Connection> result){
         try{
+            if(latencyRecord!=null)
+                latencyRecord.stop(Phase.CONNECT);
             Connection con = result.get();
             connectionStatus = ConnectionStatus.OPEN;
             state = WRITE_REQUEST;
@@ -241,6 +289,11 @@ public class ClientExchange extends Exchange{
 
     @Override
     protected void writeMessageFinished(Throwable thr){
+        if(latencyRecord!=null){
+            latencyRecord.stop(Phase.WRITE_REQUEST);
+            if(thr==null)
+                latencyRecord.start(Phase.WAIT_RESPONSE);
+        }
         if(thr==null){
             state = READ_RESPONSE;
             if(HTTP)
@@ -251,6 +304,14 @@ public class ClientExchange extends Exchange{
 
     @Override
     protected void readMessageFinished(Throwable thr){
+        if(latencyRecord!=null){
+            long firstByteTime = readMessage.firstByteTime();
+            if(firstByteTime!=0){
+                latencyRecord.stop(Phase.WAIT_RESPONSE, firstByteTime);
+                latencyRecord.start(Phase.READ_HEAD, firstByteTime);
+            }
+            latencyRecord.stop(Phase.READ_HEAD);
+        }
         if(accessLog!=null){
             try{
                 accessLogRecord.process(this, response);
@@ -323,12 +384,20 @@ public class ClientExchange extends Exchange{
 
     @Trace(condition=HTTP)
     private void notifyCallback(){
+        if(latencyRecord!=null)
+            latencyRecord.stop(Phase.TOTAL);
         try{
             if(accessLog!=null)
                 accessLogRecord.finished(this);
         }catch(Throwable thr){
             Reactor.current().handleException(thr);
         }
+        if(latencyRecord!=null)
+            latencyRecord.finished();
+        if(upstream!=null){
+            upstream.completed(this, System.nanoTime()-upstreamStart);
+            upstream = null;
+        }
         if(callback!=null){
             try{
                 callback.completed(this, error);
@@ -351,6 +420,11 @@ public class ClientExchange extends Exchange{
         return endpoint;
     }
 
+    @Override
+    public Latencies<Phase>.Record getLatencyRecord(){
+        return latencyRecord;
+    }
+
     @Override
     public Connection stealConnection(){
         if(in==null)
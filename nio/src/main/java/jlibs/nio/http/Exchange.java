@@ -112,6 +112,9 @@ public abstract class Exchange extends Task implements Bean, Closeable{
     public abstract TCPEndpoint getEndpoint();
     public abstract Connection stealConnection();
 
+    /** @return phase timings of this exchange, null if latencies are not tracked */
+    public abstract Latencies<?>.Record getLatencyRecord();
+
     protected ConnectionStatus connectionStatus;
     public ConnectionStatus getConnectionStatus(){
         return connectionStatus;
@@ -178,6 +181,8 @@ public abstract class Exchange extends Task implements Bean, Closeable{
             return connectionStatus;
         else if(name=="request_count")
             return getRequestCount();
+        else if(name=="latency")
+            return getLatencyRecord();
         else if(name=="id")
             return in==null ? null : in.channel().getExecutionID();
         else if(name=="ssl_session"){
@@ -53,6 +53,9 @@ public class HTTPClient{
     public AccessLog accessLog;
     public LogHandler logHandler = ConsoleLogHandler.INSTANCE;
 
+    /** set to track per-phase latencies, use {@link Latencies#register(String)} to publish through JMX */
+    public Latencies<ClientExchange.Phase> latencies;
+
     public HTTPClient(){
         proxy = Proxy.DEFAULTS.get(HTTPProxy.TYPE);
         if(proxy==null)
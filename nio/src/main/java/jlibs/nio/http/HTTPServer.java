@@ -22,6 +22,7 @@ import jlibs.nio.listeners.IOListener;
 import jlibs.nio.log.ConsoleLogHandler;
 import jlibs.nio.log.LogHandler;
 
+import javax.management.ObjectName;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
@@ -42,10 +43,14 @@ public class HTTPServer implements TCPServer.Listener{
     private TCPServer server;
     public void start() throws IOException{
         server = endpoint.startServer(this);
+        if(latencies!=null)
+            latencies.register("jlibs.nio:type=HTTPServer,endpoint="+ObjectName.quote(endpoint.toString())+",name=Latencies");
     }
 
     public void stop(){
         server.close();
+        if(latencies!=null)
+            latencies.unregister();
     }
 
     @Override
@@ -64,6 +69,9 @@ public class HTTPServer implements TCPServer.Listener{
     public AccessLog accessLog;
     public LogHandler logHandler = ConsoleLogHandler.INSTANCE;
 
+    /** set to track per-phase latencies, published through JMX on {@link #start()} */
+    public Latencies<ServerExchange.Phase> latencies;
+
     public static class Defaults{
         public static boolean SET_DATE_HEADER = false;
         public static long MAX_URI_SIZE = 0;
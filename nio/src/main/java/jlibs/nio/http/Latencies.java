@@ -0,0 +1,217 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.http;
+
+import jlibs.nio.Management;
+import jlibs.nio.Reactor;
+import jlibs.nio.Reactors;
+import jlibs.nio.http.expr.Bean;
+import jlibs.nio.http.expr.UnresolvedException;
+import jlibs.nio.util.Histogram;
+
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-phase latency histograms of http exchanges.
+ * <p>
+ * Each reactor records into its own set of histograms,
+ * which are merged only when read.
+ *
+ * @param <P> enum of phases, {@link ServerExchange.Phase} or {@link ClientExchange.Phase}
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class Latencies<P extends Enum<P>>{
+    private final P phases[];
+    private final String names[];
+    private final Histogram histograms[][];
+    public TimeUnit unit = TimeUnit.MICROSECONDS;
+
+    public Latencies(Class<P> phaseType){
+        phases = phaseType.getEnumConstants();
+        names = new String[phases.length];
+        for(int i=0; i<phases.length; i++)
+            names[i] = phases[i].name().toLowerCase().intern();
+        histograms = new Histogram[Reactors.get().size()][phases.length];
+        for(Histogram reactorHistograms[]: histograms){
+            for(int i=0; i<reactorHistograms.length; i++)
+                reactorHistograms[i] = new Histogram();
+        }
+    }
+
+    /** @return histogram of given phase, merged across all reactors */
+    public Histogram get(P phase){
+        Histogram merged = new Histogram();
+        for(Histogram reactorHistograms[]: histograms)
+            merged.add(reactorHistograms[phase.ordinal()]);
+        return merged;
+    }
+
+    public void reset(){
+        for(Reactor reactor: Reactors.get()){
+            Histogram reactorHistograms[] = histograms[reactor.id];
+            reactor.invokeLater(() -> {
+                for(Histogram histogram: reactorHistograms)
+                    histogram.reset();
+            });
+        }
+    }
+
+    /*-------------------------------------------------[ Management ]---------------------------------------------------*/
+
+    private ObjectName objName;
+
+    public void register(String name){
+        unregister();
+        objName = Management.register(new Management.LatencyMXBean(){
+            @Override
+            public String getUnit(){
+                return unit.name();
+            }
+
+            private Map<String, Long> collect(ToLongFunction<Histogram> function){
+                Map<String, Long> map = new LinkedHashMap<>();
+                for(P phase: phases)
+                    map.put(names[phase.ordinal()], function.applyAsLong(get(phase)));
+                return map;
+            }
+
+            @Override
+            public Map<String, Long> getCount(){
+                return collect(Histogram::count);
+            }
+
+            @Override
+            public Map<String, Long> getMean(){
+                return collect(h -> unit.convert((long)h.mean(), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public Map<String, Long> getMax(){
+                return collect(h -> unit.convert(h.max(), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public Map<String, Long> getP50(){
+                return collect(h -> unit.convert(h.percentile(50), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public Map<String, Long> getP90(){
+                return collect(h -> unit.convert(h.percentile(90), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public Map<String, Long> getP99(){
+                return collect(h -> unit.convert(h.percentile(99), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public Map<String, Long> getP999(){
+                return collect(h -> unit.convert(h.percentile(99.9), TimeUnit.NANOSECONDS));
+            }
+
+            @Override
+            public long getPercentile(String phase, double percentile){
+                int i = Arrays.asList(names).indexOf(phase.toLowerCase());
+                if(i==-1)
+                    throw new IllegalArgumentException("unknown phase: "+phase);
+                return unit.convert(get(phases[i]).percentile(percentile), TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void reset(){
+                Latencies.this.reset();
+            }
+        }, name);
+    }
+
+    public void unregister(){
+        Management.unregister(objName);
+        objName = null;
+    }
+
+    /*-------------------------------------------------[ Record ]---------------------------------------------------*/
+
+    /**
+     * Phase timings of single exchange. All times are taken
+     * from {@link System#nanoTime()}.
+     */
+    public class Record implements Bean{
+        private final long started[] = new long[phases.length];
+        private final long elapsed[] = new long[phases.length];
+        private long recorded;
+
+        public void start(P phase){
+            started[phase.ordinal()] = System.nanoTime();
+        }
+
+        public void start(P phase, long time){
+            started[phase.ordinal()] = time;
+        }
+
+        public void stop(P phase){
+            stop(phase, System.nanoTime());
+        }
+
+        public void stop(P phase, long time){
+            int i = phase.ordinal();
+            if(started[i]!=0){
+                elapsed[i] += time-started[i];
+                started[i] = 0;
+                recorded |= 1L<<i;
+            }
+        }
+
+        /** @return elapsed nano seconds in given phase, -1 if the phase is not yet completed */
+        public long elapsed(P phase){
+            int i = phase.ordinal();
+            return (recorded & (1L<<i))==0 ? -1 : elapsed[i];
+        }
+
+        /** records completed phases into histograms of current reactor */
+        public void finished(){
+            Histogram reactorHistograms[] = histograms[Reactor.current().id];
+            for(int i=0; i<phases.length; i++){
+                if((recorded & (1L<<i))!=0)
+                    reactorHistograms[i].record(elapsed[i]);
+            }
+        }
+
+        public void reset(){
+            Arrays.fill(started, 0);
+            Arrays.fill(elapsed, 0);
+            recorded = 0;
+        }
+
+        @Override
+        @SuppressWarnings("StringEquality")
+        public Object getField(String name) throws UnresolvedException{
+            for(int i=0; i<names.length; i++){
+                if(names[i]==name){
+                    long nanos = elapsed(phases[i]);
+                    return nanos==-1 ? null : unit.convert(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            throw new UnresolvedException(name);
+        }
+    }
+}
@@ -68,6 +68,8 @@ public class ReadMessage extends Task{
                     throw IGNORABLE_EOF_EXCEPTION;
                 throw message.badMessage("Unexpected EOF");
             }
+            if(trackFirstByte && firstByteTime==0)
+                firstByteTime = System.nanoTime();
             buffer.flip();
             int pos = buffer.position();
             parser.consumed = consumed;
@@ -163,6 +165,8 @@ public class ReadMessage extends Task{
     private long consumed = 0;
     private boolean keepAlive;
     private boolean emptyPayload;
+    boolean trackFirstByte;
+    private long firstByteTime;
     public void reset(Message message, boolean emptyPayload){
         this.message = message;
         if(buffer==null)
@@ -170,6 +174,7 @@ public class ReadMessage extends Task{
         else
             buffer.clear();
         consumed = 0;
+        firstByteTime = 0;
         parser.reset(message);
         keepAlive = false;
         this.emptyPayload = emptyPayload;
@@ -187,6 +192,11 @@ public class ReadMessage extends Task{
         return keepAlive;
     }
 
+    /** @return {@link System#nanoTime()} when first byte of message is read, 0 if not tracked */
+    public long firstByteTime(){
+        return firstByteTime;
+    }
+
     public void dispose(){
         if(buffer!=null){
             Reactor.current().allocator.free(buffer);
@@ -17,6 +17,7 @@ package jlibs.nio.http;
 
 import jlibs.core.lang.NotImplementedException;
 import jlibs.nio.*;
+import jlibs.nio.filters.CloseTrackingInput;
 import jlibs.nio.filters.InputLimitExceeded;
 import jlibs.nio.filters.ReadTrackingInput;
 import jlibs.nio.filters.TrackingInput;
@@ -31,6 +32,7 @@ import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -65,6 +67,7 @@ public final class ServerExchange extends Exchange{
 
     AccessLog accessLog;
     AccessLog.Record accessLogRecord;
+    private Latencies<Phase>.Record latencyRecord;
 
     protected ServerExchange(HTTPServer server){
         super(server.maxRequestHeadSize, new RequestParser(server.maxURISize), OP_READ);
@@ -79,9 +82,28 @@ public final class ServerExchange extends Exchange{
             accessLogRecord = accessLog.records.allocate();
             accessLogRecord.setLogHandler(server.logHandler);
         }
+        if(server.latencies!=null){
+            latencyRecord = server.latencies.new Record();
+            latencyRecord.start(Phase.FIRST_BYTE);
+            readMessage.trackFirstByte = true;
+        }
         connectionStatus = ConnectionStatus.OPEN;
     }
 
+    public enum Phase{
+        /** from accept, or end of previous response on keep-alive connection, to first byte of request */
+        FIRST_BYTE,
+        READ_HEAD,
+        REQUEST_FILTERS,
+        LISTENER,
+        /** from end of request head till request payload is closed */
+        READ_PAYLOAD,
+        RESPONSE_FILTERS,
+        WRITE_RESPONSE,
+        /** from first byte of request to end of response */
+        TOTAL
+    }
+
     enum State{
         READ_REQUEST, FILTER_REQUEST,
         RESPONSE_READY, FILTER_RESPONSE, FILTER_ERROR,
@@ -127,9 +149,18 @@ public final class ServerExchange extends Exchange{
                         state = RESPONSE_READY;
                         if(HTTP)
                             println("state = "+state);
+                        if(latencyRecord!=null){
+                            latencyRecord.stop(Phase.REQUEST_FILTERS);
+                            if(response==null)
+                                latencyRecord.start(Phase.LISTENER);
+                        }
                         if(response==null && !user.process(this))
                             return false;
                     case RESPONSE_READY:
+                        if(latencyRecord!=null){
+                            latencyRecord.stop(Phase.LISTENER);
+                            latencyRecord.start(Phase.RESPONSE_FILTERS);
+                        }
                         filters = responseFilters.iterator();
                         state = FILTER_RESPONSE;
                         if(HTTP)
@@ -151,6 +182,8 @@ public final class ServerExchange extends Exchange{
                         if(HTTP)
                             println("state = "+state);
                     case DELIVER_RESPONSE:
+                        if(latencyRecord!=null)
+                            latencyRecord.stop(Phase.RESPONSE_FILTERS);
                         in = ((jlibs.nio.Readable)in.channel()).in();
                         in.setInputListener(listener);
                         out.setOutputListener(listener);
@@ -202,6 +235,8 @@ public final class ServerExchange extends Exchange{
                         if(accessLog!=null)
                             accessLogRecord.process(this, response);
                         continue100Buffer = null;
+                        if(latencyRecord!=null)
+                            latencyRecord.start(Phase.WRITE_RESPONSE);
                         setChild(writeMessage);
                         return true;
                     case CLOSED:
@@ -230,10 +265,23 @@ public final class ServerExchange extends Exchange{
             accessLogRecord = accessLog.records.allocate();
             accessLogRecord.setLogHandler(server.logHandler);
         }
+        if(latencyRecord!=null){
+            latencyRecord.reset();
+            latencyRecord.start(Phase.FIRST_BYTE);
+        }
     }
 
     @Override
     protected void readMessageFinished(Throwable thr){
+        if(latencyRecord!=null){
+            long firstByteTime = readMessage.firstByteTime();
+            if(firstByteTime!=0){
+                latencyRecord.stop(Phase.FIRST_BYTE, firstByteTime);
+                latencyRecord.start(Phase.READ_HEAD, firstByteTime);
+                latencyRecord.start(Phase.TOTAL, firstByteTime);
+            }
+            latencyRecord.stop(Phase.READ_HEAD);
+        }
         if(accessLog!=null){
             try{
                 accessLogRecord.process(this, request);
@@ -289,10 +337,17 @@ public final class ServerExchange extends Exchange{
             else if(expectation!=null)
                 error = Status.EXPECTATION_FAILED;
         }
+        if(latencyRecord!=null && requestHasPayload && request.getPayload() instanceof SocketPayload){
+            latencyRecord.start(Phase.READ_PAYLOAD);
+            SocketPayload socketPayload = (SocketPayload)request.getPayload();
+            in = socketPayload.in = new CloseTrackingInput(in, this::requestPayloadClosed);
+        }
 
         in.setInputListener(null);
         out.setOutputListener(null);
         if(error==null){
+            if(latencyRecord!=null)
+                latencyRecord.start(Phase.REQUEST_FILTERS);
             filters = requestFilters.iterator();
             state = FILTER_REQUEST;
         }else{
@@ -303,6 +358,11 @@ public final class ServerExchange extends Exchange{
             println("state = "+state);
     }
 
+    private void requestPayloadClosed(TrackingInput tracker){
+        if(latencyRecord!=null)
+            latencyRecord.stop(Phase.READ_PAYLOAD);
+    }
+
     private void send100Continue(TrackingInput tracker){
         continue100Buffer = CONTINUE_100.duplicate();
         try{
@@ -317,6 +377,8 @@ public final class ServerExchange extends Exchange{
 
     @Override
     protected void writeMessageFinished(Throwable thr){
+        if(latencyRecord!=null)
+            latencyRecord.stop(Phase.WRITE_RESPONSE);
         error = thr;
         if(error!=null || !keepAlive)
             close();
@@ -382,15 +444,43 @@ public final class ServerExchange extends Exchange{
         this.callback = callback;
     }
 
+    private List<ServerCallback> completionListeners;
+
+    /**
+     * Adds listener to be notified once this exchange is completed, whether
+     * the response is written or not. Unlike {@link #setCallback(ServerCallback) callback},
+     * any number of listeners can be added, and they are notified before callback.
+     * Listeners are removed after notification.
+     */
+    public void addCompletionListener(ServerCallback listener){
+        if(completionListeners==null)
+            completionListeners = new ArrayList<>();
+        completionListeners.add(listener);
+    }
+
     @SuppressWarnings("unchecked")
     @Trace(condition=HTTP)
     private void notifyCallback(){
+        if(latencyRecord!=null)
+            latencyRecord.stop(Phase.TOTAL);
         try{
             if(accessLog!=null)
                 accessLogRecord.finished(this);
         }catch(Throwable thr){
             Reactor.current().handleException(thr);
         }
+        if(latencyRecord!=null)
+            latencyRecord.finished();
+        if(completionListeners!=null && !completionListeners.isEmpty()){
+            for(ServerCallback listener: completionListeners){
+                try{
+                    listener.completed(this, error);
+                }catch(Throwable unexpected){
+                    Reactor.current().handleException(unexpected);
+                }
+            }
+            completionListeners.clear();
+        }
         if(callback!=null){
             try{
                 callback.completed(this, error);
@@ -415,6 +505,11 @@ public final class ServerExchange extends Exchange{
         return server.endpoint;
     }
 
+    @Override
+    public Latencies<Phase>.Record getLatencyRecord(){
+        return latencyRecord;
+    }
+
     public InetAddress getClientAddress(){
         TCPConnection con = (TCPConnection)in.channel();
         return con.selectable.socket().getInetAddress();
@@ -21,6 +21,7 @@ import jlibs.nio.http.msg.Payload;
 import jlibs.nio.http.util.Encoding;
 import jlibs.nio.util.Buffers;
 
+import java.util.ArrayDeque;
 import java.util.List;
 
 /**
@@ -54,9 +55,12 @@ public class SocketPayload extends Payload{
             return in;
 
         contentLength = -1;
-        TrackingInput trackingInput = null;
-        if(in instanceof TrackingInput){
-            trackingInput = (TrackingInput)in;
+
+        // decoders are inserted below all tracking wrappers
+        ArrayDeque<TrackingInput> trackers = new ArrayDeque<>();
+        while(in instanceof TrackingInput){
+            TrackingInput trackingInput = (TrackingInput)in;
+            trackers.push(trackingInput);
             in = trackingInput.detachInput();
         }
         try{
@@ -65,7 +69,8 @@ public class SocketPayload extends Payload{
                 in = encoding.wrap(in);
             }
         }finally{
-            if(trackingInput!=null){
+            while(!trackers.isEmpty()){
+                TrackingInput trackingInput = trackers.pop();
                 trackingInput.reattach();
                 in = trackingInput;
             }
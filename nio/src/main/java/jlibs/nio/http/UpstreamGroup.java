@@ -0,0 +1,389 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.http;
+
+import jlibs.nio.Connection;
+import jlibs.nio.Reactor;
+import jlibs.nio.Reactors;
+import jlibs.nio.TCPEndpoint;
+import jlibs.nio.http.msg.Payload;
+import jlibs.nio.http.msg.Request;
+import jlibs.nio.http.msg.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group of endpoints serving same content, among which
+ * exchanges are load balanced.
+ * <p>
+ * An upstream is not selected while it is ejected or unhealthy.
+ * It is ejected for {@link #ejectionTime}, which grows with each
+ * consecutive ejection, on {@link #maxFailures} consecutive failures or
+ * when its mean latency is {@link #latencyOutlierFactor} times the
+ * mean latency of the group. Health is checked by sending
+ * {@link #healthCheckPath} periodically, once {@link #startHealthChecks()}
+ * is called. When no upstream is available, ejected or unhealthy
+ * upstreams are used rather than failing.
+ * <p>
+ * Outstanding requests, failures and latencies are tracked per reactor,
+ * so {@link #newExchange()} must be called, and the exchange executed,
+ * from reactor thread. An exchange is outstanding from execution till
+ * its completion, so exchanges created but never executed hold no slot.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class UpstreamGroup{
+    public enum Selection{
+        /** smooth weighted round robin */
+        WEIGHTED_ROUND_ROBIN,
+        /** upstream with least outstanding requests per weight */
+        LEAST_OUTSTANDING,
+        /** better of two random upstreams, by outstanding requests per weight */
+        POWER_OF_TWO_CHOICES
+    }
+
+    public final HTTPClient client;
+    public Selection selection = Selection.WEIGHTED_ROUND_ROBIN;
+    private final List<Upstream> upstreams = new ArrayList<>();
+
+    public int maxFailures = 5;
+    public double latencyOutlierFactor = 0; // 0=turn off
+    public long ejectionTime = 30000;
+    public int maxEjectionMultiplier = 10;
+
+    public String healthCheckPath;
+    public long healthCheckInterval = 5000;
+    public int healthyThreshold = 2;
+    public int unhealthyThreshold = 3;
+
+    public UpstreamGroup(HTTPClient client){
+        this.client = client;
+    }
+
+    public Upstream add(TCPEndpoint endpoint, int weight){
+        if(weight<=0)
+            throw new IllegalArgumentException("weight must be positive");
+        Upstream upstream = new Upstream(endpoint, weight);
+        upstreams.add(upstream);
+        return upstream;
+    }
+
+    public List<Upstream> getUpstreams(){
+        return upstreams;
+    }
+
+    public ClientExchange newExchange(){
+        Upstream upstream = select();
+        ClientExchange exchange = client.newExchange(upstream.endpoint);
+        exchange.upstream = upstream;
+        return exchange;
+    }
+
+    /*-------------------------------------------------[ Selection ]---------------------------------------------------*/
+
+    private final Upstream candidates[][] = new Upstream[Reactors.get().size()][];
+
+    Upstream select(){
+        if(upstreams.isEmpty())
+            throw new IllegalStateException("no upstreams");
+        int reactor = Reactor.current().id;
+        long now = System.currentTimeMillis();
+
+        Upstream available[] = candidates[reactor];
+        if(available==null || available.length<upstreams.size())
+            candidates[reactor] = available = new Upstream[upstreams.size()];
+        int count = 0;
+        for(Upstream upstream: upstreams){
+            if(upstream.isAvailable(reactor, now))
+                available[count++] = upstream;
+        }
+        if(count==0){
+            for(Upstream upstream: upstreams){
+                if(upstream.healthy)
+                    available[count++] = upstream;
+            }
+            if(count==0){
+                for(Upstream upstream: upstreams)
+                    available[count++] = upstream;
+            }
+        }
+
+        if(count==1)
+            return available[0];
+        switch(selection){
+            case WEIGHTED_ROUND_ROBIN:{
+                Upstream selected = null;
+                int total = 0;
+                for(int i=0; i<count; i++){
+                    Upstream upstream = available[i];
+                    upstream.currentWeight[reactor] += upstream.weight;
+                    total += upstream.weight;
+                    if(selected==null || upstream.currentWeight[reactor]>selected.currentWeight[reactor])
+                        selected = upstream;
+                }
+                assert selected!=null;
+                selected.currentWeight[reactor] -= total;
+                return selected;
+            }
+            case LEAST_OUTSTANDING:{
+                int offset = ThreadLocalRandom.current().nextInt(count);
+                Upstream selected = available[offset];
+                for(int i=1; i<count; i++){
+                    Upstream upstream = available[(offset+i)%count];
+                    if(upstream.load(reactor)<selected.load(reactor))
+                        selected = upstream;
+                }
+                return selected;
+            }
+            default:{
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int i = random.nextInt(count);
+                int j = random.nextInt(count-1);
+                if(j>=i)
+                    ++j;
+                Upstream upstream1 = available[i];
+                Upstream upstream2 = available[j];
+                return upstream1.load(reactor)<=upstream2.load(reactor) ? upstream1 : upstream2;
+            }
+        }
+    }
+
+    /*-------------------------------------------------[ Prewarming ]---------------------------------------------------*/
+
+    /** opens given number of connections to each upstream in each reactor, and adds them to connection pool */
+    @SuppressWarnings("rawtypes")
+    public void prewarm(int connections){
+        for(Reactor reactor: Reactors.get()){
+            reactor.invokeLater(() -> {
+                for(Upstream upstream: upstreams){
+                    String key = upstream.endpoint.toString();
+                    int count = connections;
+                    if(upstream.maxIdleConnections>0)
+                        count = Math.min(count, upstream.maxIdleConnections-reactor.connectionPool.count(key));
+                    for(int i=0; i<count; i++){
+                        upstream.endpoint.newConnection(result -> {
+                            Connection<?> con;
+                            try{
+                                con = result.get();
+                            }catch(Throwable thr){
+                                return;
+                            }
+                            reactor.connectionPool.add(key, con, Math.abs(client.keepAliveTimeout));
+                        }, client.proxy);
+                    }
+                }
+            });
+        }
+    }
+
+    /*-------------------------------------------------[ Health Checks ]---------------------------------------------------*/
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * probes are sent from reactors. single thread is used only for
+     * scheduling them, because reactors do not support timers
+     */
+    public synchronized void startHealthChecks(){
+        if(healthCheckPath==null)
+            throw new IllegalStateException("healthCheckPath is not set");
+        if(healthChecker!=null)
+            return;
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "UpstreamGroup.healthChecker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> {
+            List<Reactor> reactors = Reactors.get();
+            for(int i=0; i<upstreams.size(); i++){
+                Upstream upstream = upstreams.get(i);
+                reactors.get(i%reactors.size()).invokeLater(() -> probe(upstream));
+            }
+        }, 0, healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopHealthChecks(){
+        if(healthChecker!=null){
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    private void probe(Upstream upstream){
+        if(upstream.probing)
+            return;
+        upstream.probing = true;
+        ClientExchange exchange = client.newExchange(upstream.endpoint);
+        Request request = new Request();
+        request.uri = healthCheckPath;
+        exchange.setRequest(request);
+        exchange.setCallback((ex, thr) -> {}); // failed probes are not errors to report
+        exchange.execute((ex, thr) -> {
+            upstream.probing = false;
+            Response response = ex.getResponse();
+            boolean success = thr==null && response!=null && !response.status.isError();
+            if(response!=null){
+                Payload payload = response.getPayload();
+                if(payload instanceof SocketPayload)
+                    ((SocketPayload)payload).socket().close();
+            }
+            upstream.probed(success);
+        });
+    }
+
+    /*-------------------------------------------------[ Upstream ]---------------------------------------------------*/
+
+    public class Upstream{
+        public final TCPEndpoint endpoint;
+        public final int weight;
+        /** max outstanding requests per reactor, 0=no limit */
+        public int maxOutstanding;
+        /** max pooled connections per reactor, 0=no limit */
+        public int maxIdleConnections;
+
+        private final int outstanding[];
+        private final int currentWeight[];
+        private final int failures[];
+        private final long samples[];
+        private final double latency[]; // exponentially weighted moving average in nanos
+
+        private volatile long ejectedUntil;
+        private volatile int ejections;
+        private volatile boolean healthy = true;
+        private boolean probing;
+        private int probeResults; // +ve=consecutive successes, -ve=consecutive failures
+
+        private Upstream(TCPEndpoint endpoint, int weight){
+            this.endpoint = endpoint;
+            this.weight = weight;
+            int reactors = Reactors.get().size();
+            outstanding = new int[reactors];
+            currentWeight = new int[reactors];
+            failures = new int[reactors];
+            samples = new long[reactors];
+            latency = new double[reactors];
+        }
+
+        private boolean isAvailable(int reactor, long now){
+            return healthy && now>=ejectedUntil && (maxOutstanding<=0 || outstanding[reactor]<maxOutstanding);
+        }
+
+        private double load(int reactor){
+            return (double)outstanding[reactor]/weight;
+        }
+
+        public boolean isHealthy(){
+            return healthy;
+        }
+
+        public boolean isEjected(){
+            return System.currentTimeMillis()<ejectedUntil;
+        }
+
+        public int getOutstanding(){
+            int count = 0;
+            for(int value: outstanding)
+                count += value;
+            return count;
+        }
+
+        /** @return mean latency in nanos, -1 if not known */
+        public double getLatency(){
+            double sum = 0;
+            int count = 0;
+            for(int i=0; i<latency.length; i++){
+                if(samples[i]>0){
+                    sum += latency[i];
+                    ++count;
+                }
+            }
+            return count==0 ? -1 : sum/count;
+        }
+
+        /** outstanding from {@link ClientExchange#execute(ResponseListener) execute} till completion */
+        void started(){
+            ++outstanding[Reactor.current().id];
+        }
+
+        void completed(ClientExchange exchange, long nanos){
+            int reactor = Reactor.current().id;
+            --outstanding[reactor];
+            Response response = exchange.getResponse();
+            if(exchange.getError()!=null || response==null || response.status.isServerError()){
+                if(++failures[reactor]>=maxFailures){
+                    failures[reactor] = 0;
+                    eject();
+                }
+                return;
+            }
+            failures[reactor] = 0;
+            if(ejections!=0 && System.currentTimeMillis()>=ejectedUntil)
+                ejections = 0;
+
+            latency[reactor] = samples[reactor]==0 ? nanos : 0.9*latency[reactor]+0.1*nanos;
+            if(++samples[reactor]>=100 && latencyOutlierFactor>0 && isLatencyOutlier(reactor))
+                eject();
+        }
+
+        private boolean isLatencyOutlier(int reactor){
+            double sum = 0;
+            int count = 0;
+            for(Upstream upstream: upstreams){
+                if(upstream!=this && upstream.samples[reactor]>=100){
+                    sum += upstream.latency[reactor];
+                    ++count;
+                }
+            }
+            return count>0 && latency[reactor]>latencyOutlierFactor*sum/count;
+        }
+
+        private void eject(){
+            long now = System.currentTimeMillis();
+            if(now<ejectedUntil)
+                return;
+            int multiplier = Math.min(ejections+1, maxEjectionMultiplier);
+            ejections = multiplier;
+            ejectedUntil = now+multiplier*ejectionTime;
+            int reactor = Reactor.current().id;
+            samples[reactor] = 0;
+        }
+
+        private void probed(boolean success){
+            if(success){
+                probeResults = probeResults<0 ? 1 : probeResults+1;
+                if(probeResults>=healthyThreshold){
+                    healthy = true;
+                    ejections = 0;
+                }
+            }else{
+                probeResults = probeResults>0 ? -1 : probeResults-1;
+                if(-probeResults>=unhealthyThreshold)
+                    healthy = false;
+            }
+        }
+
+        @Override
+        public String toString(){
+            return "Upstream["+endpoint+"]";
+        }
+    }
+}
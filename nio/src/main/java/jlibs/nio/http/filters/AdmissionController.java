@@ -0,0 +1,332 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.http.filters;
+
+import jlibs.nio.Reactor;
+import jlibs.nio.Reactors;
+import jlibs.nio.http.FilterType;
+import jlibs.nio.http.Key;
+import jlibs.nio.http.ServerExchange;
+import jlibs.nio.http.ServerFilter;
+import jlibs.nio.http.msg.Response;
+import jlibs.nio.http.msg.Status;
+import jlibs.nio.util.IPV4Pattern;
+import jlibs.nio.util.IPV6Pattern;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of exchanges processed concurrently, adjusting
+ * the limit from the latencies observed.
+ * <p>
+ * Requests beyond the limit are rejected with {@link #rejectStatus}
+ * and {@code Retry-After} header, before their payload is read.
+ * An exchange is in-flight from request filters till response filters,
+ * i.e. its latency excludes reading request head and writing response.
+ * If an exchange completes without passing through response or error
+ * filters of this instance, for example because an earlier error filter
+ * failed, it is released on completion and counted as dropped.
+ * <p>
+ * Each reactor has its own {@link Limit}, so that no synchronization
+ * is required. So the limit and min/max bounds are per reactor.
+ * <p>
+ * To be fair among clients, a single client ip can hold at most
+ * {@link #clientShare} fraction of the limit. This fraction can be
+ * changed for specific ip patterns using {@link #addShare(String, double)}.
+ * <p>
+ * Server Request, Response and Error Filter. The same instance must be
+ * added to all three, and to request filters as first.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class AdmissionController implements ServerFilter{
+    private static final Key<Ticket> TICKET = new Key<>("AdmissionTicket");
+
+    public Status rejectStatus = Status.SERVICE_UNAVAILABLE;
+    /** in seconds, -1 to not send {@code Retry-After} header */
+    public long retryAfter = 1;
+    public double clientShare = 1;
+    public Map<IPV4Pattern, Double> ipv4Shares = new LinkedHashMap<>();
+    public Map<IPV6Pattern, Double> ipv6Shares = new LinkedHashMap<>();
+
+    private final State states[];
+
+    public AdmissionController(){
+        this(Vegas::new);
+    }
+
+    /** @param limits supplies a new {@link Limit} for each reactor */
+    public AdmissionController(Supplier<Limit> limits){
+        states = new State[Reactors.get().size()];
+        for(int i=0; i<states.length; i++)
+            states[i] = new State(limits.get());
+    }
+
+    public AdmissionController retryAfter(long seconds){
+        retryAfter = seconds;
+        return this;
+    }
+
+    public AdmissionController clientShare(double share){
+        clientShare = share;
+        return this;
+    }
+
+    public void addShare(String pattern, double share){
+        if(pattern.indexOf('.')>=0)
+            ipv4Shares.put(new IPV4Pattern(pattern), share);
+        else
+            ipv6Shares.put(new IPV6Pattern(pattern), share);
+    }
+
+    private double share(InetAddress address){
+        if(address instanceof Inet4Address){
+            for(Map.Entry<IPV4Pattern, Double> entry: ipv4Shares.entrySet()){
+                if(entry.getKey().matches(address))
+                    return entry.getValue();
+            }
+        }else if(address instanceof Inet6Address){
+            for(Map.Entry<IPV6Pattern, Double> entry: ipv6Shares.entrySet()){
+                if(entry.getKey().matches(address))
+                    return entry.getValue();
+            }
+        }
+        return clientShare;
+    }
+
+    @Override
+    public boolean filter(ServerExchange exchange, FilterType type) throws Exception{
+        State state = states[Reactor.current().id];
+        if(type==FilterType.REQUEST){
+            Ticket ticket = state.acquire(exchange);
+            if(ticket==null){
+                ++state.rejected;
+                Response response = new Response();
+                response.status = rejectStatus;
+                response.setRetryAfter(retryAfter);
+                exchange.setResponse(response);
+            }else{
+                exchange.attach(TICKET, ticket);
+                exchange.addCompletionListener((ex, thr) -> state.release(ticket, true));
+            }
+        }else{
+            Ticket ticket = exchange.detach(TICKET);
+            if(ticket!=null){
+                boolean dropped = false;
+                if(type==FilterType.ERROR){
+                    Throwable error = exchange.getError();
+                    dropped = !(error instanceof Status) || ((Status)error).code>=500;
+                }
+                state.release(ticket, dropped);
+            }
+        }
+        return true;
+    }
+
+    /*-------------------------------------------------[ Stats ]---------------------------------------------------*/
+
+    /** @return sum of limits of all reactors */
+    public int getLimit(){
+        int limit = 0;
+        for(State state: states)
+            limit += state.limit.get();
+        return limit;
+    }
+
+    public int getInflight(){
+        int inflight = 0;
+        for(State state: states)
+            inflight += state.inflight;
+        return inflight;
+    }
+
+    public long getRejected(){
+        long rejected = 0;
+        for(State state: states)
+            rejected += state.rejected;
+        return rejected;
+    }
+
+    /*-------------------------------------------------[ State ]---------------------------------------------------*/
+
+    private static class Ticket{
+        private final long start = System.nanoTime();
+        private final Client client;
+        private boolean released;
+        private Ticket(Client client){
+            this.client = client;
+        }
+    }
+
+    private static class Client{
+        private final InetAddress address;
+        private int inflight;
+        private Client(InetAddress address){
+            this.address = address;
+        }
+    }
+
+    private class State{
+        private final Limit limit;
+        private final Map<InetAddress, Client> clients = new HashMap<>();
+        private int inflight;
+        private long rejected;
+
+        private State(Limit limit){
+            this.limit = limit;
+        }
+
+        private Ticket acquire(ServerExchange exchange){
+            int limit = this.limit.get();
+            if(inflight>=limit)
+                return null;
+
+            Client client = null;
+            InetAddress address = exchange.getClientAddress();
+            double share = share(address);
+            if(share<1){
+                client = clients.get(address);
+                if(client==null)
+                    clients.put(address, client=new Client(address));
+                else if(client.inflight>=Math.max(1, (int)(share*limit)))
+                    return null;
+                ++client.inflight;
+            }
+            ++inflight;
+            return new Ticket(client);
+        }
+
+        private void release(Ticket ticket, boolean dropped){
+            if(ticket.released)
+                return;
+            ticket.released = true;
+            Client client = ticket.client;
+            if(client!=null && --client.inflight==0)
+                clients.remove(client.address);
+            limit.update(System.nanoTime()-ticket.start, inflight--, dropped);
+        }
+    }
+
+    /*-------------------------------------------------[ Limit ]---------------------------------------------------*/
+
+    public static abstract class Limit{
+        public int minLimit = 1;
+        public int maxLimit = 1000;
+        protected double limit;
+
+        protected Limit(int initialLimit){
+            limit = initialLimit;
+        }
+
+        public int get(){
+            return (int)limit;
+        }
+
+        protected void set(double limit){
+            this.limit = Math.min(maxLimit, Math.max(minLimit, limit));
+        }
+
+        /**
+         * @param rtt       nano seconds taken by exchange
+         * @param inflight  number of exchanges in-flight, including this
+         * @param dropped   true if exchange failed with server error
+         */
+        protected abstract void update(long rtt, int inflight, boolean dropped);
+    }
+
+    /**
+     * Additive increase, multiplicative decrease. Limit is
+     * decreased when exchange fails or takes more than {@link #timeout}
+     */
+    public static class AIMD extends Limit{
+        public double backoff = 0.9;
+        public long timeout = TimeUnit.SECONDS.toNanos(1);
+
+        public AIMD(){
+            super(20);
+        }
+
+        @Override
+        protected void update(long rtt, int inflight, boolean dropped){
+            if(dropped || rtt>timeout)
+                set(limit*backoff);
+            else if(inflight*2>=limit)
+                set(limit+1);
+        }
+    }
+
+    /**
+     * Estimates queue size from the gradient between minimum latency and current
+     * latency. Limit is increased when queue is small and decreased when large.
+     * Minimum latency is re-probed every {@link #probeInterval} samples, by
+     * moving it {@link #probeWeight} of the way towards the minimum latency
+     * seen in the last interval, to adapt to changes in the no-load latency.
+     * It moves only gradually, so that sustained load is not mistaken for
+     * no-load latency.
+     */
+    public static class Vegas extends Limit{
+        public int probeInterval = 1000;
+        public double smoothing = 0.2;
+        public double probeWeight = 0.1;
+
+        private long noLoadRTT = Long.MAX_VALUE;
+        private long windowRTT = Long.MAX_VALUE; // minimum rtt in current probe interval
+        private int samples;
+
+        public Vegas(){
+            super(20);
+        }
+
+        @Override
+        protected void update(long rtt, int inflight, boolean dropped){
+            if(rtt<noLoadRTT)
+                noLoadRTT = rtt;
+            if(rtt<windowRTT)
+                windowRTT = rtt;
+            if(++samples>=probeInterval){
+                samples = 0;
+                noLoadRTT += (long)((windowRTT-noLoadRTT)*probeWeight);
+                windowRTT = Long.MAX_VALUE;
+            }
+
+            double log = Math.max(1, Math.log10(limit));
+            double newLimit;
+            if(dropped)
+                newLimit = limit-log;
+            else if(inflight*2<limit)
+                return;
+            else{
+                double queue = Math.ceil(limit*(1-(double)noLoadRTT/rtt));
+                if(queue<=log)
+                    newLimit = limit+6*log;
+                else if(queue<3*log)
+                    newLimit = limit+log;
+                else if(queue>6*log)
+                    newLimit = limit-log;
+                else
+                    return;
+            }
+            set(limit*(1-smoothing) + newLimit*smoothing);
+        }
+    }
+}
@@ -51,6 +51,7 @@ public class ParseXML extends ParseSocketPayload{
         String charset = mt.getCharset(null);
 
         InputSource is;
+        Reader reader = null;
         Input socket = payload.socket();
         if(socket!=null && socket.isOpen()){
             ReadableByteChannel channel = socket;
@@ -60,13 +61,13 @@ public class ParseXML extends ParseSocketPayload{
                     payload.buffers = new Buffers();
             }
             if(payload.buffers!=null)
-                channel = new Reader(payload.buffers, retain, channel);
+                channel = reader = new Reader(payload.buffers, retain, channel);
             is = new ChannelInputSource(channel);
         }else
             is = new InputSource(payload.buffers.new Input()); // todo optimize
 
         is.setEncoding(charset);
-        new IOListener().start(new XMLFeedTask(exchange, msg, is), socket, null);
+        new IOListener().start(new XMLFeedTask(exchange, msg, is, reader), socket, null);
         return false;
     }
 
@@ -76,6 +77,20 @@ public class ParseXML extends ParseSocketPayload{
 
     protected void addHandlers(AsyncXMLReader xmlReader) throws Exception{}
 
+    protected void addHandlers(Exchange exchange, Message msg, AsyncXMLReader xmlReader) throws Exception{
+        addHandlers(xmlReader);
+    }
+
+    /**
+     * Tells whether given exception, thrown by one of the handlers, is a request
+     * to stop parsing. On stop {@link #parsingCompleted(Exchange, Message, AsyncXMLReader)}
+     * is called, and if payload is {@link #retain(SocketPayload) retained}, the unparsed
+     * remainder is left in the socket, so that payload can still be written as is
+     */
+    protected boolean isStopParsing(Throwable thr){
+        return false;
+    }
+
     protected void parsingCompleted(Exchange exchange, Message msg, AsyncXMLReader xmlReader){
         exchange.resume();
     }
@@ -85,18 +100,28 @@ public class ParseXML extends ParseSocketPayload{
         private Message msg;
         private AsyncXMLReader xmlReader;
         private Feeder feeder;
-        private XMLFeedTask(Exchange exchange, Message msg, InputSource is) throws Exception{
+        private Reader reader;
+        private boolean stopped;
+        private XMLFeedTask(Exchange exchange, Message msg, InputSource is, Reader reader) throws Exception{
             super(OP_READ);
             this.exchange = exchange;
             this.msg = msg;
+            this.reader = reader;
             xmlReader = new AsyncXMLReader();
-            addHandlers(xmlReader);
+            addHandlers(exchange, msg, xmlReader);
             feeder = xmlReader.createFeeder(is);
         }
 
         @Override
         protected boolean process(int readyOp) throws IOException{
-            feeder = feeder.feed();
+            try{
+                feeder = feeder.feed();
+            }catch(IOException ex){
+                if(ex.getCause()==null || !isStopParsing(ex.getCause()))
+                    throw ex;
+                feeder = null;
+                stopped = true;
+            }
             if(feeder==null)
                 return true;
             else{
@@ -107,6 +132,14 @@ public class ParseXML extends ParseSocketPayload{
 
         @Override
         protected void cleanup(Throwable thr){
+            if(reader!=null && reader.closed && !(stopped && reader.backup!=null)){
+                try{
+                    reader.channel.close();
+                }catch(IOException ex){
+                    if(thr==null)
+                        thr = ex;
+                }
+            }
             if(thr==null)
                 parsingCompleted(exchange, msg, xmlReader);
             else
@@ -119,6 +152,7 @@ public class ParseXML extends ParseSocketPayload{
         private BufferAllocator allocator;
         private ReadableByteChannel channel;
         private Buffers backup;
+        private boolean closed;
         private Reader(Buffers buffers, boolean retain, ReadableByteChannel channel){
             this.channel = channel;
 
@@ -159,12 +193,14 @@ public class ParseXML extends ParseSocketPayload{
 
         @Override
         public boolean isOpen(){
-            return channel.isOpen();
+            return !closed && channel.isOpen();
         }
 
+        // actual close is deferred to XMLFeedTask.cleanup, because
+        // socket must be kept open if parsing is stopped in between
         @Override
         public void close() throws IOException{
-            channel.close();
+            closed = true;
         }
     }
 }
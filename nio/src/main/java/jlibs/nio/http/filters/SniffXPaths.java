@@ -0,0 +1,119 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.http.filters;
+
+import jlibs.nio.http.Exchange;
+import jlibs.nio.http.Key;
+import jlibs.nio.http.SocketPayload;
+import jlibs.nio.http.msg.Message;
+import jlibs.xml.sax.SAXProperties;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.dog.NodeItem;
+import jlibs.xml.sax.dog.XMLDog;
+import jlibs.xml.sax.dog.expr.Expression;
+import jlibs.xml.sax.dog.expr.InstantEvaluationListener;
+import jlibs.xml.sax.dog.sniff.Event;
+import jlibs.xml.sax.dog.sniff.SAXHandler;
+import org.jaxen.saxpath.SAXPathException;
+
+import javax.xml.namespace.NamespaceContext;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates xpaths on xml payload, while it is still arriving.
+ * <p>
+ * Result of each xpath is attached to exchange with the key returned by
+ * {@link #add(String)}, as soon as it is resolved. For nodeset xpaths, the
+ * attachment is {@code List<NodeItem>} which grows as nodes are hit.
+ * Parsing is stopped once all xpaths are evaluated, and the payload is
+ * retained, so that it can still be forwarded as is. Thus a proxy can
+ * route on xml payload by reading only its first few KB:
+ * <pre class="prettyprint">
+ * SniffXPaths sniffer = new SniffXPaths(nsContext);
+ * Key&lt;Object&gt; operation = sniffer.add("local-name(/soap:Envelope/soap:Body/*[1])");
+ * proxyServer.server.requestFilters = Collections.singletonList(sniffer);
+ * </pre>
+ * All xpaths must be added before the filter is used.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public class SniffXPaths extends ParseXML{
+    public final XMLDog dog;
+    private final Map<Expression, Key<Object>> keys = new IdentityHashMap<>();
+
+    public SniffXPaths(NamespaceContext nsContext){
+        dog = new XMLDog(nsContext);
+    }
+
+    public Key<Object> add(String xpath) throws SAXPathException{
+        Expression expr = dog.addXPath(xpath);
+        Key<Object> key = new Key<>(xpath);
+        keys.put(expr, key);
+        return key;
+    }
+
+    @Override
+    protected boolean retain(SocketPayload payload){
+        return true;
+    }
+
+    @Override
+    protected void addHandlers(Exchange exchange, Message msg, AsyncXMLReader xmlReader) throws Exception{
+        Event event = dog.createEvent();
+        event.setListener(new Listener(exchange));
+        SAXHandler handler = event.getSAXHandler();
+        xmlReader.setContentHandler(handler);
+        xmlReader.setProperty(SAXProperties.LEXICAL_HANDLER, handler);
+        handler.setElementSkipper(xmlReader);
+    }
+
+    @Override
+    protected boolean isStopParsing(Throwable thr){
+        return thr==Event.STOP_PARSING;
+    }
+
+    private class Listener extends InstantEvaluationListener{
+        private final Exchange exchange;
+        private Listener(Exchange exchange){
+            this.exchange = exchange;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onNodeHit(Expression expression, NodeItem nodeItem){
+            Key<Object> key = keys.get(expression);
+            List<NodeItem> nodes = (List<NodeItem>)exchange.attachment(key);
+            if(nodes==null)
+                exchange.attach(key, nodes=new ArrayList<>());
+            nodes.add(nodeItem);
+        }
+
+        @Override
+        public void finishedNodeSet(Expression expression){
+            Key<Object> key = keys.get(expression);
+            if(exchange.attachment(key)==null)
+                exchange.attach(key, new ArrayList<NodeItem>());
+        }
+
+        @Override
+        public void onResult(Expression expression, Object result){
+            exchange.attach(keys.get(expression), result);
+        }
+    }
+}
@@ -289,6 +289,30 @@ public class Response extends Message{
             headers.set(ACCESS_CONTROL_MAX_AGE, Long.toString(age));
     }
 
+    /*-------------------------------------------------[ Retry-After ]---------------------------------------------------*/
+
+    // http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.37
+    public static final AsciiString RETRY_AFTER = new AsciiString("Retry-After");
+
+    /** @return delay in seconds, -1 if missing or given as http-date */
+    public long getRetryAfter(){
+        String value = headers.value(RETRY_AFTER);
+        if(value==null)
+            return -1;
+        try{
+            return Util.parseLong(value);
+        }catch(NumberFormatException ex){
+            return -1;
+        }
+    }
+
+    public void setRetryAfter(long seconds){
+        if(seconds<0)
+            headers.remove(RETRY_AFTER);
+        else
+            headers.set(RETRY_AFTER, Long.toString(seconds));
+    }
+
     static{
         AsciiString.initInterned();
     }
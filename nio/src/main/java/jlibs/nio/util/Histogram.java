@@ -0,0 +1,126 @@
+/*
+ * JLibs: Common Utilities for Java
+ * Copyright (C) 2009  Santhosh Kumar T <santhosh.tekuri@gmail.com>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ */
+
+package jlibs.nio.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative long values.
+ * <p>
+ * Each power of two is split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, so any recorded value is reported with a relative
+ * error of at most {@code 1/SUB_BUCKETS}.
+ * <p>
+ * Recording is lock-free but expects a single writer (typically
+ * a reactor thread). Any thread can read or {@link #add(Histogram) merge}
+ * concurrently, seeing a slightly stale but never corrupt view.
+ *
+ * @author Santhosh Kumar Tekuri
+ */
+public final class Histogram{
+    private static final int SUB_BITS = 5;
+    public static final int SUB_BUCKETS = 1<<SUB_BITS;
+    private static final int SUB_MASK = SUB_BUCKETS-1;
+    private static final int BUCKETS = (64-SUB_BITS)<<SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(3); // count, sum, max
+
+    static int bucket(long value){
+        if(value<SUB_BUCKETS)
+            return (int)value;
+        int exp = 63-Long.numberOfLeadingZeros(value);
+        int sub = (int)(value>>>(exp-SUB_BITS)) & SUB_MASK;
+        return ((exp-SUB_BITS+1)<<SUB_BITS) + sub;
+    }
+
+    static long lowerBound(int bucket){
+        if(bucket<SUB_BUCKETS)
+            return bucket;
+        int exp = (bucket>>>SUB_BITS) + SUB_BITS - 1;
+        long sub = bucket & SUB_MASK;
+        return (1L<<exp) | (sub<<(exp-SUB_BITS));
+    }
+
+    static long width(int bucket){
+        return bucket<SUB_BUCKETS ? 1 : 1L<<((bucket>>>SUB_BITS)-1);
+    }
+
+    public void record(long value){
+        if(value<0)
+            value = 0;
+        int bucket = bucket(value);
+        counts.lazySet(bucket, counts.get(bucket)+1);
+        totals.lazySet(0, totals.get(0)+1);
+        totals.lazySet(1, totals.get(1)+value);
+        if(value>totals.get(2))
+            totals.lazySet(2, value);
+    }
+
+    /** merges the values recorded in given histogram into this */
+    public void add(Histogram that){
+        for(int i=0; i<BUCKETS; i++){
+            long count = that.counts.get(i);
+            if(count!=0)
+                counts.lazySet(i, counts.get(i)+count);
+        }
+        totals.lazySet(0, totals.get(0)+that.totals.get(0));
+        totals.lazySet(1, totals.get(1)+that.totals.get(1));
+        totals.lazySet(2, Math.max(totals.get(2), that.totals.get(2)));
+    }
+
+    public long count(){
+        return totals.get(0);
+    }
+
+    public long max(){
+        return totals.get(2);
+    }
+
+    public double mean(){
+        long count = count();
+        return count==0 ? 0 : (double)totals.get(1)/count;
+    }
+
+    /**
+     * @param percentile in range [0, 100]
+     * @return value at given percentile, 0 if nothing is recorded
+     */
+    public long percentile(double percentile){
+        long count = 0;
+        for(int i=0; i<BUCKETS; i++)
+            count += counts.get(i);
+        if(count==0)
+            return 0;
+        long rank = (long)Math.ceil(Math.min(Math.max(percentile, 0), 100)*count/100);
+        if(rank==0)
+            rank = 1;
+        long seen = 0;
+        for(int i=0; i<BUCKETS; i++){
+            seen += counts.get(i);
+            if(seen>=rank)
+                return Math.min(lowerBound(i)+width(i)/2, max());
+        }
+        return max();
+    }
+
+    public void reset(){
+        for(int i=0; i<BUCKETS; i++)
+            counts.lazySet(i, 0);
+        for(int i=0; i<3; i++)
+            totals.lazySet(i, 0);
+    }
+}
@@ -36,7 +36,7 @@ public class IPV4Pattern extends IPPattern{
                 throw new IllegalArgumentException();
             for(int i=0; i<4; ++i) {
                 if(!parts[i].equals("*")){
-                    result[i] = Byte.parseByte(parts[i]);
+                    result[i] = (byte)Integer.parseInt(parts[i]);
                     mask[i] = (byte)(0xFF);
                 }
             }
@@ -59,7 +59,7 @@ public class IPV4Pattern extends IPPattern{
             if(parts.length!=4)
                 throw new IllegalArgumentException();
             for(int i=0; i<4; ++i)
-                result[i] = (byte)Byte.parseByte(parts[i]);
+                result[i] = (byte)(Integer.parseInt(parts[i]) & mask[i]);
         }
     }
 }
@@ -19,8 +19,11 @@ package jlibs.xml.sax.async;
 import jlibs.nbp.Chars;
 import jlibs.nbp.NBChannel;
 import jlibs.nbp.NBHandler;
+import jlibs.nbp.ParserStats;
 import jlibs.nbp.ReadableCharChannel;
 import jlibs.xml.ClarkName;
+import jlibs.xml.sax.ElementLocator;
+import jlibs.xml.sax.ElementSkipper;
 import org.apache.xerces.util.XMLChar;
 import org.xml.sax.*;
 import org.xml.sax.ext.DeclHandler;
@@ -40,7 +43,7 @@ import static jlibs.xml.sax.SAXProperties.*;
  * @author Santhosh Kumar T
  */
 @SuppressWarnings({"ThrowableInstanceNeverThrown"})
-public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>, Locator2{
+public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>, Locator2, ElementSkipper, ElementLocator{
     private static Map<String, char[]> defaultEntities = new HashMap<String, char[]>();
     static{
         defaultEntities.put("amp",  new char[]{ '&' });
@@ -71,6 +74,20 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         this.strict = strict;
     }
 
+    /**
+     * restores features, strict mode, qname pool limit, intern value length,
+     * parser stats and dtd cache to their defaults. Handlers are not cleared.
+     * Used by {@link AsyncXMLReaderPool}
+     */
+    void resetSettings(){
+        strict = false;
+        trackLocation = true;
+        qnamePoolLimit = DEFAULT_QNAME_POOL_LIMIT;
+        internValueLength = 0;
+        parserStats = null;
+        dtdCache = null;
+    }
+
     private ContentHandler contentHandler;
     @Override
     public void setContentHandler(ContentHandler contentHandler){
@@ -118,10 +135,14 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     private LexicalHandler lexicalHandler;
     private DeclHandler declHandler;
 
+    private boolean trackLocation = true;
+
     @Override
     public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException{
         if(NAMESPACES.equals(name) || EXTERNAL_GENERAL_ENTITIES.equals(name) || EXTERNAL_PARAMETER_ENTITIES.equals(name))
             return true;
+        if(TRACK_LOCATION.equals(name))
+            return trackLocation;
         throw new SAXNotSupportedException();
     }
 
@@ -129,6 +150,10 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     public void setFeature(String name, boolean value) throws SAXNotRecognizedException{
         if((NAMESPACES.equals(name) || EXTERNAL_GENERAL_ENTITIES.equals(name) || EXTERNAL_PARAMETER_ENTITIES.equals(name)) && value)
             return;
+        if(TRACK_LOCATION.equals(name)){
+            trackLocation = value;
+            return;
+        }
         throw new SAXNotRecognizedException();
     }
 
@@ -170,12 +195,42 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
                     throw this.feeder.parser.ioError(ex.getMessage());
                 }
             }
+            if(this.feeder.parser!=feeder.parser)
+                freeFeeders.push(this.feeder);
         }
         this.feeder = feeder;
         elemLock = feeder.elemDepth;
     }
+
+    // finished child feeders, along with their scanners, to be reused for external dtd and entities
+    private final Deque<XMLFeeder> freeFeeders = new ArrayDeque<XMLFeeder>();
+    private XMLFeeder childFeeder(int rule, boolean coalesceNewLines, InputSource inputSource, XMLScanner prologParser) throws IOException{
+        XMLFeeder childFeeder = freeFeeders.poll();
+        if(childFeeder==null){
+            XMLScanner scanner = new XMLScanner(this, rule);
+            scanner.coalesceNewLines = coalesceNewLines;
+            scanner.trackLocation = trackLocation;
+            scanner.stats = parserStats;
+            return new XMLFeeder(this, scanner, inputSource, prologParser);
+        }else{
+            XMLScanner scanner = (XMLScanner)childFeeder.parser;
+            scanner.reset(rule);
+            scanner.coalesceNewLines = coalesceNewLines;
+            scanner.trackLocation = trackLocation;
+            scanner.stats = parserStats;
+            childFeeder.init(inputSource, prologParser);
+            return childFeeder;
+        }
+    }
     
+    /**
+     * Resets this reader to parse given document. A reader can be reused
+     * for any number of documents, one at a time, even after a failed parse.
+     * Scanners, buffers and interned names are retained across documents.
+     */
     public XMLFeeder createFeeder(InputSource inputSource) throws IOException, SAXException{
+        xmlScanner.trackLocation = declScanner.trackLocation = trackLocation;
+        xmlScanner.stats = declScanner.stats = parserStats;
         xmlScanner.reset();
         declScanner.reset(XMLScanner.RULE_XDECL);
         if(xmlFeeder==null)
@@ -243,16 +298,22 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     /*-------------------------------------------------[ Document ]---------------------------------------------------*/
 
     void documentStart() throws SAXException{
+        if(qnamePool.size()>qnamePoolLimit)
+            qnamePool.clear();
+        if(valuePool.size()>qnamePoolLimit)
+            valuePool.clear();
         encoding = null;
         standalone = null;
+        declaredVersion = declaredEncoding = null;
         prefixLength = 0;
         value.setLength(0);
         valueStarted = false;
         entityValue = false;
 
         elem = elements[0];
-        elemLock = elemDepth = 0;
+        elemLock = elemDepth = skipDepth = 0;
         nsFree = 4;
+        nsStamp++;
 
         systemID = null;
         publicID = null;
@@ -266,6 +327,7 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
 
         dtd = null;
         _dtd.reset();
+        grammar = null;
         dtdElement = null;
         attributeList = null;
         dtdAttribute = null;
@@ -278,9 +340,14 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
 
     /*-------------------------------------------------[ XML Decleration ]---------------------------------------------------*/
 
+    /** version and encoding in xml declaration of document, null if not declared */
+    String declaredVersion, declaredEncoding;
+
     void version(Chars data) throws SAXException{
         if(!"1.0".contentEquals(data))
             throw fatalError("Unsupported XML Version: "+data);
+        if(feeder.getParent()==null)
+            declaredVersion = "1.0";
     }
 
     String encoding;
@@ -288,12 +355,15 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         encoding = data.toString();
     }
 
-    private Boolean standalone;
+    /** standalone in xml declaration of document, null if not declared */
+    Boolean standalone;
     void standalone(Chars data){
         standalone = "yes".contentEquals(data);
     }
 
     void xdeclEnd(){
+        if(feeder.getParent()==null)
+            declaredEncoding = encoding;
         feeder.setDeclaredEncoding(encoding);
         encoding = null;
     }
@@ -301,6 +371,23 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     /*-------------------------------------------------[ QName ]---------------------------------------------------*/
 
     private final QNamePool qnamePool = new QNamePool();
+    private static final int DEFAULT_QNAME_POOL_LIMIT = 10000;
+    private int qnamePoolLimit = DEFAULT_QNAME_POOL_LIMIT;
+
+    public int getQNamePoolLimit(){
+        return qnamePoolLimit;
+    }
+
+    /**
+     * Names seen are interned across documents parsed by this reader,
+     * so that parsing similar documents doesn't allocate names.
+     * If more than given number of names are interned, they are
+     * discarded when next document is started. Default is 10000.
+     */
+    public void setQNamePoolLimit(int qnamePoolLimit){
+        this.qnamePoolLimit = qnamePoolLimit;
+    }
+
     private QName curQName;
     private int prefixLength = 0;
     
@@ -315,6 +402,39 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
 
     /*-------------------------------------------------[ Value ]---------------------------------------------------*/
 
+    private final QNamePool valuePool = new QNamePool();
+    private int internValueLength = 0;
+    private char valueChars[] = new char[16];
+
+    public int getInternValueLength(){
+        return internValueLength;
+    }
+
+    /**
+     * Attribute values not longer than given length are interned
+     * across documents parsed by this reader, the same way as names.
+     * Useful when attributes have enumerated or short values,
+     * like ids of a small vocabulary, booleans or units.
+     * Once more than {@link #getQNamePoolLimit()} values are interned,
+     * remaining values of the document are not interned.
+     * Default is 0, i.e, values are not interned.
+     *
+     * @see #setQNamePoolLimit(int)
+     */
+    public void setInternValueLength(int internValueLength){
+        this.internValueLength = internValueLength;
+    }
+
+    private String valueString(){
+        int length = value.length();
+        if(length==0 || length>internValueLength || valuePool.size()>qnamePoolLimit)
+            return value.toString();
+        if(length>valueChars.length)
+            valueChars = new char[Math.max(length, valueChars.length<<1)];
+        value.getChars(0, length, valueChars, 0);
+        return valuePool.add(0, valueChars, 0, length).name;
+    }
+
     private StringBuilder value = new StringBuilder();
     private boolean valueStarted = true;
     private boolean entityValue = false;
@@ -330,6 +450,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
 
     void rawValue(Chars data){
+        if(skipDepth!=0)
+            return;
         char[] chars = data.array();
         int offset = data.offset();
         int length = data.length();
@@ -355,6 +477,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     void charReference(Chars data) throws SAXException{
         int cp = Integer.parseInt(data.toString(), radix);
         if(XMLChar.isValid(cp)){
+            if(skipDepth!=0)
+                return;
             if(valueStarted)
                 value.appendCodePoint(cp);
             else if(contentHandler!=null){
@@ -377,6 +501,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
 
         char[] entityContent = defaultEntities.get(entity);
         if(entityContent!=null){
+            if(skipDepth!=0)
+                return;
             if(valueStarted)
                 value.append(entityContent);
             else if(contentHandler!=null)
@@ -493,6 +619,7 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
 
     private String namespaces[] = new String[20];
     private int nsFree;
+    private long nsStamp; // changes whenever namespaces in scope change
 
     public String getNamespaceURI(String prefix){
         for(int i=nsFree-2; i>=0; i-=2){
@@ -501,10 +628,22 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         }
         return null;
     }
+
+    private String getNamespaceURI(QName qname) throws SAXException{
+        if(qname.uriStamp!=nsStamp){
+            String uri = getNamespaceURI(qname.prefix);
+            if(uri==null)
+                throw fatalError("Unbound prefix: "+qname.prefix);
+            qname.uri = uri;
+            qname.uriStamp = nsStamp;
+        }
+        return qname.uri;
+    }
     
     private final DTD _dtd = new DTD(this);
     private DTD dtd ;
     private final AttributesImpl attrs = new AttributesImpl();
+    private QName attrQNames[] = new QName[10];
     private Element elem = new Element();
     private Element elements[] = new Element[10];
     private int elemDepth = 0;
@@ -512,6 +651,7 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     private boolean resolveAttributePrefixes;
 
     void attributesStart() throws SAXException{
+        elementStartOffset = getCharacterOffset()-curQName.name.length()-1;
         if(curQName.prefix.equals("xmlns"))
             throw fatalError("Element \""+curQName.name+"\" cannot have \"xmlns\" as its prefix");
 
@@ -529,15 +669,17 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
 
     void attributeEnd() throws SAXException{
+        if(skipDepth!=0)
+            return;
         String attrName = curQName.name;
         String type, attrValue;
         if(dtd==null){
             type = "CDATA";
-            attrValue = value.toString();
+            attrValue = valueString();
         }else{
             AttributeType attrType = dtd.attributeType(elem.qname.name, attrName);
             type = attrType.name();
-            attrValue = attrType.normalize(value.toString());
+            attrValue = attrType.normalize(valueString());
         }
 
         String attrLocalName = curQName.localName;
@@ -569,6 +711,7 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
                 namespaces[nsFree] = nsPrefix;
                 namespaces[nsFree+1] = attrValue;
                 nsFree += 2;
+                nsStamp++;
                 if(contentHandler!=null)
                     contentHandler.startPrefixMapping(nsPrefix, attrValue);
                 return;
@@ -576,22 +719,24 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         }
 
         String prefix = curQName.prefix;
-        if(prefix.length()>0)
+        if(prefix.length()>0){
+            int index = attrs.getLength();
+            if(index==attrQNames.length)
+                attrQNames = Arrays.copyOf(attrQNames, index<<1);
+            attrQNames[index] = curQName;
             resolveAttributePrefixes = true;
+        }
         attrs.addAttribute(prefix, attrLocalName, attrName, type, attrValue);
     }
 
     void attributesEnd() throws SAXException{
+        if(skipDepth!=0)
+            return;
         int attrCount = attrs.getLength();
         if(resolveAttributePrefixes){
             for(int i=0; i<attrCount; i++){
-                String prefix = attrs.getURI(i);
-                if(prefix.length()>0){
-                    String uri = getNamespaceURI(prefix);
-                    if(uri==null)
-                        throw fatalError("Unbound prefix: "+prefix);
-                    attrs.setURI(i, uri);
-                }
+                if(attrs.getURI(i).length()>0)
+                    attrs.setURI(i, getNamespaceURI(attrQNames[i]));
             }
         }
         if(attrCount>1){
@@ -608,11 +753,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         String uri;
         if(elemQName.prefix.length()==0)
             uri = elem.defaultNamespace;
-        else{
-            uri = getNamespaceURI(elemQName.prefix);
-            if(uri==null)
-                throw fatalError("Unbound prefix: "+elemQName.prefix);
-        }
+        else
+            uri = getNamespaceURI(elemQName);
         elem.uri = uri;
         if(contentHandler!=null)
             contentHandler.startElement(uri, elemQName.localName, elemQName.name, attrs);
@@ -626,13 +768,18 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         if(elemDepth==elemLock)
             throw fatalError("The element \""+elem.qname.name+"\" must start and end within the same entity");
 
-        if(contentHandler!=null){
+        if(skipDepth==elemDepth)
+            skipDepth = 0;
+        if(skipDepth==0 && contentHandler!=null){
             contentHandler.endElement(elem.uri, elem.qname.localName, elem.qname.name);
             for(int i=elem.nsStart; i<nsFree; i+=2)
                 contentHandler.endPrefixMapping(namespaces[i]);
         }
 
-        nsFree = elem.nsStart;
+        if(nsFree!=elem.nsStart){
+            nsFree = elem.nsStart;
+            nsStamp++;
+        }
         elem = elements[--elemDepth];        
 
         if(elemDepth==0)
@@ -644,6 +791,36 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
             throw fatalError("expected </"+elem.qname.name+">");
     }
 
+    /*-------------------------------------------------[ Skip Element ]---------------------------------------------------*/
+
+    /**
+     * depth of element whose content is being skipped, 0 if not skipping.
+     * while skipping, elements and attributes are only checked for well-formedness,
+     * i.e namespaces, attribute values and uniqueness of attributes are not processed
+     */
+    private int skipDepth;
+
+    @Override
+    public void skipElement(){
+        if(skipDepth==0 && elemDepth>0)
+            skipDepth = elemDepth;
+    }
+
+    /*-------------------------------------------------[ Element Offsets ]---------------------------------------------------*/
+
+    // offsets are relative to the entity being parsed
+    private int elementStartOffset;
+
+    @Override
+    public int getElementStartOffset(){
+        return elementStartOffset;
+    }
+
+    @Override
+    public int getElementEndOffset(){
+        return getCharacterOffset();
+    }
+
     /*-------------------------------------------------[ PI ]---------------------------------------------------*/
 
     private String piTarget;
@@ -654,12 +831,17 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
 
     void piData(Chars piData) throws SAXException{
-        if(contentHandler!=null)
-            contentHandler.processingInstruction(piTarget, piData.length()>0 ? piData.toString() : "");
+        String data = piData.length()>0 ? piData.toString() : "";
+        if(grammar!=null)
+            grammar.events.add(new String[]{ piTarget, data });
+        if(skipDepth==0 && contentHandler!=null)
+            contentHandler.processingInstruction(piTarget, data);
     }
 
     void piData() throws SAXException{
-        if(contentHandler!=null)
+        if(grammar!=null)
+            grammar.events.add(new String[]{ piTarget, "" });
+        if(skipDepth==0 && contentHandler!=null)
             contentHandler.processingInstruction(piTarget, "");
     }
 
@@ -676,7 +858,7 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
     
     void characters(Chars data) throws SAXException{
-        if(contentHandler!=null){
+        if(skipDepth==0 && contentHandler!=null){
             int len = data.length();
             if(len>0){
                 if(dtd!=null && dtd.nonMixedElements.contains(elem.qname.name) && isWhitespace(data))
@@ -688,6 +870,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
 
     void cdata(Chars data) throws SAXException{
+        if(skipDepth!=0)
+            return;
         if(lexicalHandler!=null)
             lexicalHandler.startCDATA();
         if(contentHandler!=null)
@@ -697,7 +881,9 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
     }
 
     void comment(Chars data) throws SAXException{
-        if(lexicalHandler!=null)
+        if(grammar!=null)
+            grammar.events.add(new String[]{ null, data.toString() });
+        if(skipDepth==0 && lexicalHandler!=null)
             lexicalHandler.comment(data.array(), data.offset(), data.length());
     }
 
@@ -715,8 +901,6 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
             }finally{
                 if(contentHandler!=null)
                     contentHandler.endDocument();
-                if(XMLScanner.SHOW_STATS)
-                    xmlScanner.printStats();
             }
         }catch(SAXException e){
             return ex;
@@ -728,8 +912,6 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         if(feeder.getParent()==null){
             if(contentHandler!=null)
                 contentHandler.endDocument();
-            if(XMLScanner.SHOW_STATS)
-                xmlScanner.printStats();
         }
     }
 
@@ -786,21 +968,118 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
             InputSource inputSource = dtd.externalDTD;
             dtd.externalDTD = null;
 
+            DTDCache.Key cacheKey = null;
+            if(dtdCache!=null && declHandler==null && dtdHandler==null && entities.isEmpty() && paramEntities.isEmpty()){
+                cacheKey = new DTDCache.Key(inputSource.getPublicId(), inputSource.getSystemId(), entityResolver);
+                DTDCache.Grammar grammar = dtdCache.get(cacheKey);
+                if(grammar!=null){
+                    if(lexicalHandler!=null)
+                        lexicalHandler.endDTD();
+                    useGrammar(grammar);
+                    return;
+                }
+                if(!dtd.attributes.isEmpty() || !dtd.nonMixedElements.isEmpty())
+                    cacheKey = null; // internal subset would be mixed into the grammar
+            }
+
             InputSource is = null;
             if(entityResolver!=null)
                 is = entityResolver.resolveEntity(inputSource.getPublicId(), inputSource.getSystemId());
 
-            XMLScanner dtdScanner = new XMLScanner(this, XMLScanner.RULE_EXT_SUBSET_DECL);
-            dtdScanner.coalesceNewLines = true;
             encoding = null;
             declScanner.reset(XMLScanner.RULE_TEXT_DECL);
-            feeder.setChild(new XMLFeeder(this, dtdScanner, is==null?inputSource:is, declScanner));
-
+            XMLFeeder childFeeder = childFeeder(XMLScanner.RULE_EXT_SUBSET_DECL, true, is==null?inputSource:is, declScanner);
+            feeder.setChild(childFeeder);
+            if(cacheKey!=null){
+                final DTDCache.Key key = cacheKey;
+                grammar = new DTDCache.Grammar();
+                childFeeder.postAction = new Runnable(){
+                    @Override
+                    public void run(){
+                        cacheGrammar(key);
+                    }
+                };
+            }
         }
         if(lexicalHandler!=null)
             lexicalHandler.endDTD();
     }
 
+    /*-------------------------------------------------[ Statistics ]---------------------------------------------------*/
+
+    private ParserStats parserStats;
+
+    public ParserStats getParserStats(){
+        return parserStats;
+    }
+
+    /**
+     * Sets the statistics, into which scanners of this reader record
+     * rule calls, chunks, look-ahead and buffer usage from next document.
+     * The scanners of a reader share the statistics, so it should not be
+     * shared with other readers; to aggregate across readers, use
+     * <code>new ParserStats(aggregate)</code> for each reader.
+     * Default is null, i.e nothing is recorded.
+     */
+    public void setParserStats(ParserStats parserStats){
+        this.parserStats = parserStats;
+    }
+
+    /*-------------------------------------------------[ DTD Cache ]---------------------------------------------------*/
+
+    private DTDCache dtdCache;
+
+    public DTDCache getDTDCache(){
+        return dtdCache;
+    }
+
+    /**
+     * Sets the cache used to avoid parsing same external DTD repeatedly.
+     * Default is null, i.e external DTD is parsed for each document.
+     */
+    public void setDTDCache(DTDCache dtdCache){
+        this.dtdCache = dtdCache;
+    }
+
+    // grammar being recorded, while parsing external DTD
+    private DTDCache.Grammar grammar;
+
+    private void cacheGrammar(DTDCache.Key key){
+        for(Map.Entry<String, Map<String, DTDAttribute>> entry: dtd.attributes.entrySet())
+            grammar.attributes.put(entry.getKey(), new HashMap<String, DTDAttribute>(entry.getValue()));
+        grammar.nonMixedElements.addAll(dtd.nonMixedElements);
+        for(EntityValue entity: entities.values())
+            grammar.entities.add(new DTDCache.Entity(entity.entityName, entity.content, entity.externalDefinition, entity.unparsed, entity.externalValue, entity.inputSource));
+        dtdCache.put(key, grammar);
+        grammar = null;
+    }
+
+    private void useGrammar(DTDCache.Grammar grammar) throws SAXException{
+        for(Map.Entry<String, Map<String, DTDAttribute>> entry: grammar.attributes.entrySet()){
+            Map<String, DTDAttribute> attList = dtd.attributes.get(entry.getKey());
+            if(attList==null)
+                dtd.attributes.put(entry.getKey(), attList=new HashMap<String, DTDAttribute>());
+            for(DTDAttribute dtdAttr: entry.getValue().values()){
+                if(!attList.containsKey(dtdAttr.name))
+                    attList.put(dtdAttr.name, dtdAttr);
+            }
+        }
+        dtd.nonMixedElements.addAll(grammar.nonMixedElements);
+        for(DTDCache.Entity entity: grammar.entities){
+            if(!entities.containsKey(entity.name))
+                entities.put(entity.name, new EntityValue(entity));
+        }
+        for(String event[]: grammar.events){
+            if(event[0]==null){
+                if(lexicalHandler!=null){
+                    char chars[] = event[1].toCharArray();
+                    lexicalHandler.comment(chars, 0, chars.length);
+                }
+            }else if(contentHandler!=null)
+                contentHandler.processingInstruction(event[0], event[1]);
+        }
+    }
+
     /*-------------------------------------------------[ Entity Definition ]---------------------------------------------------*/
 
     private String entityName;
@@ -838,6 +1117,15 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         boolean externalValue;
         InputSource inputSource;
 
+        EntityValue(DTDCache.Entity entity){
+            entityName = entity.name;
+            content = entity.content;
+            externalDefinition = entity.externalDefinition;
+            unparsed = entity.unparsed;
+            externalValue = entity.externalValue;
+            inputSource = entity.inputSource;
+        }
+
         public EntityValue() throws IOException, SAXException{
             entityName = AsyncXMLReader.this.entityName;
             externalDefinition = feeder.getParent()!=null;
@@ -876,11 +1164,8 @@ public final class AsyncXMLReader implements XMLReader, NBHandler<SAXException>,
         }
 
         public XMLFeeder parse(int rule) throws IOException, SAXException{
-            XMLScanner scanner = new XMLScanner(AsyncXMLReader.this, rule);
             XMLScanner prologParser = prologParser();
-            scanner.coalesceNewLines = externalValue;
-
-            XMLFeeder childFeeder = new XMLFeeder(AsyncXMLReader.this, scanner, inputSource(false), prologParser);
+            XMLFeeder childFeeder = childFeeder(rule, externalValue, inputSource(false), prologParser);
             feeder.setChild(childFeeder);
             return childFeeder;
         }
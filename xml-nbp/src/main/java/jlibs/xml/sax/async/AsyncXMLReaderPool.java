@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import org.xml.sax.SAXException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static jlibs.xml.sax.SAXProperties.DECL_HANDLER;
+import static jlibs.xml.sax.SAXProperties.LEXICAL_HANDLER;
+
+/**
+ * Bounded pool of idle {@link AsyncXMLReader}s, for parsing many small
+ * documents across threads.
+ * <p>
+ * A reader can parse any number of documents one after another, as
+ * {@link AsyncXMLReader#createFeeder(org.xml.sax.InputSource) createFeeder(...)}
+ * resets its state. The scanners, buffers, decoders and the names interned
+ * are retained, so that steady state parsing doesn't allocate for them.
+ * Pooling readers extends this to documents parsed from different threads,
+ * such as reactor threads handling many connections.
+ * <p>
+ * {@link #release(AsyncXMLReader) Released} readers are reset: handlers
+ * and entity resolver are cleared, and features, strict mode,
+ * {@link AsyncXMLReader#setQNamePoolLimit(int) qname pool limit},
+ * {@link AsyncXMLReader#setInternValueLength(int) intern value length},
+ * {@link AsyncXMLReader#setParserStats(jlibs.nbp.ParserStats) parser stats} and
+ * {@link AsyncXMLReader#setDTDCache(DTDCache) dtd cache} are restored to
+ * their defaults. So a borrowed reader is always configured as a new one,
+ * and borrowers must set whatever they rely on. Only the interned names and
+ * values carry over to the next borrower.
+ * <pre class="prettyprint">
+ * AsyncXMLReader reader = pool.borrow();
+ * try{
+ *     reader.setContentHandler(handler);
+ *     reader.parse(source);
+ * }finally{
+ *     pool.release(reader);
+ * }
+ * </pre>
+ *
+ * @author Santhosh Kumar T
+ */
+public class AsyncXMLReaderPool{
+    private final ArrayBlockingQueue<AsyncXMLReader> idle;
+
+    /**
+     * @param maxIdle maximum number of idle readers retained.
+     *                readers released beyond this are discarded
+     */
+    public AsyncXMLReaderPool(int maxIdle){
+        idle = new ArrayBlockingQueue<AsyncXMLReader>(maxIdle);
+    }
+
+    /** @return idle reader if any, otherwise new reader */
+    public AsyncXMLReader borrow(){
+        AsyncXMLReader reader = idle.poll();
+        return reader==null ? new AsyncXMLReader() : reader;
+    }
+
+    /**
+     * returns given reader to this pool. The handlers set on the
+     * reader are cleared, so that they are not retained by the pool,
+     * and its settings are restored to defaults.
+     * The reader must not be used by the caller after this.
+     */
+    public void release(AsyncXMLReader reader){
+        reader.resetSettings();
+        reader.setContentHandler(null);
+        reader.setErrorHandler(null);
+        reader.setDTDHandler(null);
+        reader.setEntityResolver(null);
+        try{
+            reader.setProperty(LEXICAL_HANDLER, null);
+            reader.setProperty(DECL_HANDLER, null);
+        }catch(SAXException ex){
+            throw new RuntimeException(ex);
+        }
+        idle.offer(reader);
+    }
+
+    public int idleCount(){
+        return idle.size();
+    }
+}
@@ -0,0 +1,828 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.nbp.Feeder;
+import jlibs.xml.sax.SAXProperties;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Non-blocking {@link XMLStreamReader} on top of {@link AsyncXMLReader}.
+ * <p>
+ * Input is pushed using {@link #feed(ByteBuffer)} and {@link #endOfInput()}.
+ * When the input fed so far does not contain next event, {@link #next()}
+ * returns {@link #EVENT_INCOMPLETE} rather than blocking, and the caller is
+ * expected to feed more input and call {@code next()} again:
+ * <pre class="prettyprint">
+ * AsyncXMLStreamReader reader = new AsyncXMLStreamReader();
+ * reader.feed(buffer);
+ * while(reader.hasNext()){
+ *     int event = reader.next();
+ *     if(event==AsyncXMLStreamReader.EVENT_INCOMPLETE){
+ *         // read more bytes into buffer (say, when the channel is readable)
+ *         if(eof)
+ *             reader.endOfInput();
+ *         else
+ *             reader.feed(buffer);
+ *     }else
+ *         ...
+ * }
+ * </pre>
+ * Fed buffer is consumed lazily, in small slices, only when there are no
+ * pending events. So it must not be modified until {@link #needsInput()}
+ * returns true. Events between slices are buffered, which holds at most
+ * a slice worth of events in memory, no matter how large the document is.
+ * <p>
+ * The same {@link XMLScanner} grammar drives both readers, and names
+ * reported are those interned in the parser's {@link QNamePool}.
+ * Adjacent text reported in parts is merged into single event, as long as
+ * the event is not yet pulled. {@link #getElementText()} and {@link #nextTag()}
+ * can be used only when the input fed contains the events they need, otherwise
+ * they throw {@link XMLStreamException}.
+ *
+ * @author Santhosh Kumar T
+ */
+public class AsyncXMLStreamReader implements XMLStreamReader{
+    /**
+     * returned by {@link #next()}, when more input is required to find next event.
+     * It is not an event: {@link #getEventType()} returns it till next event
+     * is pulled, and accessors of current event must not be used meanwhile.
+     * <p>
+     * On receiving it, the caller must either {@link #feed(ByteBuffer) feed}
+     * more input or call {@link #endOfInput()}, and then call {@link #next()}
+     * again. Calling {@code next()} without doing so returns it again.
+     * Its value doesn't clash with constants in {@link XMLStreamConstants}.
+     */
+    public static final int EVENT_INCOMPLETE = 257;
+
+    /** maximum number of bytes consumed, while looking for next event */
+    public static final int SLICE_SIZE = 512;
+
+    private final AsyncXMLReader reader = new AsyncXMLReader();
+    private final Handler handler = new Handler();
+    private Feeder feeder;
+
+    public AsyncXMLStreamReader(){
+        reader.setContentHandler(handler);
+        try{
+            reader.setProperty(SAXProperties.LEXICAL_HANDLER, handler);
+        }catch(SAXException ex){
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /*-------------------------------------------------[ Input ]---------------------------------------------------*/
+
+    private ByteBuffer input;
+    private boolean eof;
+    private int budget;
+
+    /**
+     * pushes more input. The buffer is consumed by subsequent calls
+     * to {@link #next()}, so it must not be modified until
+     * {@link #needsInput()} returns true.
+     */
+    public void feed(ByteBuffer buffer){
+        if(eof)
+            throw new IllegalStateException("endOfInput() is already called");
+        if(input!=null && input.hasRemaining())
+            throw new IllegalStateException("previous input is not yet consumed");
+        input = buffer;
+    }
+
+    /** marks that there is no more input */
+    public void endOfInput(){
+        eof = true;
+    }
+
+    /** @return true if the input fed is consumed completely, and more input is expected */
+    public boolean needsInput(){
+        return !eof && (input==null || !input.hasRemaining());
+    }
+
+    /**
+     * consumes next slice of input.
+     *
+     * @return false if there is nothing to consume
+     */
+    private boolean consume() throws XMLStreamException{
+        if(feeder==null && completed)
+            return false;
+        if(needsInput())
+            return false;
+        budget = SLICE_SIZE;
+        try{
+            if(feeder==null)
+                feeder = reader.createFeeder(new ChannelInputSource(channel));
+            feeder = feeder.feed();
+        }catch(IOException ex){
+            throw streamException(ex);
+        }catch(SAXException ex){
+            throw streamException(ex);
+        }
+        if(feeder==null)
+            completed = true;
+        else if(eof && (input==null || !input.hasRemaining()) && budget>0)
+            throw new XMLStreamException("premature end of document", getLocation());
+        return true;
+    }
+
+    private XMLStreamException streamException(Exception ex){
+        completed = true;
+        feeder = null;
+        queue.clear();
+        Throwable cause = ex;
+        if(ex instanceof IOException && ex.getCause() instanceof SAXException)
+            cause = ex.getCause();
+        if(cause instanceof SAXParseException){
+            SAXParseException spe = (SAXParseException)cause;
+            return new XMLStreamException(spe.getMessage(), new Loc(spe.getLineNumber(), spe.getColumnNumber(), -1), spe);
+        }else
+            return new XMLStreamException(cause.getMessage(), cause);
+    }
+
+    /** feeds parser from the input fed, at most budget bytes per slice */
+    private final ReadableByteChannel channel = new ReadableByteChannel(){
+        @Override
+        public int read(ByteBuffer dst){
+            if(input==null || !input.hasRemaining())
+                return eof ? -1 : 0;
+            int read = Math.min(budget, Math.min(input.remaining(), dst.remaining()));
+            if(read==0)
+                return 0;
+            int limit = input.limit();
+            input.limit(input.position()+read);
+            dst.put(input);
+            input.limit(limit);
+            budget -= read;
+            return read;
+        }
+
+        @Override
+        public boolean isOpen(){
+            return !completed;
+        }
+
+        @Override
+        public void close(){}
+    };
+
+    /*-------------------------------------------------[ Events ]---------------------------------------------------*/
+
+    private static final String EMPTY[] = new String[0];
+
+    private static final class Item{
+        int type;
+        String uri, localName, qName;
+        String attributes[] = new String[5*8]; // uri, localName, qName, type, value
+        int attributeCount;
+        String namespaces[] = EMPTY; // prefix, uri
+        char text[] = new char[64];
+        int textLength;
+        String target;
+        int line, column, offset;
+
+        void append(char ch[], int start, int length){
+            if(textLength+length>text.length){
+                char newText[] = new char[Math.max(textLength+length, 2*text.length)];
+                System.arraycopy(text, 0, newText, 0, textLength);
+                text = newText;
+            }
+            System.arraycopy(ch, start, text, textLength, length);
+            textLength += length;
+        }
+    }
+
+    private final ArrayDeque<Item> queue = new ArrayDeque<Item>();
+    private final ArrayDeque<Item> free = new ArrayDeque<Item>();
+    private boolean completed;
+
+    private final class Handler extends DefaultHandler implements LexicalHandler{
+        private final ArrayList<String> prefixMappings = new ArrayList<String>();
+        private final ArrayDeque<String[]> namespaceStack = new ArrayDeque<String[]>();
+        private boolean cdata, split;
+
+        private Item add(int type){
+            Item item = free.poll();
+            if(item==null)
+                item = new Item();
+            item.type = type;
+            item.textLength = 0;
+            item.attributeCount = 0;
+            item.namespaces = EMPTY;
+            item.line = reader.getLineNumber();
+            item.column = reader.getColumnNumber();
+            item.offset = reader.getCharacterOffset();
+            queue.add(item);
+            return item;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator){}
+
+        @Override
+        public void startDocument(){
+            prefixMappings.clear();
+            namespaceStack.clear();
+            cdata = split = false;
+        }
+
+        @Override
+        public void endDocument(){
+            add(END_DOCUMENT);
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri){
+            prefixMappings.add(prefix);
+            prefixMappings.add(uri);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs){
+            Item item = add(START_ELEMENT);
+            item.uri = uri;
+            item.localName = localName;
+            item.qName = qName;
+
+            int count = attrs.getLength();
+            if(item.attributes.length<5*count)
+                item.attributes = new String[5*count];
+            String attributes[] = item.attributes;
+            for(int i=0, j=0; i<count; i++){
+                attributes[j++] = attrs.getURI(i);
+                attributes[j++] = attrs.getLocalName(i);
+                attributes[j++] = attrs.getQName(i);
+                attributes[j++] = attrs.getType(i);
+                attributes[j++] = attrs.getValue(i);
+            }
+            item.attributeCount = count;
+
+            if(prefixMappings.isEmpty())
+                item.namespaces = EMPTY;
+            else{
+                item.namespaces = prefixMappings.toArray(new String[prefixMappings.size()]);
+                prefixMappings.clear();
+            }
+            namespaceStack.push(item.namespaces);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName){
+            Item item = add(END_ELEMENT);
+            item.uri = uri;
+            item.localName = localName;
+            item.qName = qName;
+            item.namespaces = namespaceStack.pop();
+        }
+
+        private void text(int type, char ch[], int start, int length){
+            Item item = queue.peekLast();
+            if(split || item==null || item.type!=type)
+                item = add(type);
+            split = false;
+            item.append(ch, start, length);
+        }
+
+        @Override
+        public void characters(char ch[], int start, int length){
+            text(cdata ? CDATA : CHARACTERS, ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char ch[], int start, int length){
+            text(SPACE, ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data){
+            Item item = add(PROCESSING_INSTRUCTION);
+            item.target = target;
+            if(data!=null)
+                item.append(data.toCharArray(), 0, data.length());
+        }
+
+        @Override
+        public void comment(char ch[], int start, int length){
+            add(COMMENT).append(ch, start, length);
+        }
+
+        @Override
+        public void startCDATA(){
+            cdata = split = true;
+        }
+
+        @Override
+        public void endCDATA(){
+            cdata = false;
+            split = true;
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId){
+            add(DTD).target = name;
+        }
+
+        @Override
+        public void endDTD(){}
+
+        @Override
+        public void startEntity(String name){}
+
+        @Override
+        public void endEntity(String name){}
+    }
+
+    /*-------------------------------------------------[ Pull ]---------------------------------------------------*/
+
+    private Item current;
+    private int eventType = START_DOCUMENT;
+    private final NamespaceSupport nsSupport = new NamespaceSupport();
+
+    @Override
+    public int next() throws XMLStreamException{
+        if(eventType==END_DOCUMENT)
+            throw new IllegalStateException("no more events");
+        if(eventType==END_ELEMENT)
+            nsSupport.popContext();
+
+        while(queue.isEmpty()){
+            if(!consume()){
+                if(completed && queue.isEmpty())
+                    throw new XMLStreamException("no more events");
+                if(queue.isEmpty())
+                    return eventType = EVENT_INCOMPLETE;
+            }
+        }
+
+        if(current!=null)
+            free.add(current);
+        current = queue.poll();
+        eventType = current.type;
+        if(eventType==START_ELEMENT){
+            nsSupport.pushContext();
+            String namespaces[] = current.namespaces;
+            for(int i=0; i<namespaces.length; i+=2)
+                nsSupport.declarePrefix(namespaces[i], namespaces[i+1]);
+        }else if(eventType==END_DOCUMENT)
+            nsSupport.reset();
+        return eventType;
+    }
+
+    @Override
+    public boolean hasNext(){
+        return eventType!=END_DOCUMENT;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException{
+        int event = next();
+        while((event==CHARACTERS && isWhiteSpace()) || (event==CDATA && isWhiteSpace())
+                || event==SPACE || event==PROCESSING_INSTRUCTION || event==COMMENT)
+            event = next();
+        if(event==EVENT_INCOMPLETE)
+            throw new XMLStreamException("incomplete input", getLocation());
+        if(event!=START_ELEMENT && event!=END_ELEMENT)
+            throw new XMLStreamException("expected start or end tag", getLocation());
+        return event;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException{
+        if(eventType!=START_ELEMENT)
+            throw new XMLStreamException("parser must be on START_ELEMENT to read next text", getLocation());
+        StringBuilder buff = new StringBuilder();
+        while(true){
+            int event = next();
+            switch(event){
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                case ENTITY_REFERENCE:
+                    buff.append(current.text, 0, current.textLength);
+                    break;
+                case PROCESSING_INSTRUCTION:
+                case COMMENT:
+                    break;
+                case END_ELEMENT:
+                    return buff.toString();
+                case EVENT_INCOMPLETE:
+                    throw new XMLStreamException("incomplete input", getLocation());
+                default:
+                    throw new XMLStreamException("element text content may not contain START_ELEMENT", getLocation());
+            }
+        }
+    }
+
+    @Override
+    public void require(int type, String namespaceURI, String localName) throws XMLStreamException{
+        if(type!=eventType)
+            throw new XMLStreamException("expected event "+type+" but found "+eventType, getLocation());
+        if(namespaceURI!=null && !namespaceURI.equals(getNamespaceURI()))
+            throw new XMLStreamException("expected namespace "+namespaceURI, getLocation());
+        if(localName!=null && !localName.equals(getLocalName()))
+            throw new XMLStreamException("expected local name "+localName, getLocation());
+    }
+
+    @Override
+    public void close(){
+        completed = true;
+        feeder = null;
+        input = null;
+        queue.clear();
+    }
+
+    @Override
+    public Object getProperty(String name){
+        return null;
+    }
+
+    @Override
+    public int getEventType(){
+        return eventType;
+    }
+
+    @Override
+    public boolean isStartElement(){
+        return eventType==START_ELEMENT;
+    }
+
+    @Override
+    public boolean isEndElement(){
+        return eventType==END_ELEMENT;
+    }
+
+    @Override
+    public boolean isCharacters(){
+        return eventType==CHARACTERS;
+    }
+
+    @Override
+    public boolean isWhiteSpace(){
+        if(!hasText() || eventType==COMMENT || eventType==DTD)
+            return false;
+        char text[] = current.text;
+        for(int i=current.textLength-1; i>=0; i--){
+            char ch = text[i];
+            if(ch!=' ' && ch!='\t' && ch!='\n' && ch!='\r')
+                return false;
+        }
+        return true;
+    }
+
+    /*-------------------------------------------------[ Names ]---------------------------------------------------*/
+
+    private void checkElement(){
+        if(eventType!=START_ELEMENT && eventType!=END_ELEMENT)
+            throw new IllegalStateException("current event is not START_ELEMENT or END_ELEMENT");
+    }
+
+    private static String prefix(String qName){
+        int colon = qName.indexOf(':');
+        return colon==-1 ? XMLConstants.DEFAULT_NS_PREFIX : qName.substring(0, colon);
+    }
+
+    @Override
+    public QName getName(){
+        checkElement();
+        return new QName(current.uri, current.localName, prefix(current.qName));
+    }
+
+    @Override
+    public String getLocalName(){
+        if(eventType==START_ELEMENT || eventType==END_ELEMENT)
+            return current.localName;
+        throw new IllegalStateException("current event is not START_ELEMENT or END_ELEMENT");
+    }
+
+    @Override
+    public boolean hasName(){
+        return eventType==START_ELEMENT || eventType==END_ELEMENT;
+    }
+
+    @Override
+    public String getNamespaceURI(){
+        if(eventType==START_ELEMENT || eventType==END_ELEMENT)
+            return current.uri.length()==0 ? null : current.uri;
+        return null;
+    }
+
+    @Override
+    public String getPrefix(){
+        if(eventType==START_ELEMENT || eventType==END_ELEMENT)
+            return prefix(current.qName);
+        return null;
+    }
+
+    /*-------------------------------------------------[ Attributes ]---------------------------------------------------*/
+
+    private void checkStartElement(){
+        if(eventType!=START_ELEMENT)
+            throw new IllegalStateException("current event is not START_ELEMENT");
+    }
+
+    private String attribute(int index, int field){
+        checkStartElement();
+        if(index<0 || index>=current.attributeCount)
+            throw new IndexOutOfBoundsException("attribute index: "+index);
+        return current.attributes[5*index+field];
+    }
+
+    @Override
+    public String getAttributeValue(String namespaceURI, String localName){
+        checkStartElement();
+        String attributes[] = current.attributes;
+        for(int i=0, j=0; i<current.attributeCount; i++, j+=5){
+            if(attributes[j+1].equals(localName) && (namespaceURI==null || namespaceURI.equals(attributes[j])))
+                return attributes[j+4];
+        }
+        return null;
+    }
+
+    @Override
+    public int getAttributeCount(){
+        checkStartElement();
+        return current.attributeCount;
+    }
+
+    @Override
+    public QName getAttributeName(int index){
+        return new QName(attribute(index, 0), attribute(index, 1), prefix(attribute(index, 2)));
+    }
+
+    @Override
+    public String getAttributeNamespace(int index){
+        String uri = attribute(index, 0);
+        return uri.length()==0 ? null : uri;
+    }
+
+    @Override
+    public String getAttributeLocalName(int index){
+        return attribute(index, 1);
+    }
+
+    @Override
+    public String getAttributePrefix(int index){
+        return prefix(attribute(index, 2));
+    }
+
+    @Override
+    public String getAttributeType(int index){
+        return attribute(index, 3);
+    }
+
+    @Override
+    public String getAttributeValue(int index){
+        return attribute(index, 4);
+    }
+
+    @Override
+    public boolean isAttributeSpecified(int index){
+        attribute(index, 0);
+        return true;
+    }
+
+    /*-------------------------------------------------[ Namespaces ]---------------------------------------------------*/
+
+    @Override
+    public int getNamespaceCount(){
+        checkElement();
+        return current.namespaces.length/2;
+    }
+
+    @Override
+    public String getNamespacePrefix(int index){
+        checkElement();
+        String prefix = current.namespaces[2*index];
+        return prefix.length()==0 ? null : prefix;
+    }
+
+    @Override
+    public String getNamespaceURI(int index){
+        checkElement();
+        String uri = current.namespaces[2*index+1];
+        return uri.length()==0 ? null : uri;
+    }
+
+    @Override
+    public String getNamespaceURI(String prefix){
+        if(prefix==null)
+            throw new IllegalArgumentException("prefix is null");
+        if(prefix.equals(XMLConstants.XMLNS_ATTRIBUTE))
+            return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+        return nsSupport.getURI(prefix);
+    }
+
+    private final NamespaceContext nsContext = new NamespaceContext(){
+        @Override
+        public String getNamespaceURI(String prefix){
+            String uri = AsyncXMLStreamReader.this.getNamespaceURI(prefix);
+            return uri==null ? XMLConstants.NULL_NS_URI : uri;
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI){
+            if(XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI))
+                return XMLConstants.XMLNS_ATTRIBUTE;
+            String prefix = nsSupport.getPrefix(namespaceURI);
+            if(prefix==null && namespaceURI.equals(nsSupport.getURI("")))
+                return XMLConstants.DEFAULT_NS_PREFIX;
+            return prefix;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Iterator<String> getPrefixes(String namespaceURI){
+            List<String> prefixes = Collections.list(nsSupport.getPrefixes(namespaceURI));
+            if(namespaceURI.equals(nsSupport.getURI("")))
+                prefixes.add(XMLConstants.DEFAULT_NS_PREFIX);
+            return prefixes.iterator();
+        }
+    };
+
+    /** @return namespace context of current event, which changes as events are pulled */
+    @Override
+    public NamespaceContext getNamespaceContext(){
+        return nsContext;
+    }
+
+    /*-------------------------------------------------[ Text ]---------------------------------------------------*/
+
+    @Override
+    public boolean hasText(){
+        switch(eventType){
+            case CHARACTERS:
+            case CDATA:
+            case SPACE:
+            case COMMENT:
+            case DTD:
+            case ENTITY_REFERENCE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void checkText(){
+        if(!hasText())
+            throw new IllegalStateException("current event has no text");
+    }
+
+    @Override
+    public String getText(){
+        checkText();
+        return new String(current.text, 0, current.textLength);
+    }
+
+    @Override
+    public char[] getTextCharacters(){
+        checkText();
+        return current.text;
+    }
+
+    @Override
+    public int getTextCharacters(int sourceStart, char target[], int targetStart, int length){
+        checkText();
+        int count = Math.min(length, current.textLength-sourceStart);
+        if(count>0)
+            System.arraycopy(current.text, sourceStart, target, targetStart, count);
+        return Math.max(count, 0);
+    }
+
+    @Override
+    public int getTextStart(){
+        checkText();
+        return 0;
+    }
+
+    @Override
+    public int getTextLength(){
+        checkText();
+        return current.textLength;
+    }
+
+    @Override
+    public String getPITarget(){
+        return eventType==PROCESSING_INSTRUCTION ? current.target : null;
+    }
+
+    @Override
+    public String getPIData(){
+        return eventType==PROCESSING_INSTRUCTION ? new String(current.text, 0, current.textLength) : null;
+    }
+
+    /*-------------------------------------------------[ Document ]---------------------------------------------------*/
+
+    @Override
+    public String getEncoding(){
+        return reader.getEncoding();
+    }
+
+    /*
+     * values from xml declaration are known only after it is consumed,
+     * i.e. once the event following START_DOCUMENT is pulled
+     */
+
+    /** @return version in xml declaration, null if not declared */
+    @Override
+    public String getVersion(){
+        return reader.declaredVersion;
+    }
+
+    @Override
+    public boolean isStandalone(){
+        return reader.standalone==Boolean.TRUE;
+    }
+
+    @Override
+    public boolean standaloneSet(){
+        return reader.standalone!=null;
+    }
+
+    /** @return encoding in xml declaration, null if not declared */
+    @Override
+    public String getCharacterEncodingScheme(){
+        return reader.declaredEncoding;
+    }
+
+    /*-------------------------------------------------[ Location ]---------------------------------------------------*/
+
+    private static final class Loc implements Location{
+        private final int line, column, offset;
+
+        Loc(int line, int column, int offset){
+            this.line = line;
+            this.column = column;
+            this.offset = offset;
+        }
+
+        @Override
+        public int getLineNumber(){
+            return line;
+        }
+
+        @Override
+        public int getColumnNumber(){
+            return column;
+        }
+
+        @Override
+        public int getCharacterOffset(){
+            return offset;
+        }
+
+        @Override
+        public String getPublicId(){
+            return null;
+        }
+
+        @Override
+        public String getSystemId(){
+            return null;
+        }
+    }
+
+    /** @return location where current event ends */
+    @Override
+    public Location getLocation(){
+        if(current==null)
+            return new Loc(1, 1, 0);
+        return new Loc(current.line, current.column, current.offset);
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+
+import java.util.*;
+
+/**
+ * Thread-safe cache of parsed external DTDs, keyed by public id, system id and
+ * the {@link org.xml.sax.EntityResolver} of the reader. Readers with different
+ * resolvers might resolve same ids to different DTDs, so they don't share
+ * cached DTDs; use the same resolver instance across readers to share them.
+ * <p>
+ * When an {@link AsyncXMLReader} is {@link AsyncXMLReader#setDTDCache(DTDCache) given}
+ * a cache, the attribute declarations, element content types and general entities
+ * of an external DTD are parsed only once, and later documents referring to the
+ * same DTD parse only their internal subset. Comments and processing instructions
+ * in the DTD are replayed.
+ * <p>
+ * Declarations in internal subset can change the meaning of external subset,
+ * so the cache is populated only by documents with empty internal subset, and
+ * is not used by documents declaring entities in their internal subset. It is
+ * also not used while {@link org.xml.sax.ext.DeclHandler} or
+ * {@link org.xml.sax.DTDHandler} is set on the reader, as they expect the
+ * declarations to be reported. DTDs are assumed not to change, once cached.
+ * Least recently used DTDs are evicted once the cache grows beyond {@link #maxSize}.
+ *
+ * @author Santhosh Kumar T
+ */
+public class DTDCache{
+    public final int maxSize;
+
+    private final Map<Key, Grammar> grammars;
+
+    public DTDCache(final int maxSize){
+        if(maxSize<1)
+            throw new IllegalArgumentException("maxSize must be positive: "+maxSize);
+        this.maxSize = maxSize;
+        grammars = new LinkedHashMap<Key, Grammar>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Grammar> eldest){
+                return size()>maxSize;
+            }
+        };
+    }
+
+    Grammar get(Key key){
+        synchronized(grammars){
+            return grammars.get(key);
+        }
+    }
+
+    void put(Key key, Grammar grammar){
+        synchronized(grammars){
+            grammars.put(key, grammar);
+        }
+    }
+
+    public int size(){
+        synchronized(grammars){
+            return grammars.size();
+        }
+    }
+
+    public void clear(){
+        synchronized(grammars){
+            grammars.clear();
+        }
+    }
+
+    /*-------------------------------------------------[ Key ]---------------------------------------------------*/
+
+    /** resolver is compared by identity, as resolvers seldom implement equals */
+    static final class Key{
+        final String publicID;
+        final String systemID;
+        final EntityResolver resolver;
+
+        Key(String publicID, String systemID, EntityResolver resolver){
+            this.publicID = publicID;
+            this.systemID = systemID;
+            this.resolver = resolver;
+        }
+
+        @Override
+        public boolean equals(Object obj){
+            if(obj==this)
+                return true;
+            if(!(obj instanceof Key))
+                return false;
+            Key that = (Key)obj;
+            return resolver==that.resolver
+                    && (publicID==null ? that.publicID==null : publicID.equals(that.publicID))
+                    && (systemID==null ? that.systemID==null : systemID.equals(that.systemID));
+        }
+
+        @Override
+        public int hashCode(){
+            int hash = System.identityHashCode(resolver);
+            hash = 31*hash + (publicID==null ? 0 : publicID.hashCode());
+            hash = 31*hash + (systemID==null ? 0 : systemID.hashCode());
+            return hash;
+        }
+    }
+
+    /*-------------------------------------------------[ Grammar ]---------------------------------------------------*/
+
+    /** declarations of external DTD. Not modified once cached */
+    static final class Grammar{
+        final Map<String, Map<String, DTDAttribute>> attributes = new HashMap<String, Map<String, DTDAttribute>>();
+        final Set<String> nonMixedElements = new HashSet<String>();
+        final List<Entity> entities = new ArrayList<Entity>();
+
+        // comments and pis in order, as {null, comment} or {target, data}
+        final List<String[]> events = new ArrayList<String[]>();
+    }
+
+    static final class Entity{
+        final String name;
+        final char content[];
+        final boolean externalDefinition;
+        final boolean unparsed;
+        final boolean externalValue;
+        final InputSource inputSource;
+
+        Entity(String name, char content[], boolean externalDefinition, boolean unparsed, boolean externalValue, InputSource inputSource){
+            this.name = name;
+            this.content = content;
+            this.externalDefinition = externalDefinition;
+            this.unparsed = unparsed;
+            this.externalValue = externalValue;
+            this.inputSource = inputSource;
+        }
+    }
+}
@@ -28,6 +28,10 @@ final class QName{
 
     QName next;
 
+    // namespace uri of prefix, valid while AsyncXMLReader.nsStamp==uriStamp
+    String uri;
+    long uriStamp = -1;
+
     QName(int prefixLength, char[] buffer, int offset, int length, int hash, QName next){
         name = new String(buffer, offset, length);
         if(prefixLength==0){
@@ -16,6 +16,8 @@
 
 package jlibs.xml.sax.async;
 
+import java.util.Arrays;
+
 /**
  * @author Santhosh Kumar T
  */
@@ -72,6 +74,16 @@ final class QNamePool{
         return buckets[ibucket] = new QName(prefixLength, buffer, offset, length, hash, buckets[ibucket]);
     }
 
+    public int size(){
+        return count;
+    }
+
+    /** removes all entries, retaining the capacity reached */
+    public void clear(){
+        Arrays.fill(buckets, null);
+        count = 0;
+    }
+
     protected void rehash(){
         QName oldTable[] = buckets;
         int oldCapacity = buckets.length;
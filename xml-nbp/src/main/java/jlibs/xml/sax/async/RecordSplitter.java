@@ -0,0 +1,719 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.xml.sax.SAXProperties;
+import org.xml.sax.*;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Callable;
+
+/**
+ * Splits record oriented xml file, i.e. a root element with many
+ * independent children, into chunks which can be parsed in parallel.
+ * <p>
+ * The file is memory mapped and scanned once for the boundaries of
+ * the root's children, skipping comments, PIs, CDATA sections,
+ * quoted attribute values and DOCTYPE, so that a split never happens
+ * inside markup. Each {@link Chunk} is a complete document made of
+ * the prolog and root start tag of the file, a run of whole children,
+ * and the root end tag. Thus namespaces declared on root and the DTD
+ * are seen by every chunk.
+ * <p>
+ * Only ASCII compatible encodings, like UTF-8 and ISO-8859-*, can be split.
+ * Line numbers reported in errors are relative to the chunk, not the file.
+ * <pre class="prettyprint">
+ * RecordSplitter splitter = new RecordSplitter(file, 4*1024*1024);
+ * try{
+ *     splitter.parse(contentHandler, executor);
+ * }finally{
+ *     splitter.close();
+ * }
+ * </pre>
+ *
+ * @author Santhosh Kumar T
+ */
+public class RecordSplitter implements Iterable<RecordSplitter.Chunk>, Closeable{
+    private static final int WINDOW_SIZE = 64*1024*1024;
+
+    private final String systemID;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+
+    private byte header[];
+    private byte footer[];
+
+    public RecordSplitter(File file, int chunkSize) throws IOException{
+        if(chunkSize<=0)
+            throw new IllegalArgumentException("chunkSize must be positive: "+chunkSize);
+        this.chunkSize = chunkSize;
+        systemID = file.toURI().toString();
+        raf = new RandomAccessFile(file, "r");
+        try{
+            channel = raf.getChannel();
+            size = channel.size();
+            scanProlog();
+        }catch(IOException ex){
+            raf.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        raf.close();
+    }
+
+    /*-------------------------------------------------[ Scanning ]---------------------------------------------------*/
+
+    private MappedByteBuffer window;
+    private long windowStart, windowEnd;
+
+    private byte at(long pos) throws IOException{
+        if(pos<windowStart || pos>=windowEnd){
+            if(pos>=size)
+                throw new IOException("premature end of file: "+systemID);
+            windowStart = pos;
+            windowEnd = Math.min(size, pos+WINDOW_SIZE);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd-windowStart);
+        }
+        return window.get((int)(pos-windowStart));
+    }
+
+    private long pos;
+    private int depth;
+    private long rootStart, rootEnd;
+
+    private boolean startsWith(String str) throws IOException{
+        for(int i=0; i<str.length(); i++){
+            if(pos+i>=size || at(pos+i)!=str.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private void skipPast(String str) throws IOException{
+        while(!startsWith(str))
+            at(pos++);
+        pos += str.length();
+    }
+
+    /** skips till '>' of current tag, and returns true if it is empty element tag */
+    private boolean skipTag() throws IOException{
+        byte prev = 0;
+        while(true){
+            byte b = at(pos++);
+            if(b=='"' || b=='\''){
+                while(at(pos++)!=b);
+            }else if(b=='>')
+                return prev=='/';
+            prev = b;
+        }
+    }
+
+    private void skipDeclaration() throws IOException{
+        int brackets = 0;
+        while(true){
+            if(startsWith("<!--")){
+                skipPast("-->");
+                continue;
+            }
+            byte b = at(pos++);
+            if(b=='"' || b=='\''){
+                while(at(pos++)!=b);
+            }else if(b=='[')
+                brackets++;
+            else if(b==']')
+                brackets--;
+            else if(b=='>' && brackets==0)
+                return;
+        }
+    }
+
+    private static final int BOUNDARY = 0;
+    private static final int ROOT_START = 1;
+    private static final int ROOT_END = 2;
+
+    /**
+     * scans till root element started or ended, or a child of root ended
+     */
+    private int scan() throws IOException{
+        while(true){
+            if(at(pos++)!='<')
+                continue;
+            long tagStart = pos-1;
+            byte b = at(pos);
+            if(b=='/'){
+                skipTag();
+                if(--depth==0){
+                    rootEnd = tagStart;
+                    return ROOT_END;
+                }else if(depth==1)
+                    return BOUNDARY;
+            }else if(b=='?')
+                skipPast("?>");
+            else if(b=='!'){
+                if(startsWith("!--"))
+                    skipPast("-->");
+                else if(startsWith("![CDATA["))
+                    skipPast("]]>");
+                else
+                    skipDeclaration();
+            }else{
+                boolean empty = skipTag();
+                if(depth==0){
+                    rootStart = tagStart;
+                    if(empty){
+                        rootEnd = pos;
+                        return ROOT_END;
+                    }
+                    depth++;
+                    return ROOT_START;
+                }else if(!empty)
+                    depth++;
+                else if(depth==1)
+                    return BOUNDARY;
+            }
+        }
+    }
+
+    private void scanProlog() throws IOException{
+        if(size>=2){
+            byte b0 = at(0), b1 = at(1);
+            if(b0==0 || b1==0 || (b0==(byte)0xFE && b1==(byte)0xFF) || (b0==(byte)0xFF && b1==(byte)0xFE))
+                throw new IOException("only ASCII compatible encodings can be split: "+systemID);
+        }
+        if(scan()==ROOT_END){
+            header = read(0, size);
+            footer = new byte[0];
+            chunkStart = -1;
+        }else{
+            header = read(0, pos);
+            long nameEnd = rootStart+1;
+            while(true){
+                byte b = at(nameEnd);
+                if(b==' ' || b=='\t' || b=='\r' || b=='\n' || b=='/' || b=='>')
+                    break;
+                nameEnd++;
+            }
+            byte name[] = read(rootStart+1, nameEnd);
+            footer = new byte[name.length+3];
+            footer[0] = '<';
+            footer[1] = '/';
+            System.arraycopy(name, 0, footer, 2, name.length);
+            footer[footer.length-1] = '>';
+            chunkStart = pos;
+        }
+    }
+
+    private byte[] read(long from, long to) throws IOException{
+        if(to-from>Integer.MAX_VALUE)
+            throw new IOException("too large to split: "+systemID);
+        byte bytes[] = new byte[(int)(to-from)];
+        for(int i=0; i<bytes.length; i++)
+            bytes[i] = at(from+i);
+        return bytes;
+    }
+
+    /*-------------------------------------------------[ Chunks ]---------------------------------------------------*/
+
+    private long chunkStart;
+    private int chunkCount;
+
+    /**
+     * Complete document containing a run of children of root.
+     * The region of file is mapped only when the chunk is read.
+     */
+    public final class Chunk extends ChannelInputSource implements ReadableByteChannel{
+        public final int index;
+        public final long start, end;
+        public final boolean first, last;
+
+        private ByteBuffer buffers[];
+        private int current;
+
+        private Chunk(int index, long start, long end, boolean first, boolean last){
+            super(systemID);
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.first = first;
+            this.last = last;
+            setChannel(this);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException{
+            if(buffers==null){
+                if(end-start>Integer.MAX_VALUE)
+                    throw new IOException("record too large to split: "+systemID+" ["+start+", "+end+")");
+                buffers = new ByteBuffer[]{
+                    ByteBuffer.wrap(header),
+                    start==end ? ByteBuffer.allocate(0) : channel.map(FileChannel.MapMode.READ_ONLY, start, end-start),
+                    last ? ByteBuffer.allocate(0) : ByteBuffer.wrap(footer)
+                };
+            }
+            int read = 0;
+            while(current<buffers.length && dst.hasRemaining()){
+                ByteBuffer buffer = buffers[current];
+                if(!buffer.hasRemaining()){
+                    current++;
+                    continue;
+                }
+                int count = Math.min(buffer.remaining(), dst.remaining());
+                int limit = buffer.limit();
+                buffer.limit(buffer.position()+count);
+                dst.put(buffer);
+                buffer.limit(limit);
+                read += count;
+            }
+            return read==0 && current==buffers.length ? -1 : read;
+        }
+
+        @Override
+        public boolean isOpen(){
+            return buffers==null || current<buffers.length;
+        }
+
+        @Override
+        public void close(){
+            if(buffers!=null)
+                current = buffers.length;
+        }
+
+        @Override
+        public String toString(){
+            return "chunk#"+index+"["+start+", "+end+")";
+        }
+    }
+
+    /**
+     * Returns chunks lazily, scanning the file only as far as
+     * required for the next chunk. Can be iterated only once.
+     */
+    @Override
+    public Iterator<Chunk> iterator(){
+        return new Iterator<Chunk>(){
+            @Override
+            public boolean hasNext(){
+                return chunkStart!=-2;
+            }
+
+            @Override
+            public Chunk next(){
+                if(chunkStart==-2)
+                    throw new NoSuchElementException();
+                if(chunkStart==-1){ // root is empty element
+                    chunkStart = -2;
+                    return new Chunk(chunkCount++, 0, 0, true, true);
+                }
+                try{
+                    long from = chunkStart;
+                    boolean first = from==header.length;
+                    while(true){
+                        if(scan()==ROOT_END){
+                            chunkStart = -2;
+                            return new Chunk(chunkCount++, from, size, first, true);
+                        }else if(pos-from>=chunkSize){
+                            chunkStart = pos;
+                            return new Chunk(chunkCount++, from, pos, first, false);
+                        }
+                    }
+                }catch(IOException ex){
+                    chunkStart = -2;
+                    throw new RuntimeException(ex);
+                }
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /*-------------------------------------------------[ Parallel Parsing ]---------------------------------------------------*/
+
+    private int maxPending = 2*Runtime.getRuntime().availableProcessors();
+
+    public int getMaxPending(){
+        return maxPending;
+    }
+
+    /**
+     * maximum number of chunks parsed ahead of the chunk being delivered.
+     * Events of these chunks are held in memory.
+     */
+    public void setMaxPending(int maxPending){
+        if(maxPending<1)
+            throw new IllegalArgumentException("maxPending must be positive: "+maxPending);
+        this.maxPending = maxPending;
+    }
+
+    private final ThreadLocal<AsyncXMLReader> readers = new ThreadLocal<AsyncXMLReader>();
+
+    /**
+     * Parses chunks concurrently using given executor, with one
+     * {@link AsyncXMLReader} per worker thread, and delivers the events
+     * to given handler in document order, in the calling thread.
+     * The handler sees the events of the whole file, as if it is
+     * parsed sequentially. If the handler implements {@link LexicalHandler},
+     * lexical events are delivered as well.
+     */
+    public void parse(ContentHandler handler, Executor executor) throws IOException, SAXException{
+        LexicalHandler lexicalHandler = handler instanceof LexicalHandler ? (LexicalHandler)handler : null;
+        Iterator<Chunk> chunks = iterator();
+        ArrayDeque<FutureTask<Recording>> pending = new ArrayDeque<FutureTask<Recording>>();
+        try{
+            while(true){
+                while(pending.size()<maxPending && chunks.hasNext()){
+                    final Chunk chunk;
+                    try{
+                        chunk = chunks.next();
+                    }catch(RuntimeException ex){
+                        if(ex.getCause() instanceof IOException)
+                            throw (IOException)ex.getCause();
+                        throw ex;
+                    }
+                    FutureTask<Recording> future = new FutureTask<Recording>(new Callable<Recording>(){
+                        @Override
+                        public Recording call() throws Exception{
+                            return record(chunk);
+                        }
+                    });
+                    executor.execute(future);
+                    pending.add(future);
+                }
+                if(pending.isEmpty())
+                    break;
+
+                Recording recording;
+                try{
+                    recording = pending.remove().get();
+                }catch(InterruptedException ex){
+                    throw new IOException(ex);
+                }catch(ExecutionException ex){
+                    Throwable cause = ex.getCause();
+                    if(cause instanceof IOException)
+                        throw (IOException)cause;
+                    else if(cause instanceof SAXException)
+                        throw (SAXException)cause;
+                    else if(cause instanceof RuntimeException)
+                        throw (RuntimeException)cause;
+                    else
+                        throw new SAXException((Exception)cause);
+                }
+                recording.replay(handler, lexicalHandler);
+            }
+        }finally{
+            for(FutureTask<Recording> future: pending)
+                future.cancel(true);
+        }
+    }
+
+    private Recording record(Chunk chunk) throws IOException, SAXException{
+        AsyncXMLReader reader = readers.get();
+        if(reader==null)
+            readers.set(reader=new AsyncXMLReader());
+        Recording recording = new Recording(chunk);
+        reader.setContentHandler(recording);
+        reader.setProperty(SAXProperties.LEXICAL_HANDLER, recording);
+        try{
+            reader.parse(chunk);
+        }catch(IOException ex){
+            readers.remove(); // parser state might be corrupted
+            throw ex;
+        }catch(SAXException ex){
+            readers.remove();
+            throw ex;
+        }finally{
+            reader.setContentHandler(null);
+            reader.setProperty(SAXProperties.LEXICAL_HANDLER, null);
+        }
+        return recording;
+    }
+
+    /*-------------------------------------------------[ Recording ]---------------------------------------------------*/
+
+    private static final int START_DOCUMENT = 0;
+    private static final int END_DOCUMENT = 1;
+    private static final int START_PREFIX_MAPPING = 2;
+    private static final int END_PREFIX_MAPPING = 3;
+    private static final int START_ELEMENT = 4;
+    private static final int END_ELEMENT = 5;
+    private static final int CHARACTERS = 6;
+    private static final int IGNORABLE_WHITESPACE = 7;
+    private static final int PROCESSING_INSTRUCTION = 8;
+    private static final int SKIPPED_ENTITY = 9;
+    private static final int START_DTD = 10;
+    private static final int END_DTD = 11;
+    private static final int START_ENTITY = 12;
+    private static final int END_ENTITY = 13;
+    private static final int START_CDATA = 14;
+    private static final int END_CDATA = 15;
+    private static final int COMMENT = 16;
+
+    /**
+     * SAX events of a chunk. Event codes and char ranges are stored in
+     * an int array, and their strings in an object array.
+     */
+    private static final class Recording implements ContentHandler, LexicalHandler{
+        private final Chunk chunk;
+        private int ints[] = new int[256];
+        private int intCount;
+        private final ArrayList<Object> objects = new ArrayList<Object>();
+        private char chars[] = new char[1024];
+        private int charCount;
+
+        private int depth;
+        private int rootStartInt, rootStartObject;
+        private int rootEndInt;
+
+        Recording(Chunk chunk){
+            this.chunk = chunk;
+        }
+
+        private void add(int value){
+            if(intCount==ints.length)
+                ints = Arrays.copyOf(ints, 2*intCount);
+            ints[intCount++] = value;
+        }
+
+        private void add(int event, char ch[], int start, int length){
+            add(event);
+            if(charCount+length>chars.length)
+                chars = Arrays.copyOf(chars, Math.max(charCount+length, 2*chars.length));
+            System.arraycopy(ch, start, chars, charCount, length);
+            add(charCount);
+            add(length);
+            charCount += length;
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator){}
+
+        @Override
+        public void startDocument(){
+            add(START_DOCUMENT);
+        }
+
+        @Override
+        public void endDocument(){
+            add(END_DOCUMENT);
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri){
+            add(START_PREFIX_MAPPING);
+            objects.add(prefix);
+            objects.add(uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix){
+            add(END_PREFIX_MAPPING);
+            objects.add(prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts){
+            add(START_ELEMENT);
+            objects.add(uri);
+            objects.add(localName);
+            objects.add(qName);
+            objects.add(atts.getLength()==0 ? EMPTY_ATTRIBUTES : new AttributesImpl(atts));
+            if(depth++==0){
+                rootStartInt = intCount;
+                rootStartObject = objects.size();
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName){
+            if(--depth==0){
+                rootEndInt = intCount;
+            }
+            add(END_ELEMENT);
+            objects.add(uri);
+            objects.add(localName);
+            objects.add(qName);
+        }
+
+        @Override
+        public void characters(char ch[], int start, int length){
+            add(CHARACTERS, ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char ch[], int start, int length){
+            add(IGNORABLE_WHITESPACE, ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data){
+            add(PROCESSING_INSTRUCTION);
+            objects.add(target);
+            objects.add(data);
+        }
+
+        @Override
+        public void skippedEntity(String name){
+            add(SKIPPED_ENTITY);
+            objects.add(name);
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId){
+            add(START_DTD);
+            objects.add(name);
+            objects.add(publicId);
+            objects.add(systemId);
+        }
+
+        @Override
+        public void endDTD(){
+            add(END_DTD);
+        }
+
+        @Override
+        public void startEntity(String name){
+            add(START_ENTITY);
+            objects.add(name);
+        }
+
+        @Override
+        public void endEntity(String name){
+            add(END_ENTITY);
+            objects.add(name);
+        }
+
+        @Override
+        public void startCDATA(){
+            add(START_CDATA);
+        }
+
+        @Override
+        public void endCDATA(){
+            add(END_CDATA);
+        }
+
+        @Override
+        public void comment(char ch[], int start, int length){
+            add(COMMENT, ch, start, length);
+        }
+
+        /**
+         * replays the events of this chunk. Events outside root element
+         * are replayed only from first and last chunk.
+         */
+        void replay(ContentHandler handler, LexicalHandler lexicalHandler) throws SAXException{
+            int i = 0, o = 0;
+            if(!chunk.first){
+                i = rootStartInt;
+                o = rootStartObject;
+            }
+            int intEnd = chunk.last ? intCount : rootEndInt;
+            while(i<intEnd){
+                switch(ints[i++]){
+                    case START_DOCUMENT:
+                        handler.startDocument();
+                        break;
+                    case END_DOCUMENT:
+                        handler.endDocument();
+                        break;
+                    case START_PREFIX_MAPPING:
+                        handler.startPrefixMapping((String)objects.get(o++), (String)objects.get(o++));
+                        break;
+                    case END_PREFIX_MAPPING:
+                        handler.endPrefixMapping((String)objects.get(o++));
+                        break;
+                    case START_ELEMENT:
+                        handler.startElement((String)objects.get(o++), (String)objects.get(o++), (String)objects.get(o++), (Attributes)objects.get(o++));
+                        break;
+                    case END_ELEMENT:
+                        handler.endElement((String)objects.get(o++), (String)objects.get(o++), (String)objects.get(o++));
+                        break;
+                    case CHARACTERS:
+                        handler.characters(chars, ints[i++], ints[i++]);
+                        break;
+                    case IGNORABLE_WHITESPACE:
+                        handler.ignorableWhitespace(chars, ints[i++], ints[i++]);
+                        break;
+                    case PROCESSING_INSTRUCTION:
+                        handler.processingInstruction((String)objects.get(o++), (String)objects.get(o++));
+                        break;
+                    case SKIPPED_ENTITY:
+                        handler.skippedEntity((String)objects.get(o++));
+                        break;
+                    case START_DTD:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.startDTD((String)objects.get(o), (String)objects.get(o+1), (String)objects.get(o+2));
+                        o += 3;
+                        break;
+                    case END_DTD:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.endDTD();
+                        break;
+                    case START_ENTITY:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.startEntity((String)objects.get(o));
+                        o++;
+                        break;
+                    case END_ENTITY:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.endEntity((String)objects.get(o));
+                        o++;
+                        break;
+                    case START_CDATA:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.startCDATA();
+                        break;
+                    case END_CDATA:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.endCDATA();
+                        break;
+                    case COMMENT:
+                        if(lexicalHandler!=null)
+                            lexicalHandler.comment(chars, ints[i], ints[i+1]);
+                        i += 2;
+                        break;
+                }
+            }
+        }
+    }
+
+    private static final Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
+}
@@ -199,7 +199,10 @@ public class XMLFeeder extends Feeder{
                             iProlog++;
                             if(iProlog==6){
                                 charBuffer.append("<?xml ");
-                                for(i=0; i<MAX_PROLOG_LENGTH; i++){
+                                // chars read beyond "<?xml " belong to prolog
+                                while(++i<read)
+                                    charBuffer.append(chars[i]);
+                                for(i=charBuffer.position(); i<MAX_PROLOG_LENGTH; i++){
                                     singleChar.clear();
                                     read = channel.read(singleChar);
                                     if(read==1){
@@ -242,6 +245,11 @@ public class XMLFeeder extends Feeder{
                 else
                     prologParser.consume(singleChar.array(), 0, 1, false);
             }
+            if(prologParser!=null){
+                // location was copied in middle of consuming prolog
+                parser.setLocation(prologParser);
+                prologParser = null;
+            }
         }
         return super.read();
     }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.nbp.ParserStats;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+
+import static jlibs.xml.sax.SAXFeatures.TRACK_LOCATION;
+import static jlibs.xml.sax.SAXProperties.DECL_HANDLER;
+import static jlibs.xml.sax.SAXProperties.LEXICAL_HANDLER;
+import static org.testng.Assert.*;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class AsyncXMLReaderPoolTest{
+    @Test(description="released reader is borrowed again with default settings")
+    public void reuse() throws Exception{
+        AsyncXMLReader defaults = new AsyncXMLReader();
+        AsyncXMLReaderPool pool = new AsyncXMLReaderPool(1);
+
+        AsyncXMLReader reader = pool.borrow();
+        DefaultHandler2 handler = new DefaultHandler2();
+        reader.setContentHandler(handler);
+        reader.setErrorHandler(handler);
+        reader.setDTDHandler(handler);
+        reader.setEntityResolver(handler);
+        reader.setProperty(LEXICAL_HANDLER, handler);
+        reader.setProperty(DECL_HANDLER, handler);
+        reader.setFeature(TRACK_LOCATION, false);
+        reader.setStrict(true);
+        reader.setQNamePoolLimit(10);
+        reader.setInternValueLength(16);
+        reader.setParserStats(new ParserStats(XMLScanner.class));
+        reader.setDTDCache(new DTDCache(4));
+        reader.parse(new InputSource(new StringReader("<r a='1'/>")));
+        pool.release(reader);
+        assertEquals(pool.idleCount(), 1);
+
+        AsyncXMLReader reused = pool.borrow();
+        assertSame(reused, reader);
+        assertEquals(pool.idleCount(), 0);
+        assertNull(reused.getContentHandler());
+        assertNull(reused.getErrorHandler());
+        assertNull(reused.getDTDHandler());
+        assertNull(reused.getEntityResolver());
+        assertNull(reused.getProperty(LEXICAL_HANDLER));
+        assertNull(reused.getProperty(DECL_HANDLER));
+        assertEquals(reused.getFeature(TRACK_LOCATION), defaults.getFeature(TRACK_LOCATION));
+        assertEquals(reused.isStrict(), defaults.isStrict());
+        assertEquals(reused.getQNamePoolLimit(), defaults.getQNamePoolLimit());
+        assertEquals(reused.getInternValueLength(), defaults.getInternValueLength());
+        assertNull(reused.getParserStats());
+        assertNull(reused.getDTDCache());
+
+        // reset reader still parses
+        final int count[] = new int[1];
+        reused.setContentHandler(new DefaultHandler(){
+            @Override
+            public void endElement(String uri, String localName, String qName){
+                count[0]++;
+            }
+        });
+        reused.parse(new InputSource(new StringReader("<r><a/></r>")));
+        assertEquals(count[0], 2);
+        pool.release(reused);
+    }
+
+    @Test(description="readers beyond maxIdle are dropped")
+    public void maxIdle(){
+        AsyncXMLReaderPool pool = new AsyncXMLReaderPool(1);
+        AsyncXMLReader first = pool.borrow();
+        AsyncXMLReader second = pool.borrow();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(pool.idleCount(), 1);
+        assertSame(pool.borrow(), first);
+    }
+}
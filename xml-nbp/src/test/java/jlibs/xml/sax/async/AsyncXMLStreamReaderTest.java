@@ -0,0 +1,150 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import org.testng.annotations.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Compares events of {@link AsyncXMLStreamReader} with those of JDK's
+ * StAX reader, feeding input in chunks of various sizes.
+ *
+ * @author Santhosh Kumar T
+ */
+public class AsyncXMLStreamReaderTest{
+    private static final String DOCUMENTS[] = {
+        "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            +"<root xmlns=\"urn:a\" xmlns:p=\"urn:p\" a=\"1\" p:b=\"2\">\n"
+            +"  <p:child>text &amp; more<![CDATA[<cdata>]]>&#65;</p:child>\n"
+            +"  <!--comment--><?pi some data?><empty/>\n"
+            +"</root>",
+        "<root>no declaration</root>",
+        "<?xml version='1.0' standalone='no'?>\n"
+            +"<!DOCTYPE root [<!ENTITY e \"entity value\">]>\n"
+            +"<root attr='&e;'>&e; and <x:child xmlns:x='urn:x'>&lt;&gt;</x:child></root>",
+        "<?xml version='1.0' encoding='UTF-8'?><r>h\u00e9llo \u4e16\u754c<s>\uD835\uDC00</s></r>",
+    };
+
+    private static final int CHUNK_SIZES[] = { 1, 2, 3, 7, 64, Integer.MAX_VALUE };
+
+    @Test(description="events and xml declaration match JDK StAX reader")
+    public void compareWithJDK() throws Exception{
+        for(String document: DOCUMENTS){
+            byte bytes[] = document.getBytes("UTF-8");
+            List<String> expected = events(XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(bytes)), null, 0);
+            for(int chunkSize: CHUNK_SIZES)
+                assertEquals(events(new AsyncXMLStreamReader(), bytes, chunkSize), expected, "chunkSize="+chunkSize+" document="+document);
+        }
+    }
+
+    @Test(description="EVENT_INCOMPLETE is returned till more input is fed")
+    public void incomplete() throws Exception{
+        AsyncXMLStreamReader reader = new AsyncXMLStreamReader();
+        assertEquals(reader.next(), AsyncXMLStreamReader.EVENT_INCOMPLETE);
+        assertEquals(reader.next(), AsyncXMLStreamReader.EVENT_INCOMPLETE);
+        assertTrue(reader.needsInput());
+        reader.feed(ByteBuffer.wrap("<root/>".getBytes("UTF-8")));
+        reader.endOfInput();
+        assertEquals(reader.next(), XMLStreamConstants.START_ELEMENT);
+        assertEquals(reader.next(), XMLStreamConstants.END_ELEMENT);
+        assertEquals(reader.next(), XMLStreamConstants.END_DOCUMENT);
+    }
+
+    /**
+     * returns events of reader in textual form. Adjacent text events are
+     * merged, because readers are free to split text differently.
+     * If bytes is not null, they are fed in chunks of given size.
+     */
+    private static List<String> events(XMLStreamReader reader, byte bytes[], int chunkSize) throws Exception{
+        AsyncXMLStreamReader asyncReader = bytes==null ? null : (AsyncXMLStreamReader)reader;
+        int fed = 0;
+
+        List<String> events = new ArrayList<String>();
+        StringBuilder text = null;
+        boolean declaration = false;
+        while(reader.hasNext()){
+            int event = reader.next();
+            if(event==AsyncXMLStreamReader.EVENT_INCOMPLETE){
+                if(fed==bytes.length)
+                    asyncReader.endOfInput();
+                else{
+                    int length = Math.min(chunkSize, bytes.length-fed);
+                    asyncReader.feed(ByteBuffer.wrap(bytes, fed, length));
+                    fed += length;
+                }
+                continue;
+            }
+            if(!declaration){
+                events.add("version="+reader.getVersion()+" encoding="+reader.getCharacterEncodingScheme()
+                        +" standaloneSet="+reader.standaloneSet()+" standalone="+reader.isStandalone());
+                declaration = true;
+            }
+
+            if(event==XMLStreamConstants.CHARACTERS || event==XMLStreamConstants.CDATA || event==XMLStreamConstants.SPACE){
+                if(text==null)
+                    text = new StringBuilder();
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                continue;
+            }
+            if(text!=null){
+                events.add("TEXT "+text);
+                text = null;
+            }
+            switch(event){
+                case XMLStreamConstants.START_ELEMENT:
+                    StringBuilder buff = new StringBuilder("START ").append(reader.getName());
+                    TreeSet<String> attributes = new TreeSet<String>();
+                    for(int i=0; i<reader.getAttributeCount(); i++)
+                        attributes.add(reader.getAttributeName(i)+"="+reader.getAttributeValue(i));
+                    buff.append(" attributes").append(attributes);
+                    TreeSet<String> namespaces = new TreeSet<String>();
+                    for(int i=0; i<reader.getNamespaceCount(); i++)
+                        namespaces.add(reader.getNamespacePrefix(i)+"="+reader.getNamespaceURI(i));
+                    buff.append(" namespaces").append(namespaces);
+                    buff.append(" p=").append(reader.getNamespaceURI("p"));
+                    events.add(buff.toString());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    events.add("END "+reader.getName()+" "+reader.getNamespaceCount());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    events.add("COMMENT "+reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    events.add("PI "+reader.getPITarget()+" "+reader.getPIData());
+                    break;
+                case XMLStreamConstants.DTD:
+                    events.add("DTD");
+                    break;
+                default:
+                    events.add("EVENT "+event);
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class DTDCacheTest{
+    private static final String XML = "<!DOCTYPE root SYSTEM 'http://example.com/root.dtd'><root/>";
+
+    private static EntityResolver resolver(final String defaultValue){
+        return new EntityResolver(){
+            @Override
+            public InputSource resolveEntity(String publicId, String systemId){
+                return new InputSource(new StringReader("<!ATTLIST root a CDATA '"+defaultValue+"'>"));
+            }
+        };
+    }
+
+    private static String parse(DTDCache cache, EntityResolver resolver) throws Exception{
+        final String value[] = new String[1];
+        AsyncXMLReader reader = new AsyncXMLReader();
+        reader.setDTDCache(cache);
+        reader.setEntityResolver(resolver);
+        reader.setContentHandler(new DefaultHandler(){
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attrs){
+                value[0] = attrs.getValue("a");
+            }
+        });
+        reader.parse(new InputSource(new StringReader(XML)));
+        return value[0];
+    }
+
+    @Test(description="same resolver shares cached DTD")
+    public void sameResolver() throws Exception{
+        DTDCache cache = new DTDCache(10);
+        EntityResolver resolver = resolver("1");
+        assertEquals(parse(cache, resolver), "1");
+        assertEquals(parse(cache, resolver), "1");
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test(description="different resolvers may resolve same ids to different DTDs")
+    public void differentResolvers() throws Exception{
+        DTDCache cache = new DTDCache(10);
+        assertEquals(parse(cache, resolver("1")), "1");
+        assertEquals(parse(cache, resolver("2")), "2");
+        assertEquals(cache.size(), 2);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.nbp.ParserStats;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class ParserStatsTest{
+    private static final String XML = "<?xml version='1.0'?>\n"
+            +"<root a='1'><!--comment--><x b='2'/>text<?pi data?><x b='3'>&amp;</x></root>";
+
+    private static void parse(ParserStats stats) throws Exception{
+        AsyncXMLReader reader = new AsyncXMLReader();
+        reader.setParserStats(stats);
+        reader.setContentHandler(new DefaultHandler());
+        reader.parse(new InputSource(new StringReader(XML)));
+    }
+
+    @Test(description="rule calls and times are recorded when stats are set")
+    public void ruleCalls() throws Exception{
+        ParserStats total = new ParserStats(XMLScanner.class);
+        parse(new ParserStats(total));
+
+        Map<String, Long> calls = total.getRuleCalls();
+        assertTrue(!calls.isEmpty(), "no rule calls recorded");
+        assertEquals(total.ruleCalls(XMLScanner.RULE_XDECL), 1L);
+        assertEquals(total.ruleCalls(XMLScanner.RULE_COMMENT), 1L);
+        assertEquals(total.ruleCalls(XMLScanner.RULE_PI), 1L);
+        assertEquals(total.getRuleTimes().keySet(), calls.keySet());
+        assertTrue(total.getChunks()>0);
+        assertEquals(total.getCharacters(), (long)XML.length());
+    }
+
+    @Test(description="each parse is added to the parent")
+    public void aggregate() throws Exception{
+        ParserStats total = new ParserStats(XMLScanner.class);
+        ParserStats stats = new ParserStats(total);
+        parse(stats);
+        long comments = total.ruleCalls(XMLScanner.RULE_COMMENT);
+        parse(stats);
+        assertEquals(total.ruleCalls(XMLScanner.RULE_COMMENT), 2*comments);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.xml.sax.SAXUtil;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests namespace uris cached in pooled qnames, and interned attribute values.
+ *
+ * @author Santhosh Kumar T
+ */
+public class QNamePoolTest{
+    // same qnames re-bound to different uris in sibling and nested scopes
+    private static final String NAMESPACES = "<p:r xmlns:p='urn:1' p:x='0'>"
+            +"<p:a p:x='1'/>"
+            +"<p:a xmlns:p='urn:2' p:x='2'><p:b p:x='3'><p:a/></p:b></p:a>"
+            +"<p:a p:x='4'/>"
+            +"<p:a xmlns:p='urn:3' p:x='5'/>"
+            +"<q:a xmlns:q='urn:1' xmlns:p='urn:4' p:x='6'><p:a q:x='7'><p:a xmlns:p='urn:1' p:x='8'/></p:a></q:a>"
+            +"<a xmlns='urn:5'><a xmlns=''><a/></a><a xmlns='urn:6'/><a/></a>"
+            +"<p:a p:x='9'/><a/>"
+            +"</p:r>";
+
+    private static List<String> events(XMLReader reader, String xml) throws Exception{
+        final List<String> events = new ArrayList<String>();
+        reader.setContentHandler(new DefaultHandler(){
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attrs){
+                events.add("<"+qName+" {"+uri+"}"+localName);
+                for(int i=0; i<attrs.getLength(); i++){
+                    if(!attrs.getQName(i).startsWith("xmlns"))
+                        events.add("@"+attrs.getQName(i)+" {"+attrs.getURI(i)+"}"+attrs.getLocalName(i)+"="+attrs.getValue(i));
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName){
+                events.add("</"+qName+" {"+uri+"}"+localName);
+            }
+        });
+        reader.parse(new InputSource(new StringReader(xml)));
+        return events;
+    }
+
+    private static XMLReader jdkReader() throws Exception{
+        return SAXUtil.newSAXFactory(true, false, false).newSAXParser().getXMLReader();
+    }
+
+    @Test(description="prefixes re-bound in sibling and nested scopes, and across documents")
+    public void rebinding() throws Exception{
+        AsyncXMLReader reader = new AsyncXMLReader();
+        assertEquals(events(reader, NAMESPACES), events(jdkReader(), NAMESPACES));
+
+        // same reader, same qnames bound to other uris
+        String xml = NAMESPACES.replace("urn:1", "urn:9").replace("urn:5", "urn:1");
+        assertEquals(events(reader, xml), events(jdkReader(), xml));
+        assertEquals(events(reader, NAMESPACES), events(jdkReader(), NAMESPACES));
+    }
+
+    private static List<String> values(AsyncXMLReader reader, String xml) throws Exception{
+        final List<String> values = new ArrayList<String>();
+        reader.setContentHandler(new DefaultHandler(){
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attrs){
+                for(int i=0; i<attrs.getLength(); i++)
+                    values.add(attrs.getValue(i));
+            }
+        });
+        reader.parse(new InputSource(new StringReader(xml)));
+        return values;
+    }
+
+    private static final String VALUES = "<r><e a='ab' b='abcd' c='abcde'/><e a='ab' b='abcd' c='abcde'/></r>";
+
+    @Test(description="values interned only upto internValueLength")
+    public void internValues() throws Exception{
+        AsyncXMLReader reader = new AsyncXMLReader();
+        List<String> values = values(reader, VALUES);
+        assertEquals(values.size(), 6);
+        for(int i=0; i<3; i++){
+            assertEquals(values.get(i+3), values.get(i));
+            assertNotSame(values.get(i+3), values.get(i), "not interned by default");
+        }
+
+        reader.setInternValueLength(4);
+        List<String> first = values(reader, VALUES);
+        List<String> second = values(reader, VALUES);
+        assertEquals(first, values);
+        assertEquals(second, values);
+        for(List<String> list: Arrays.asList(first, second)){
+            assertSame(list.get(0), first.get(0));
+            assertSame(list.get(1), first.get(1));
+            assertSame(list.get(3), first.get(0));
+            assertSame(list.get(4), first.get(1));
+        }
+        assertNotSame(first.get(5), first.get(2), "longer than internValueLength");
+        assertNotSame(second.get(2), first.get(2), "longer than internValueLength");
+    }
+
+    @Test(description="values not interned once pool exceeds qnamePoolLimit, until next document")
+    public void internLimit() throws Exception{
+        AsyncXMLReader reader = new AsyncXMLReader();
+        reader.setInternValueLength(4);
+        reader.setQNamePoolLimit(2);
+        String xml = "<r><e a='1' b='1' c='2' d='3' e='3'/></r>";
+        List<String> first = values(reader, xml);
+        assertSame(first.get(1), first.get(0));
+        assertEquals(first.get(4), first.get(3));
+        assertNotSame(first.get(4), first.get(3), "pool exceeded limit");
+
+        // pool exceeding limit is cleared on next document
+        List<String> second = values(reader, xml);
+        assertEquals(second, first);
+        assertSame(second.get(1), second.get(0));
+        assertNotSame(second.get(0), first.get(0));
+        assertNotSame(second.get(4), second.get(3));
+    }
+}
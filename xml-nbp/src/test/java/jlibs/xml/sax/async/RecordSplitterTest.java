@@ -0,0 +1,227 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.xml.sax.SAXProperties;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.ext.DefaultHandler2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Checks that parsing chunks in parallel delivers the same events as
+ * parsing the whole file sequentially.
+ *
+ * @author Santhosh Kumar T
+ */
+public class RecordSplitterTest{
+    private static final int CHUNK_SIZES[] = { 1, 50, 333, 4096, Integer.MAX_VALUE };
+
+    @Test(description="records of random sizes, many of them larger than chunk size")
+    public void records() throws Exception{
+        Random random = new Random(1);
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<!-- before <records> -->\n");
+        xml.append("<!DOCTYPE records [<!ENTITY e \"entity\"> <!-- ]> -->]>\n");
+        xml.append("<records xmlns=\"urn:r\" xmlns:x=\"urn:x\" count='200'>\n");
+        for(int i=0; i<200; i++){
+            switch(random.nextInt(6)){
+                case 0:
+                    xml.append("<record id='").append(i).append("'/>");
+                    break;
+                case 1:
+                    xml.append("<record id=\"").append(i).append("\" note=\"a>b/>\"><!-- </record> --></record>");
+                    break;
+                case 2:
+                    xml.append("<record id='").append(i).append("'><![CDATA[</record><record>]]><?pi <x/>?></record>");
+                    break;
+                default:
+                    xml.append("<record id='").append(i).append("'>");
+                    int children = random.nextInt(50);
+                    for(int j=0; j<children; j++)
+                        xml.append("<x:value n='").append(j).append("'>text &e; &amp; h\u00e9llo ").append(j).append("</x:value>");
+                    xml.append("<empty/></record>");
+            }
+            xml.append(random.nextBoolean() ? "\n" : "");
+        }
+        xml.append("</records>\n<!-- after -->\n");
+        assertSameEvents(xml.toString());
+    }
+
+    @Test(description="root without records")
+    public void noRecords() throws Exception{
+        assertSameEvents("<?xml version='1.0'?><root a='1'/>");
+        assertSameEvents("<root a='1'></root>");
+        assertSameEvents("<root>text only</root>");
+    }
+
+    private static void assertSameEvents(String xml) throws Exception{
+        File file = File.createTempFile("records", ".xml");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            OutputStream out = new FileOutputStream(file);
+            try{
+                out.write(xml.getBytes("UTF-8"));
+            }finally{
+                out.close();
+            }
+
+            Recorder sequential = new Recorder();
+            AsyncXMLReader reader = new AsyncXMLReader();
+            reader.setContentHandler(sequential);
+            reader.setProperty(SAXProperties.LEXICAL_HANDLER, sequential);
+            reader.parse(new InputSource(file.toURI().toString()));
+
+            for(int chunkSize: CHUNK_SIZES){
+                if(chunkSize<file.length() && xml.contains("<record"))
+                    assertTrue(countChunks(file, chunkSize)>1, "file is not split with chunkSize "+chunkSize);
+                Recorder parallel = new Recorder();
+                RecordSplitter splitter = new RecordSplitter(file, chunkSize);
+                try{
+                    splitter.setMaxPending(3);
+                    splitter.parse(parallel, executor);
+                }finally{
+                    splitter.close();
+                }
+                assertEquals(parallel.events, sequential.events, "chunkSize="+chunkSize);
+            }
+        }finally{
+            executor.shutdown();
+            if(!file.delete())
+                file.deleteOnExit();
+        }
+    }
+
+    private static int countChunks(File file, int chunkSize) throws IOException{
+        RecordSplitter splitter = new RecordSplitter(file, chunkSize);
+        try{
+            int count = 0;
+            for(Iterator<RecordSplitter.Chunk> iter=splitter.iterator(); iter.hasNext(); iter.next())
+                count++;
+            return count;
+        }finally{
+            splitter.close();
+        }
+    }
+
+    /** records events in textual form, merging adjacent characters */
+    private static class Recorder extends DefaultHandler2{
+        final List<String> events = new ArrayList<String>();
+        private final StringBuilder text = new StringBuilder();
+
+        private void add(String event){
+            if(text.length()>0){
+                events.add("characters "+text);
+                text.setLength(0);
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void startDocument(){
+            add("startDocument");
+        }
+
+        @Override
+        public void endDocument(){
+            add("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri){
+            add("startPrefixMapping "+prefix+"="+uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix){
+            add("endPrefixMapping "+prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs){
+            StringBuilder buff = new StringBuilder("startElement {").append(uri).append('}').append(localName).append(' ').append(qName);
+            for(int i=0; i<attrs.getLength(); i++)
+                buff.append(' ').append(attrs.getQName(i)).append('=').append(attrs.getValue(i));
+            add(buff.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName){
+            add("endElement {"+uri+'}'+localName+' '+qName);
+        }
+
+        @Override
+        public void characters(char ch[], int start, int length){
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data){
+            add("processingInstruction "+target+' '+data);
+        }
+
+        @Override
+        public void comment(char ch[], int start, int length){
+            add("comment "+new String(ch, start, length));
+        }
+
+        @Override
+        public void startCDATA(){
+            add("startCDATA");
+        }
+
+        @Override
+        public void endCDATA(){
+            add("endCDATA");
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId){
+            add("startDTD "+name);
+        }
+
+        @Override
+        public void endDTD(){
+            add("endDTD");
+        }
+
+        @Override
+        public void startEntity(String name){
+            add("startEntity "+name);
+        }
+
+        @Override
+        public void endEntity(String name){
+            add("endEntity "+name);
+        }
+    }
+}
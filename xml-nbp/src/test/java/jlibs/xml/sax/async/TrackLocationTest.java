@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.async;
+
+import jlibs.xml.sax.SAXFeatures;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Checks that column numbers reported with location tracking turned off
+ * match those reported with tracking on, when input arrives in small chunks.
+ *
+ * @author Santhosh Kumar T
+ */
+public class TrackLocationTest{
+    private static final String XML = "<?xml version='1.0'?>\n"
+            +"<root>\r\n"
+            +"  <a attr='1'>text</a><b/>\r"
+            +"\t<c>long line with no newline for a while, spanning several chunks</c><d/>\n"
+            +"\n"
+            +"<e>x\ny</e></root>";
+
+    private static final int CHUNK_SIZES[] = { 1, 2, 3, 5, 16, 8192 };
+
+    @Test(description="columns without location tracking match columns with tracking")
+    public void columns() throws Exception{
+        for(int chunkSize: CHUNK_SIZES){
+            List<String> tracked = locations(true, chunkSize);
+            List<String> untracked = locations(false, chunkSize);
+            assertEquals(untracked.size(), tracked.size());
+            for(int i=0; i<tracked.size(); i++){
+                String expected = tracked.get(i);
+                String actual = untracked.get(i);
+                assertEquals(actual.substring(actual.indexOf(' ')), expected.substring(expected.indexOf(' ')), "chunkSize="+chunkSize);
+                assertFalse(expected.startsWith("-1 "), "chunkSize="+chunkSize);
+                assertEquals(actual.substring(0, actual.indexOf(' ')), "-1", "chunkSize="+chunkSize);
+            }
+        }
+    }
+
+    /** returns "line column event" at each element start and end */
+    private static List<String> locations(boolean trackLocation, final int chunkSize) throws Exception{
+        final List<String> locations = new ArrayList<String>();
+        AsyncXMLReader reader = new AsyncXMLReader();
+        reader.setFeature(SAXFeatures.TRACK_LOCATION, trackLocation);
+        assertEquals(reader.getFeature(SAXFeatures.TRACK_LOCATION), trackLocation);
+        reader.setContentHandler(new DefaultHandler(){
+            private Locator locator;
+
+            @Override
+            public void setDocumentLocator(Locator locator){
+                this.locator = locator;
+            }
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes){
+                locations.add(locator.getLineNumber()+" "+locator.getColumnNumber()+" <"+qName);
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName){
+                locations.add(locator.getLineNumber()+" "+locator.getColumnNumber()+" </"+qName);
+            }
+        });
+        reader.parse(new InputSource(new ChunkedReader(new StringReader(XML), chunkSize)));
+        return locations;
+    }
+
+    /** returns at most chunkSize chars per read */
+    private static class ChunkedReader extends Reader{
+        private final Reader delegate;
+        private final int chunkSize;
+
+        ChunkedReader(Reader delegate, int chunkSize){
+            this.delegate = delegate;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] buff, int off, int len) throws IOException{
+            return delegate.read(buff, off, Math.min(len, chunkSize));
+        }
+
+        @Override
+        public void close() throws IOException{
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax;
+
+/**
+ * Implemented by {@link org.xml.sax.XMLReader XMLReaders} which can
+ * tell where the tags of an element are, in the character stream of
+ * the document. This allows to slice the raw xml of an element, without
+ * rebuilding it from events.
+ *
+ * @author Santhosh Kumar T
+ */
+public interface ElementLocator{
+    /**
+     * Returns the character offset of {@code '<'} which starts the tag of
+     * current element. Valid only in
+     * {@link org.xml.sax.ContentHandler#startElement(String, String, String, org.xml.sax.Attributes) startElement(...)}.
+     */
+    public int getElementStartOffset();
+
+    /**
+     * Returns the character offset following {@code '>'} which ends
+     * current element, i.e of its end tag or empty-element tag. Valid only in
+     * {@link org.xml.sax.ContentHandler#endElement(String, String, String) endElement(...)}.
+     */
+    public int getElementEndOffset();
+}
@@ -190,4 +190,16 @@ public interface SAXFeatures{
      * default: not-applicable
      */
     String XML_1_1 = "http://xml.org/sax/features/xml-1.1"; //NOI18N
+
+    /**
+     * A value of "false" turns off tracking of line numbers, for maximum
+     * throughput. Locator then reports line number as -1. Column number
+     * and character offset are still reported.
+     * <p>
+     * Supported by jlibs.xml.sax.async.AsyncXMLReader
+     * <p>
+     * <b>Default:</b> true<br>
+     * <b>Access:</b> (parsing) read-only; (not parsing) read/write <br>
+     */
+    String TRACK_LOCATION = "http://jlibs.org/features/track-location"; //NOI18N
 }
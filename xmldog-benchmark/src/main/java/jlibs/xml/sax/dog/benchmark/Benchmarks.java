@@ -0,0 +1,52 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with results in JSON, so that runs can be compared.
+ * <p>
+ * Accepts all JMH command line options, and defaults to:
+ * <pre>
+ * -rf json -rff xmldog-benchmark.json -prof gc jlibs.xml.sax.dog.benchmark.*
+ * </pre>
+ * The gc profiler reports allocation rate ({@code gc.alloc.rate.norm} is
+ * bytes allocated per operation) along with the timings.
+ *
+ * @author Santhosh Kumar T
+ */
+public class Benchmarks{
+    public static void main(String[] args) throws Exception{
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+        if(cmdOptions.getIncludes().isEmpty())
+            options.include(Benchmarks.class.getPackage().getName()+".*");
+        if(!cmdOptions.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if(!cmdOptions.getResult().hasValue())
+            options.result("xmldog-benchmark.json");
+        if(cmdOptions.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.benchmark;
+
+import jlibs.core.io.IOUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generated documents and xpaths used by benchmarks.
+ * <p>
+ * Documents are catalogs of items, each item carrying a few of
+ * {@value #GROUPS} groups of {@value #FIELDS} fields:
+ * <pre>
+ * &lt;catalog&gt;
+ *   &lt;item id="i7" category="c7"&gt;
+ *     &lt;name&gt;item7&lt;/name&gt;&lt;price&gt;7.5&lt;/price&gt;
+ *     &lt;g7&gt;&lt;f7&gt;..&lt;/f7&gt;&lt;f8&gt;..&lt;/f8&gt;...&lt;/g7&gt;
+ *     ...
+ *   &lt;/item&gt;
+ *   ...
+ * &lt;/catalog&gt;
+ * </pre>
+ * They are generated once into {@code java.io.tmpdir}, and are
+ * deterministic, so that results of different runs are comparable.
+ * Documents up to {@value #MAX_IN_MEMORY} bytes are also held in memory,
+ * so that disk is not measured.
+ *
+ * @author Santhosh Kumar T
+ */
+public class Corpus{
+    public static final int GROUPS = 100;
+    public static final int FIELDS = 100;
+    public static final int GROUPS_PER_ITEM = 3;
+    public static final int FIELDS_PER_GROUP = 5;
+    public static final int MAX_IN_MEMORY = 64*1024*1024;
+
+    /** @param size such as {@code 1k}, {@code 16m} or {@code 1g} */
+    public static long parseSize(String size){
+        long unit = 1;
+        switch(Character.toLowerCase(size.charAt(size.length()-1))){
+            case 'k':
+                unit = 1024;
+                break;
+            case 'm':
+                unit = 1024*1024;
+                break;
+            case 'g':
+                unit = 1024*1024*1024;
+                break;
+        }
+        if(unit!=1)
+            size = size.substring(0, size.length()-1);
+        return Long.parseLong(size)*unit;
+    }
+
+    /*-------------------------------------------------[ Documents ]---------------------------------------------------*/
+
+    public static File file(String size) throws IOException{
+        long bytes = parseSize(size);
+        File file = new File(System.getProperty("java.io.tmpdir"), "xmldog-benchmark-"+size+".xml");
+        if(!file.exists() || file.length()<bytes){
+            File tmp = new File(file.getPath()+".tmp");
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), IOUtil.UTF_8), 64*1024);
+            try{
+                generate(writer, bytes);
+            }finally{
+                writer.close();
+            }
+            if(!tmp.renameTo(file)){
+                file.delete();
+                if(!tmp.renameTo(file))
+                    throw new IOException("failed to rename "+tmp+" to "+file);
+            }
+        }
+        return file;
+    }
+
+    private static final Map<String, byte[]> documents = new HashMap<>();
+
+    /**
+     * @return the document of given size in memory, or null
+     *         if it is larger than {@link #MAX_IN_MEMORY}
+     */
+    public static synchronized byte[] bytes(String size) throws IOException{
+        if(parseSize(size)>MAX_IN_MEMORY)
+            return null;
+        byte bytes[] = documents.get(size);
+        if(bytes==null)
+            documents.put(size, bytes=Files.readAllBytes(file(size).toPath()));
+        return bytes;
+    }
+
+    public static InputStream open(String size) throws IOException{
+        byte bytes[] = bytes(size);
+        if(bytes!=null)
+            return new ByteArrayInputStream(bytes);
+        else
+            return new BufferedInputStream(new FileInputStream(file(size)), 64*1024);
+    }
+
+    private static final String END = "</catalog>\n";
+    private static void generate(Writer writer, long bytes) throws IOException{
+        StringBuilder item = new StringBuilder();
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<catalog>\n");
+        long written = 50;
+        for(int i=0; written+END.length()<bytes; i++){
+            item.setLength(0);
+            item.append("  <item id=\"i").append(i).append("\" category=\"c").append(i%10).append("\">");
+            item.append("<name>item").append(i).append("</name>");
+            item.append("<price>").append(i%1000).append('.').append(i%10).append("</price>");
+            for(int g=0; g<GROUPS_PER_ITEM; g++){
+                int group = (i+g*37)%GROUPS;
+                item.append("<g").append(group).append('>');
+                for(int f=0; f<FIELDS_PER_GROUP; f++){
+                    int field = (i+f*19)%FIELDS;
+                    item.append("<f").append(field).append('>');
+                    item.append("value ").append(i).append(' ').append(field);
+                    item.append("</f").append(field).append('>');
+                }
+                item.append("</g").append(group).append('>');
+            }
+            item.append("</item>\n");
+            writer.append(item);
+            written += item.length();
+        }
+        writer.write(END);
+    }
+
+    /*-------------------------------------------------[ XPaths ]---------------------------------------------------*/
+
+    public static final String PATH = "path";
+    public static final String ATTRIBUTE = "attribute";
+    public static final String VALUE = "value";
+
+    /**
+     * @param count number of distinct xpaths, at most {@code GROUPS*FIELDS}
+     * @param complexity of predicates: {@value #PATH} has none,
+     *                   {@value #ATTRIBUTE} filters items on attribute,
+     *                   {@value #VALUE} filters items on element values and
+     *                   fields on position
+     */
+    public static List<String> xpaths(int count, String complexity){
+        if(count>GROUPS*FIELDS)
+            throw new IllegalArgumentException("count must be <= "+GROUPS*FIELDS);
+        List<String> xpaths = new ArrayList<>(count);
+        for(int i=0; i<count; i++){
+            String group = "g"+((i/FIELDS)%GROUPS);
+            String field = "f"+(i%FIELDS);
+            switch(complexity){
+                case PATH:
+                    xpaths.add("/catalog/item/"+group+"/"+field);
+                    break;
+                case ATTRIBUTE:
+                    xpaths.add("/catalog/item[@category='c"+(i%10)+"']/"+group+"/"+field);
+                    break;
+                case VALUE:
+                    xpaths.add("/catalog/item[price>"+(i%1000)+" and starts-with(name, 'item1')]/"+group+"/"+field+"[position()=1]");
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown complexity: "+complexity);
+            }
+        }
+        return xpaths;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.benchmark;
+
+import jlibs.xml.DefaultNamespaceContext;
+import jlibs.xml.sax.dog.NodeItem;
+import jlibs.xml.sax.dog.XMLDog;
+import jlibs.xml.sax.dog.expr.Expression;
+import jlibs.xml.sax.dog.expr.InstantEvaluationListener;
+import jlibs.xml.sax.dog.sniff.Event;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.xpath.XPathEvaluator;
+import net.sf.saxon.xpath.XPathFactoryImpl;
+import org.jaxen.dom.DOMXPath;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * XPath engines compared by benchmarks.
+ * <p>
+ * Each engine compiles the xpaths once, and then for each document
+ * evaluates all of them, or evaluates till the first result is known.
+ * The DOM based engines have to parse the whole document before
+ * evaluating anything, whereas XMLDog evaluates while parsing.
+ *
+ * @author Santhosh Kumar T
+ */
+public abstract class Engine{
+    public static final String XMLDOG = "xmldog";
+    public static final String JDK = "jdk";
+    public static final String JAXEN = "jaxen";
+    public static final String SAXON = "saxon";
+
+    public static Engine create(String name, List<String> xpaths) throws Exception{
+        NamespaceContext nsContext = new DefaultNamespaceContext();
+        switch(name){
+            case XMLDOG:
+                return new XMLDogEngine(xpaths, nsContext);
+            case JDK:
+                return new JDKEngine(xpaths, nsContext);
+            case JAXEN:
+                return new JaxenEngine(xpaths);
+            case SAXON:
+                return new SaxonEngine(xpaths, nsContext);
+            default:
+                throw new IllegalArgumentException("unknown engine: "+name);
+        }
+    }
+
+    /** @return number of results */
+    public abstract int evaluate(InputStream in) throws Exception;
+
+    /** @return first result of first xpath */
+    public abstract Object firstResult(InputStream in) throws Exception;
+
+    /*-------------------------------------------------[ XMLDog ]---------------------------------------------------*/
+
+    static class XMLDogEngine extends Engine{
+        final XMLDog dog;
+        final Event event;
+        final AsyncXMLReader reader = new AsyncXMLReader();
+        final Listener listener = new Listener();
+        final ByteBuffer buffer = ByteBuffer.allocate(8*1024);
+
+        XMLDogEngine(List<String> xpaths, NamespaceContext nsContext) throws Exception{
+            dog = new XMLDog(nsContext);
+            for(String xpath: xpaths)
+                dog.addXPath(xpath);
+            event = dog.createEvent();
+        }
+
+        @Override
+        public int evaluate(InputStream in) throws Exception{
+            event.reset();
+            listener.count = 0;
+            event.setListener(listener);
+            dog.sniff(event, new InputSource(in), reader);
+            return listener.count;
+        }
+
+        @Override
+        public Object firstResult(InputStream in) throws Exception{
+            event.reset();
+            listener.first = null;
+            event.setListener(listener);
+            byte array[] = buffer.array();
+            while(listener.first==null){
+                int read = in.read(array);
+                if(read==-1){
+                    event.finish();
+                    break;
+                }
+                buffer.clear();
+                buffer.limit(read);
+                if(!event.feed(buffer))
+                    break;
+            }
+            return listener.first;
+        }
+
+        static class Listener extends InstantEvaluationListener{
+            int count;
+            Object first;
+
+            @Override
+            public void onNodeHit(Expression expression, NodeItem nodeItem){
+                count++;
+                if(first==null)
+                    first = nodeItem;
+            }
+
+            @Override
+            public void finishedNodeSet(Expression expression){}
+
+            @Override
+            public void onResult(Expression expression, Object result){
+                count++;
+                if(first==null)
+                    first = result;
+            }
+        }
+    }
+
+    /*-------------------------------------------------[ DOM ]---------------------------------------------------*/
+
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>(){
+        @Override
+        protected DocumentBuilder initialValue(){
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            try{
+                return factory.newDocumentBuilder();
+            }catch(Exception ex){
+                throw new RuntimeException(ex);
+            }
+        }
+    };
+
+    static Document parseDOM(InputStream in) throws Exception{
+        return documentBuilder.get().parse(in);
+    }
+
+    static class JDKEngine extends Engine{
+        final XPathExpression expressions[];
+
+        JDKEngine(List<String> xpaths, NamespaceContext nsContext) throws Exception{
+            javax.xml.xpath.XPath xpath = XPathFactory.newInstance().newXPath();
+            xpath.setNamespaceContext(nsContext);
+            expressions = new XPathExpression[xpaths.size()];
+            for(int i=0; i<expressions.length; i++)
+                expressions[i] = xpath.compile(xpaths.get(i));
+        }
+
+        @Override
+        public int evaluate(InputStream in) throws Exception{
+            Document doc = parseDOM(in);
+            int count = 0;
+            for(XPathExpression expr: expressions)
+                count += ((org.w3c.dom.NodeList)expr.evaluate(doc, XPathConstants.NODESET)).getLength();
+            return count;
+        }
+
+        @Override
+        public Object firstResult(InputStream in) throws Exception{
+            return expressions[0].evaluate(parseDOM(in), XPathConstants.NODE);
+        }
+    }
+
+    static class JaxenEngine extends Engine{
+        final DOMXPath expressions[];
+
+        JaxenEngine(List<String> xpaths) throws Exception{
+            expressions = new DOMXPath[xpaths.size()];
+            for(int i=0; i<expressions.length; i++)
+                expressions[i] = new DOMXPath(xpaths.get(i));
+        }
+
+        @Override
+        public int evaluate(InputStream in) throws Exception{
+            Document doc = parseDOM(in);
+            int count = 0;
+            for(DOMXPath expr: expressions)
+                count += expr.selectNodes(doc).size();
+            return count;
+        }
+
+        @Override
+        public Object firstResult(InputStream in) throws Exception{
+            return expressions[0].selectSingleNode(parseDOM(in));
+        }
+    }
+
+    /*-------------------------------------------------[ Saxon ]---------------------------------------------------*/
+
+    static class SaxonEngine extends Engine{
+        final XPathEvaluator evaluator;
+        final XPathExpression expressions[];
+
+        SaxonEngine(List<String> xpaths, NamespaceContext nsContext) throws Exception{
+            evaluator = (XPathEvaluator)new XPathFactoryImpl().newXPath();
+            evaluator.setNamespaceContext(nsContext);
+            expressions = new XPathExpression[xpaths.size()];
+            for(int i=0; i<expressions.length; i++)
+                expressions[i] = evaluator.compile(xpaths.get(i));
+        }
+
+        NodeInfo parse(InputStream in) throws Exception{
+            return evaluator.getConfiguration().buildDocument(new StreamSource(in));
+        }
+
+        @Override
+        public int evaluate(InputStream in) throws Exception{
+            NodeInfo doc = parse(in);
+            int count = 0;
+            for(XPathExpression expr: expressions)
+                count += ((List)expr.evaluate(doc, XPathConstants.NODESET)).size();
+            return count;
+        }
+
+        @Override
+        public Object firstResult(InputStream in) throws Exception{
+            return expressions[0].evaluate(parse(in), XPathConstants.NODE);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XMLDog compared with DOM based engines: JDK's built-in XPath, Jaxen and Saxon.
+ * <p>
+ * {@link #all()} measures evaluating all xpaths, and {@link #firstResult()}
+ * the time to first result, where XMLDog stops reading as soon as it is
+ * known while others have to build the whole tree.
+ * Sizes are limited to those DOM can hold comfortably.
+ * Run with {@code -prof gc} to compare allocation rates.
+ *
+ * @author Santhosh Kumar T
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class EngineBenchmark{
+    @Param({ Engine.XMLDOG, Engine.JDK, Engine.JAXEN, Engine.SAXON })
+    public String engine;
+
+    @Param({ "1k", "1m", "16m" })
+    public String size;
+
+    @Param({ "1", "10", "100" })
+    public int xpaths;
+
+    @Param({ Corpus.PATH, Corpus.ATTRIBUTE, Corpus.VALUE })
+    public String complexity;
+
+    private Engine impl;
+
+    @Setup
+    public void setup() throws Exception{
+        Corpus.bytes(size);
+        impl = Engine.create(engine, Corpus.xpaths(xpaths, complexity));
+    }
+
+    @Benchmark
+    public int all() throws Exception{
+        try(InputStream in=Corpus.open(size)){
+            return impl.evaluate(in);
+        }
+    }
+
+    @Benchmark
+    public Object firstResult() throws Exception{
+        try(InputStream in=Corpus.open(size)){
+            return impl.firstResult(in);
+        }
+    }
+}
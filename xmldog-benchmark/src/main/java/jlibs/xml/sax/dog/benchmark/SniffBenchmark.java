@@ -0,0 +1,63 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of XMLDog as number of xpaths and document size grow.
+ * <p>
+ * Documents larger than {@link Corpus#MAX_IN_MEMORY} are streamed
+ * from disk, which XMLDog can do in constant memory.
+ * Run with {@code -prof gc} to compare allocation rates.
+ *
+ * @author Santhosh Kumar T
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class SniffBenchmark{
+    @Param({ "1", "10", "100", "1000", "10000" })
+    public int xpaths;
+
+    @Param({ "1k", "1m", "64m", "1g" })
+    public String size;
+
+    @Param({ Corpus.PATH, Corpus.ATTRIBUTE, Corpus.VALUE })
+    public String complexity;
+
+    private Engine engine;
+
+    @Setup
+    public void setup() throws Exception{
+        Corpus.file(size);
+        engine = Engine.create(Engine.XMLDOG, Corpus.xpaths(xpaths, complexity));
+    }
+
+    @Benchmark
+    public int sniff() throws Exception{
+        try(InputStream in=Corpus.open(size)){
+            return engine.evaluate(in);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog;
+
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.async.ChannelInputSource;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+/**
+ * All references to jlibs-xml-nbp, which is an optional dependency,
+ * are kept in this class. Its methods must be called only if
+ * {@link #AVAILABLE} is true.
+ *
+ * @author Santhosh Kumar T
+ */
+final class AsyncSupport{
+    private AsyncSupport(){}
+
+    /** true if jlibs-xml-nbp is in classpath */
+    static final boolean AVAILABLE;
+    static{
+        boolean available;
+        try{
+            Class.forName("jlibs.xml.sax.async.AsyncXMLReader", false, AsyncSupport.class.getClassLoader());
+            available = true;
+        }catch(ClassNotFoundException ex){
+            available = false;
+        }
+        AVAILABLE = available;
+    }
+
+    static XMLReader newXMLReader(){
+        return new AsyncXMLReader();
+    }
+
+    /** tells whether given source is a {@link ChannelInputSource} with channel */
+    static boolean isChannelSource(InputSource source){
+        return source instanceof ChannelInputSource && ((ChannelInputSource)source).getChannel()!=null;
+    }
+}
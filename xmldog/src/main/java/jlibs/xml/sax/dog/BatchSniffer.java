@@ -0,0 +1,279 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog;
+
+import jlibs.xml.sax.SAXUtil;
+import jlibs.xml.sax.dog.sniff.Event;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.xpath.XPathException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.*;
+
+/**
+ * Sniffs many documents concurrently with the xpaths of an XMLDog.
+ * <p>
+ * Each worker thread reuses its own Event and XMLReader across documents.
+ * Sources of type {@code ChannelInputSource} are parsed with
+ * {@code AsyncXMLReader}, when jlibs-xml-nbp is in classpath.
+ * Results are delivered to {@link Listener} in the thread calling
+ * {@link #sniff(Iterator, Listener)}, either in the order of sources or
+ * in the order of completion. Sources are pulled from given iterator
+ * only while the number of documents submitted but not yet delivered is
+ * less than {@link #getMaxPending() maxPending}, so that a slow listener
+ * throttles reading of sources.
+ * <pre class="prettyprint">
+ * ExecutorService executor = Executors.newFixedThreadPool(8);
+ * BatchSniffer batch = new BatchSniffer(dog, executor);
+ * BatchSniffer.Report report = batch.sniff(sources, listener);
+ * System.out.println(report);
+ * </pre>
+ *
+ * @author Santhosh Kumar T
+ */
+public class BatchSniffer{
+    private volatile XMLDog dog;
+    private final Executor executor;
+
+    public BatchSniffer(XMLDog dog, Executor executor){
+        this.dog = dog;
+        this.executor = executor;
+    }
+
+    public XMLDog getXMLDog(){
+        return dog;
+    }
+
+    /**
+     * Replaces the xpaths evaluated, without waiting for sniffing to stop.
+     * Documents already being sniffed complete with the previous XMLDog,
+     * and subsequent ones are sniffed with given XMLDog.
+     */
+    public void setXMLDog(XMLDog dog){
+        if(dog==null)
+            throw new IllegalArgumentException("dog is null");
+        this.dog = dog;
+    }
+
+    private boolean ordered = true;
+
+    public boolean isOrdered(){
+        return ordered;
+    }
+
+    /**
+     * if true, results are delivered in the order of sources,
+     * otherwise in the order of completion. Default is true
+     */
+    public void setOrdered(boolean ordered){
+        this.ordered = ordered;
+    }
+
+    private int maxPending = 64;
+
+    public int getMaxPending(){
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending){
+        if(maxPending<1)
+            throw new IllegalArgumentException("maxPending must be positive: "+maxPending);
+        this.maxPending = maxPending;
+    }
+
+    public interface Listener{
+        void onResult(InputSource source, XPathResults results);
+        void onError(InputSource source, XPathException ex);
+    }
+
+    /**
+     * Sniffs all sources, and returns after results of all
+     * of them are delivered to listener.
+     */
+    public Report sniff(Iterator<? extends InputSource> sources, Listener listener) throws InterruptedException{
+        return sniff(sources, listener, ordered);
+    }
+
+    /**
+     * Sniffs all sources, delivering results in the order of sources if
+     * {@code ordered} is true, otherwise in the order of completion,
+     * irrespective of {@link #isOrdered()}.
+     * <p>
+     * To sniff a record oriented file concurrently, pass the chunks of
+     * {@code jlibs.xml.sax.async.RecordSplitter} with {@code ordered} true.
+     * Each chunk is a separate document containing the root element and a
+     * run of records, and xpaths are evaluated per chunk, not over the whole
+     * file. Concatenating results of chunks gives the result over the whole
+     * file only for xpaths that select nodes within a record using just
+     * that record and its ancestors, for example {@code /root/record[@type='x']/id}.
+     * It does not for xpaths using positions or counts of records, such as
+     * {@code /root/record[1]}, {@code count(/root/record)} or {@code last()},
+     * or sibling axes between records. Node locations and positions are
+     * also relative to the chunk.
+     */
+    public Report sniff(Iterator<? extends InputSource> sources, Listener listener, boolean ordered) throws InterruptedException{
+        long begin = System.nanoTime();
+        long documents = 0;
+        long failures = 0;
+
+        ArrayDeque<Future<Task>> pending = new ArrayDeque<Future<Task>>();
+        CompletionService<Task> completionService = ordered ? null : new ExecutorCompletionService<Task>(executor);
+        try{
+            while(true){
+                while(pending.size()<maxPending && sources.hasNext()){
+                    Task task = new Task(sources.next());
+                    if(ordered){
+                        FutureTask<Task> future = new FutureTask<Task>(task);
+                        executor.execute(future);
+                        pending.add(future);
+                    }else
+                        pending.add(completionService.submit(task));
+                }
+                if(pending.isEmpty())
+                    break;
+
+                Future<Task> future;
+                if(ordered)
+                    future = pending.remove();
+                else{
+                    future = completionService.take();
+                    pending.remove(future);
+                }
+
+                Task task;
+                try{
+                    task = future.get();
+                }catch(ExecutionException ex){
+                    throw new RuntimeException(ex.getCause());
+                }
+                documents++;
+                if(task.error==null)
+                    listener.onResult(task.source, task.results);
+                else{
+                    failures++;
+                    listener.onError(task.source, task.error);
+                }
+            }
+        }finally{
+            for(Future<Task> future: pending)
+                future.cancel(true);
+        }
+        return new Report(documents, failures, System.nanoTime()-begin);
+    }
+
+    /*-------------------------------------------------[ Worker ]---------------------------------------------------*/
+
+    private final class Worker{
+        XMLDog.Snapshot snapshot;
+        Event event;
+        XMLReader reader;
+        XMLReader asyncReader;
+
+        XPathResults sniff(InputSource source) throws XPathException{
+            XMLDog dog = BatchSniffer.this.dog;
+            XMLDog.Snapshot snapshot = dog.snapshot();
+            if(snapshot!=this.snapshot){
+                this.snapshot = snapshot;
+                event = dog.createEvent(snapshot);
+            }
+            // xml-nbp is optional: if it is not in classpath, source can't be ChannelInputSource
+            boolean async = AsyncSupport.AVAILABLE && AsyncSupport.isChannelSource(source);
+            XMLReader reader;
+            if(async){
+                if(asyncReader==null)
+                    asyncReader = AsyncSupport.newXMLReader();
+                reader = asyncReader;
+            }else{
+                if(this.reader==null){
+                    try{
+                        this.reader = SAXUtil.newSAXFactory(true, false, false).newSAXParser().getXMLReader();
+                    }catch(Exception ex){
+                        throw new XPathException(ex);
+                    }
+                }
+                reader = this.reader;
+            }
+            event.reset();
+            XPathResults results = new XPathResults(event);
+            event.setListener(results);
+            try{
+                dog.sniff(event, source, reader);
+            }catch(XPathException ex){
+                // parser state might be corrupted
+                if(async)
+                    asyncReader = null;
+                else
+                    this.reader = null;
+                throw ex;
+            }
+            return results;
+        }
+    }
+
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>(){
+        @Override
+        protected Worker initialValue(){
+            return new Worker();
+        }
+    };
+
+    private final class Task implements Callable<Task>{
+        final InputSource source;
+        XPathResults results;
+        XPathException error;
+
+        Task(InputSource source){
+            this.source = source;
+        }
+
+        @Override
+        public Task call(){
+            try{
+                results = workers.get().sniff(source);
+            }catch(XPathException ex){
+                error = ex;
+            }
+            return this;
+        }
+    }
+
+    /*-------------------------------------------------[ Report ]---------------------------------------------------*/
+
+    public static final class Report{
+        public final long documents;
+        public final long failures;
+        public final long nanos;
+
+        public Report(long documents, long failures, long nanos){
+            this.documents = documents;
+            this.failures = failures;
+            this.nanos = nanos;
+        }
+
+        public double documentsPerSecond(){
+            return nanos==0 ? 0 : documents*1E9/nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d documents (%d failed) in %d ms, %.1f documents/sec",
+                    documents, failures, TimeUnit.NANOSECONDS.toMillis(nanos), documentsPerSecond());
+        }
+    }
+}
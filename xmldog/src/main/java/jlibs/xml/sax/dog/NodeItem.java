@@ -18,6 +18,7 @@ package jlibs.xml.sax.dog;
 
 import jlibs.core.io.IOUtil;
 import jlibs.core.lang.ImpossibleException;
+import jlibs.core.lang.NotImplementedException;
 import jlibs.xml.Namespaces;
 import jlibs.xml.dom.DOMNavigator;
 import jlibs.xml.dom.DOMUtil;
@@ -41,7 +42,6 @@ public class NodeItem implements NodeType{
      * It is one of the constants in NodeType other than ANY, MAX
      */
     public final int type;
-    public final String location; // unique xpath
     public final String value;
     public final String localName;
     public final String namespaceURI;
@@ -49,6 +49,15 @@ public class NodeItem implements NodeType{
 
     public final long order;
 
+    /**
+     * location of this node in compact form. The unique xpath is
+     * rendered from it only when {@link #location()} is asked.
+     */
+    public final Path path;
+    public final String pathName;
+    public final int pathPosition;
+    private String location;
+
     /**
      * This field tells how many expressions have hit or might hit
      * this NodeItem. This is incremented by Event. and decremented by
@@ -76,6 +85,9 @@ public class NodeItem implements NodeType{
     public NodeItem(){
         order = 0;
         type = DOCUMENT;
+        path = null;
+        pathName = null;
+        pathPosition = 0;
         location = "/";
         value = null;
         localName = null;
@@ -86,7 +98,9 @@ public class NodeItem implements NodeType{
     public NodeItem(Event event){
         order = event.order();
         type = event.type();
-        location = event.location();
+        path = event.path();
+        pathName = event.pathName();
+        pathPosition = event.pathPosition();
         value = event.value();
         localName = event.localName();
         namespaceURI = event.namespaceURI();
@@ -102,6 +116,9 @@ public class NodeItem implements NodeType{
             type = NAMESPACE;
         else
             type = node.getNodeType();
+        path = null;
+        pathName = null;
+        pathPosition = 0;
         location = new DOMNavigator().getXPath(node, nsContext);
         value = node.getNodeValue();
 
@@ -115,6 +132,9 @@ public class NodeItem implements NodeType{
     public NodeItem(int type, String location, String value, String localName, String namespaceURI, String qualifiedName){
         order = -100; // not used
         this.type = type;
+        path = null;
+        pathName = null;
+        pathPosition = 0;
         this.location = location;
         this.value = value;
         this.localName = localName;
@@ -126,6 +146,9 @@ public class NodeItem implements NodeType{
     public NodeItem(Node node, String prefix, String uri, NamespaceContext nsContext){
         order = -100; // not used
         type = NAMESPACE;
+        path = null;
+        pathName = null;
+        pathPosition = 0;
 
         location = new DOMNavigator().getXPath(node, nsContext)+"/namespace::"+prefix;
         value = uri;
@@ -136,9 +159,46 @@ public class NodeItem implements NodeType{
         xml = node;
     }
 
+    /**
+     * @return unique xpath of this node
+     */
+    public String location(){
+        if(location==null){
+            StringBuilder buff = new StringBuilder();
+            if(path!=null)
+                path.appendTo(buff);
+            switch(type){
+                case DOCUMENT:
+                    buff.append('/');
+                    break;
+                case ELEMENT:
+                    break;
+                case ATTRIBUTE:
+                    buff.append("/@").append(pathName);
+                    break;
+                case NAMESPACE:
+                    buff.append("/namespace::").append(pathName);
+                    break;
+                case TEXT:
+                    buff.append("/text()[").append(pathPosition).append(']');
+                    break;
+                case COMMENT:
+                    buff.append("/comment()[").append(pathPosition).append(']');
+                    break;
+                case PI:
+                    buff.append("/processing-instruction('").append(pathName).append("')[").append(pathPosition).append(']');
+                    break;
+                default:
+                    throw new NotImplementedException();
+            }
+            location = buff.toString();
+        }
+        return location;
+    }
+
     public void printTo(PrintStream out){
         if(xml instanceof Node){
-            out.println(location);
+            out.println(location());
             DOMUtil.serialize((Node)xml, out);
         }else
             out.print(localName);
@@ -155,7 +215,7 @@ public class NodeItem implements NodeType{
                 throw new ImpossibleException(ex);
             }
         }else
-            return location;
+            return location();
     }
 
     /**
@@ -168,4 +228,38 @@ public class NodeItem implements NodeType{
      * more than once
      */
     public BitSet expressions;
+
+    /*-------------------------------------------------[ Path ]---------------------------------------------------*/
+
+    /**
+     * Location of an element, as its qualified name and position
+     * among its similar siblings, linked to the location of its parent.
+     *
+     * Paths are immutable and shared by all node items within an element,
+     * so that a hit costs at most one Path for each ancestor not seen before.
+     */
+    public static final class Path{
+        public final Path parent;
+        public final String name;
+        public final int position;
+
+        public Path(Path parent, String name, int position){
+            this.parent = parent;
+            this.name = name;
+            this.position = position;
+        }
+
+        public void appendTo(StringBuilder buff){
+            if(parent!=null)
+                parent.appendTo(buff);
+            buff.append('/').append(name).append('[').append(position).append(']');
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder buff = new StringBuilder();
+            appendTo(buff);
+            return buff.toString();
+        }
+    }
 }
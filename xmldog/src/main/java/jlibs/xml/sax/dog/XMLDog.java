@@ -17,6 +17,7 @@
 package jlibs.xml.sax.dog;
 
 import jlibs.core.lang.ImpossibleException;
+import jlibs.xml.sax.ElementSkipper;
 import jlibs.xml.sax.SAXProperties;
 import jlibs.xml.sax.SAXUtil;
 import jlibs.xml.sax.dog.expr.Expression;
@@ -24,6 +25,7 @@ import jlibs.xml.sax.dog.expr.Literal;
 import jlibs.xml.sax.dog.expr.func.FunctionCall;
 import jlibs.xml.sax.dog.expr.nodset.LocationExpression;
 import jlibs.xml.sax.dog.expr.nodset.PathExpression;
+import jlibs.xml.sax.dog.expr.nodset.PathTrie;
 import jlibs.xml.sax.dog.path.Constraint;
 import jlibs.xml.sax.dog.path.LocationPath;
 import jlibs.xml.sax.dog.path.PositionalPredicate;
@@ -41,9 +43,23 @@ import javax.xml.xpath.XPathException;
 import javax.xml.xpath.XPathFunctionResolver;
 import javax.xml.xpath.XPathVariableResolver;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
+ * XMLDog is thread-safe. A single instance can sniff on many threads,
+ * each using its own {@link Event}, while xpaths are being added.
+ * Expressions are compiled and registered under lock, and events see
+ * an immutable snapshot of them taken when the event is created.
+ * <p>
+ * To replace a set of xpaths without stopping traffic, build a new
+ * XMLDog (or get it from {@link XMLDogCache}) and swap the reference
+ * used to create events.
+ * <p>
+ * XMLDogs returned by {@link XMLDogCache} are shared, and hence
+ * frozen: adding xpaths or changing their settings throws
+ * {@link IllegalStateException}.
+ *
  * @author Santhosh Kumar T
  */
 public final class XMLDog{
@@ -67,22 +83,72 @@ public final class XMLDog{
         return parser.isAllowDefaultPrefixMapping();
     }
 
-    public void setAllowDefaultPrefixMapping(boolean allow){
+    public synchronized void setAllowDefaultPrefixMapping(boolean allow){
+        checkNotFrozen();
         parser.setAllowDefaultPrefixMapping(allow);
     }
 
+    private volatile boolean frozen;
+
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    /** disallows further modifications. Used by {@link XMLDogCache} */
+    void freeze(){
+        frozen = true;
+    }
+
+    private void checkNotFrozen(){
+        if(frozen)
+            throw new IllegalStateException("XMLDog is frozen");
+    }
+
+    private boolean sharePrefixes;
+
+    public boolean isSharePrefixes(){
+        return sharePrefixes;
+    }
+
+    /**
+     * When enabled, predicate-free leading steps of absolute xpaths are
+     * merged into a shared prefix tree, so that each sax event advances
+     * common steps once rather than once per xpath.
+     * <p>
+     * This pays off when many xpaths are registered with common prefixes.
+     * By default it is disabled.
+     */
+    public synchronized void setSharePrefixes(boolean share){
+        checkNotFrozen();
+        if(sharePrefixes!=share){
+            sharePrefixes = share;
+            snapshot = null;
+        }
+    }
+
+    /*-------------------------------------------------[ XPaths ]---------------------------------------------------*/
+
     private final List<Expression> expressions = new ArrayList<Expression>();
     private final List<Expression> docExpressions = new ArrayList<Expression>();
     private final List<Expression> globalExpressions = new ArrayList<Expression>();
 
-    public Expression addXPath(String xpath) throws SAXPathException{
+    /**
+     * compiles and registers given xpath. Adding the same xpath again
+     * compiles and registers another expression.
+     *
+     * @throws IllegalStateException if this XMLDog is frozen
+     */
+    public synchronized Expression addXPath(String xpath) throws SAXPathException{
+        checkNotFrozen();
         Expression compiledExpr = parser.parse(xpath, true);
         compiledExpr.setXPath(xpath);
         addXPath(compiledExpr);
         return compiledExpr;
     }
 
-    public Expression addForEach(String forEach, String xpath) throws SAXPathException{
+    /** @throws IllegalStateException if this XMLDog is frozen */
+    public synchronized Expression addForEach(String forEach, String xpath) throws SAXPathException{
+        checkNotFrozen();
         Expression forEachExpr = parser.parse(forEach, true);
         LocationPath union = new LocationPath(Scope.LOCAL, 0);
         if(forEachExpr instanceof LocationExpression)
@@ -99,8 +165,6 @@ public final class XMLDog{
 
     @SuppressWarnings({"unchecked"})
     private void addXPath(Expression compiledExpr) throws SAXPathException{
-        expressions.add(compiledExpr);
-
         switch(compiledExpr.scope()){
             case Scope.DOCUMENT:
                 searchDocExpressions(compiledExpr, compiledExpr);
@@ -112,16 +176,15 @@ public final class XMLDog{
             default:
                 throw new ImpossibleException("scope of "+compiledExpr.getXPath()+" can't be"+compiledExpr.scope());
         }
+        expressions.add(compiledExpr);
+        snapshot = null;
     }
 
     private void searchDocExpressions(Expression userExpr, Expression expr){
         if(expr.scope()==Scope.DOCUMENT){
-            expr.id = docExpressions.size();
+            expr.register(docExpressions.size(), expr!=userExpr);
             docExpressions.add(expr);
-            if(expr!=userExpr)
-                expr.storeResult = true;
         }
-
         if(expr instanceof LocationExpression){
             for(Step step: ((LocationExpression)expr).locationPath.steps){
                 Expression predicate = step.predicateSet.getPredicate();
@@ -151,15 +214,66 @@ public final class XMLDog{
     }
 
     public Iterable<Expression> getXPaths(){
-        return expressions;
+        return snapshot().expressions;
     }
 
     public int getDocumentXPathsCount(){
-        return docExpressions.size();
+        return snapshot().docExpressions.size();
     }
 
+    /*-------------------------------------------------[ Snapshot ]---------------------------------------------------*/
+
+    /**
+     * Immutable view of registered xpaths, shared by all events
+     * created till next xpath is added.
+     */
+    static final class Snapshot{
+        final List<Expression> expressions;
+        final List<Expression> docExpressions;
+        final List<Expression> globalExpressions;
+        final int noOfConstraints;
+        final boolean langInterested;
+        final PathTrie pathTrie;
+
+        Snapshot(XMLDog dog){
+            expressions = Collections.unmodifiableList(new ArrayList<Expression>(dog.expressions));
+            docExpressions = Collections.unmodifiableList(new ArrayList<Expression>(dog.docExpressions));
+            globalExpressions = Collections.unmodifiableList(new ArrayList<Expression>(dog.globalExpressions));
+            noOfConstraints = Constraint.ID_START+dog.parser.constraints.size();
+            langInterested = dog.parser.langInterested;
+            if(dog.sharePrefixes){
+                pathTrie = new PathTrie();
+                for(Expression expr: docExpressions)
+                    pathTrie.add(expr);
+            }else
+                pathTrie = null;
+        }
+    }
+
+    private volatile Snapshot snapshot;
+
+    Snapshot snapshot(){
+        Snapshot snapshot = this.snapshot;
+        if(snapshot==null){
+            synchronized(this){
+                snapshot = this.snapshot;
+                if(snapshot==null)
+                    this.snapshot = snapshot = new Snapshot(this);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Events created by this method evaluate the xpaths registered
+     * so far. xpaths added later are evaluated only by new events.
+     */
     public Event createEvent(){
-        return new Event(nsContext, globalExpressions, docExpressions, Constraint.ID_START+parser.constraints.size(), parser.langInterested);
+        return createEvent(snapshot());
+    }
+
+    Event createEvent(Snapshot snapshot){
+        return new Event(nsContext, snapshot.globalExpressions, snapshot.docExpressions, snapshot.noOfConstraints, snapshot.langInterested, snapshot.pathTrie);
     }
 
     /*-------------------------------------------------[ Sniff ]---------------------------------------------------*/
@@ -182,17 +296,31 @@ public final class XMLDog{
             SAXHandler handler = event.getSAXHandler();
             reader.setContentHandler(handler);
             reader.setProperty(SAXProperties.LEXICAL_HANDLER, handler);
+            handler.setElementSkipper(reader instanceof ElementSkipper ? (ElementSkipper)reader : null);
         }catch(Exception ex){
             throw new XPathException(ex);
         }
         try{
             reader.parse(source);
         }catch(Exception ex){
-            if(ex!=Event.STOP_PARSING)
+            if(!isStopParsing(ex))
                 throw new XPathException(ex);
         }
     }
 
+    /**
+     * tells whether parsing is terminated by {@link Event#STOP_PARSING},
+     * which some readers, like AsyncXMLReader, wrap in another exception
+     */
+    private static boolean isStopParsing(Throwable thr){
+        while(thr!=null){
+            if(thr==Event.STOP_PARSING)
+                return true;
+            thr = thr.getCause();
+        }
+        return false;
+    }
+
     public XPathResults sniff(InputSource source, boolean useSTAX) throws XPathException{
         Event event = createEvent();
         XPathResults results = new XPathResults(event);
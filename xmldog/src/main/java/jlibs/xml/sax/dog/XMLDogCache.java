@@ -0,0 +1,177 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog;
+
+import jlibs.core.lang.Util;
+import jlibs.xml.DefaultNamespaceContext;
+import org.jaxen.saxpath.SAXPathException;
+
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Cache of compiled XMLDogs, keyed by namespace bindings, resolvers
+ * and xpaths.
+ * <p>
+ * Compiled expressions carry ids assigned by the XMLDog they are added to,
+ * so they are cached together with their XMLDog. Configurations that are
+ * equal share the same XMLDog, which can then sniff on many threads.
+ * Returned XMLDogs are {@link XMLDog#isFrozen() frozen}, so that one user
+ * can't add xpaths or change settings seen by others.
+ * Each configuration is compiled only once, even if requested concurrently,
+ * and compilation does not block lookups of other configurations.
+ * <p>
+ * Resolvers are compared by {@code equals}, which is identity for most
+ * implementations. Least recently used configurations are evicted
+ * once the cache grows beyond {@link #maxSize}.
+ * <pre class="prettyprint">
+ * XMLDogCache cache = new XMLDogCache(1000);
+ * XMLDog dog = cache.get(tenant.namespaces, null, null, tenant.xpaths);
+ * </pre>
+ *
+ * @author Santhosh Kumar T
+ */
+public class XMLDogCache{
+    public final int maxSize;
+
+    private final Map<Key, FutureTask<XMLDog>> dogs;
+
+    public XMLDogCache(final int maxSize){
+        if(maxSize<1)
+            throw new IllegalArgumentException("maxSize must be positive: "+maxSize);
+        this.maxSize = maxSize;
+        dogs = new LinkedHashMap<Key, FutureTask<XMLDog>>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<XMLDog>> eldest){
+                return size()>maxSize;
+            }
+        };
+    }
+
+    public XMLDog get(Map<String, String> namespaces, List<String> xpaths) throws SAXPathException{
+        return get(namespaces, null, null, xpaths);
+    }
+
+    /**
+     * returns XMLDog with given xpaths added in order, compiling
+     * it if this configuration is not cached.
+     *
+     * @param namespaces prefix to uri bindings used to resolve xpaths
+     */
+    public XMLDog get(Map<String, String> namespaces, XPathVariableResolver variableResolver, XPathFunctionResolver functionResolver, List<String> xpaths) throws SAXPathException{
+        final Key key = new Key(namespaces, variableResolver, functionResolver, xpaths);
+        FutureTask<XMLDog> future;
+        boolean compile = false;
+        synchronized(dogs){
+            future = dogs.get(key);
+            if(future==null){
+                future = new FutureTask<XMLDog>(new Callable<XMLDog>(){
+                    @Override
+                    public XMLDog call() throws Exception{
+                        return key.compile();
+                    }
+                });
+                dogs.put(key, future);
+                compile = true;
+            }
+        }
+        if(compile)
+            future.run();
+
+        try{
+            return future.get();
+        }catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new SAXPathException(ex);
+        }catch(ExecutionException ex){
+            synchronized(dogs){
+                if(dogs.get(key)==future)
+                    dogs.remove(key);
+            }
+            Throwable cause = ex.getCause();
+            if(cause instanceof SAXPathException)
+                throw (SAXPathException)cause;
+            if(cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            throw new SAXPathException(cause);
+        }
+    }
+
+    public int size(){
+        synchronized(dogs){
+            return dogs.size();
+        }
+    }
+
+    public void clear(){
+        synchronized(dogs){
+            dogs.clear();
+        }
+    }
+
+    /*-------------------------------------------------[ Key ]---------------------------------------------------*/
+
+    private static final class Key{
+        final Map<String, String> namespaces;
+        final XPathVariableResolver variableResolver;
+        final XPathFunctionResolver functionResolver;
+        final List<String> xpaths;
+        final int hashCode;
+
+        Key(Map<String, String> namespaces, XPathVariableResolver variableResolver, XPathFunctionResolver functionResolver, List<String> xpaths){
+            this.namespaces = new HashMap<String, String>(namespaces);
+            this.variableResolver = variableResolver;
+            this.functionResolver = functionResolver;
+            this.xpaths = new ArrayList<String>(xpaths);
+            hashCode = Util.hashCode(this.namespaces, variableResolver, functionResolver, this.xpaths);
+        }
+
+        XMLDog compile() throws SAXPathException{
+            DefaultNamespaceContext nsContext = new DefaultNamespaceContext();
+            for(Map.Entry<String, String> entry: namespaces.entrySet())
+                nsContext.declarePrefix(entry.getKey(), entry.getValue());
+            XMLDog dog = new XMLDog(nsContext, variableResolver, functionResolver);
+            for(String xpath: xpaths)
+                dog.addXPath(xpath);
+            dog.freeze();
+            return dog;
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj){
+            if(obj==this)
+                return true;
+            if(!(obj instanceof Key))
+                return false;
+            Key that = (Key)obj;
+            return hashCode==that.hashCode
+                    && namespaces.equals(that.namespaces)
+                    && Util.equals(variableResolver, that.variableResolver)
+                    && Util.equals(functionResolver, that.functionResolver)
+                    && xpaths.equals(that.xpaths);
+        }
+    }
+}
@@ -32,6 +32,7 @@ import java.util.Map;
  */
 public class XPathResults extends EvaluationListener{
     private Event event;
+    private NamespaceContext nsContext;
     private Map<Expression, Object> results = new HashMap<Expression, Object>();
 
     public XPathResults(Event event){
@@ -41,10 +42,11 @@ public class XPathResults extends EvaluationListener{
     @Override
     public void finished(Evaluation evaluation){
         results.put(evaluation.expression, evaluation.getResult());
+        nsContext = event.getNamespaceContext(); // event might be reused for another document
     }
 
     public NamespaceContext getNamespaceContext(){
-        return event.getNamespaceContext();
+        return nsContext!=null ? nsContext : event.getNamespaceContext();
     }
 
     @SuppressWarnings({"unchecked"})
@@ -47,7 +47,7 @@ public abstract class Expression{
      * manage listeners and results by Event for doc scope
      * expressions
      */
-    public int id;
+    private int id;
     public final DataType resultType;
     protected int scope;
 
@@ -55,7 +55,9 @@ public abstract class Expression{
      * tells whether Event should store the result of this expression
      * Note: this is used only for doc scope expression
      */
-    public boolean storeResult;
+    private boolean storeResult;
+
+    private boolean registered;
 
     public Expression(int scope, DataType resultType){
         this.scope = scope;
@@ -67,6 +69,29 @@ public abstract class Expression{
         return scope;
     }
 
+    public final int id(){
+        return id;
+    }
+
+    public final boolean storeResult(){
+        return storeResult;
+    }
+
+    /**
+     * assigns id to doc scope expression, when it is added to xmldog.
+     * An expression can be registered only once, so that its state
+     * never changes once events start using it.
+     *
+     * @throws IllegalStateException if already registered
+     */
+    public final void register(int id, boolean storeResult){
+        if(registered)
+            throw new IllegalStateException("expression is already registered: "+this);
+        registered = true;
+        this.id = id;
+        this.storeResult = storeResult;
+    }
+
     /*-------------------------------------------------[ Result ]---------------------------------------------------*/
 
     /** This method is called only glocal scope expression */
@@ -98,7 +123,10 @@ public abstract class Expression{
      */
     protected String xpath;
 
+    /** @throws IllegalStateException if xpath is already set */
     public final void setXPath(String xpath){
+        if(this.xpath!=null)
+            throw new IllegalStateException("xpath is already set: "+this.xpath);
         this.xpath = xpath;
     }
 
@@ -38,7 +38,10 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
     private final Event event;
     private final EventID eventID;
     private final int index;
+    private final boolean root;
+    private final boolean shared;
     private final boolean lastStep;
+    private final int owner;
 
     private final Step currentStep;
     private final boolean exactPosition;
@@ -49,11 +52,26 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
     private int predicateChain = -1;
 
     protected LocationEvaluation(LocationExpression expression, int stepIndex, Event event, EventID eventID){
+        this(expression, stepIndex, event, eventID, stepIndex==0, false);
+    }
+
+    /**
+     * creates root evaluation whose hits for given step are fed by {@link PathTrie}
+     * rather than by registering with eventID
+     */
+    LocationEvaluation(LocationExpression expression, int stepIndex, Event event){
+        this(expression, stepIndex, event, event.getID(), true, true);
+    }
+
+    private LocationEvaluation(LocationExpression expression, int stepIndex, Event event, EventID eventID, boolean root, boolean shared){
         super(expression, event.order());
         this.event = event;
         this.eventID = eventID;
         this.index = stepIndex;
+        this.root = root;
+        this.shared = shared;
         lastStep = index==expression.locationPath.steps.length-1;
+        owner = event.profileCreated(expression);
 
         if(expression instanceof Strings)
             stringEvaluations = new ArrayList<Evaluation>();
@@ -94,7 +112,8 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
             if(predicate.scope()!=Scope.DOCUMENT)
                 predicateEvaluation.start();
         }
-        eventID.addListener(event, currentStep, this);
+        if(!shared)
+            eventID.addListener(event, currentStep, this);
     }
 
     private LinkableEvaluation pendingEvaluationHead, pendingEvaluationTail;
@@ -111,6 +130,7 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
         }
 
         final Event event = this.event;
+        int previousOwner = event.profileEnter(owner, 0);
 
         if(positionTracker!=null){
             event.positionTrackerStack.addFirst(positionTracker);
@@ -159,6 +179,7 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
             manuallyExpired = true;
             expired();
         }
+        event.profileExit(previousOwner);
     }
 
     /*-------------------------------------------------[ Stages ]---------------------------------------------------*/
@@ -186,7 +207,7 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
                 pendingEval.removeListener(this);
             pendingEvaluationHead = pendingEvaluationTail = null;
         }
-        if(predicateResult!=null && (index!=0 || (stringEvaluations==null || stringEvaluations.size()==0)))
+        if(predicateResult!=null && (!root || (stringEvaluations==null || stringEvaluations.size()==0)))
             finished();
         else if(result.size()==0 && predicateResult==null){ // when result is empty, there is no need to wait for predicateEvaluation to finish
             Expression predicate = predicateEvaluation.expression;
@@ -211,7 +232,7 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
 
     @Override
     protected void fireFinished(){
-        if(index==0 && nodeSetListener !=null)
+        if(root && nodeSetListener !=null)
             nodeSetListener.finished();
         super.fireFinished();
         if(stringEvaluations!=null){
@@ -435,7 +456,7 @@ public final class LocationEvaluation extends AxisListener<LocationExpression> i
 
     private Object finalResult;
     public Object getResult(){
-        if(index==0 && predicateChain==0)
+        if(root && predicateChain==0)
             return null;
 
         if(finalResult==null)
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.expr.nodset;
+
+import jlibs.xml.sax.dog.Scope;
+import jlibs.xml.sax.dog.expr.Evaluation;
+import jlibs.xml.sax.dog.expr.Expression;
+import jlibs.xml.sax.dog.path.Axis;
+import jlibs.xml.sax.dog.path.AxisListener;
+import jlibs.xml.sax.dog.path.EventID;
+import jlibs.xml.sax.dog.path.Step;
+import jlibs.xml.sax.dog.sniff.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges leading steps of absolute location paths into a shared
+ * prefix tree, in the style of YFilter.
+ * <p>
+ * Only steps without predicates on child, descendant and descendant-or-self
+ * axises are shared. While sniffing, each shared step is tracked once per
+ * context node, no matter how many xpaths start with it. Per-expression
+ * evaluation begins only where a path leaves the tree, i.e at its
+ * first step with predicate or at its last step.
+ *
+ * @author Santhosh Kumar T
+ */
+public final class PathTrie{
+    private final Node root = new Node(null, -1, -1);
+    private Node exprNodes[] = new Node[0];
+    private int size;
+
+    private static boolean isShareable(Step step){
+        switch(step.axis){
+            case Axis.CHILD:
+            case Axis.DESCENDANT:
+            case Axis.DESCENDANT_OR_SELF:
+                return step.predicateSet.getPredicate()==null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * adds given document expression to this tree, if it is location
+     * path whose first step can be shared.
+     *
+     * @return true if the expression is added
+     */
+    public boolean add(Expression expr){
+        if(expr.scope()!=Scope.DOCUMENT || !(expr instanceof LocationExpression))
+            return false;
+        Step steps[] = ((LocationExpression)expr).locationPath.steps;
+        if(steps.length==0 || !isShareable(steps[0]))
+            return false;
+
+        Node node = root;
+        int i = 0;
+        do{
+            node = node.child(steps[i]);
+        }while(++i<steps.length && isShareable(steps[i]));
+        node.expressions++;
+
+        if(expr.id()>=exprNodes.length)
+            exprNodes = Arrays.copyOf(exprNodes, Math.max(expr.id()+1, 2*exprNodes.length));
+        exprNodes[expr.id()] = node;
+        return true;
+    }
+
+    /** @return number of shared steps in this tree */
+    public int size(){
+        return size;
+    }
+
+    private final class Node{
+        final Step step;
+        final int depth;
+        final int index;
+        final List<Node> children = new ArrayList<Node>();
+        int expressions;
+
+        Node(Step step, int depth, int index){
+            this.step = step;
+            this.depth = depth;
+            this.index = index;
+        }
+
+        Node child(Step step){
+            for(Node child: children){
+                if(child.step.axis==step.axis && child.step.constraint.id==step.constraint.id)
+                    return child;
+            }
+            Node child = new Node(step, depth+1, size++);
+            children.add(child);
+            return child;
+        }
+    }
+
+    /*-------------------------------------------------[ Walker ]---------------------------------------------------*/
+
+    /**
+     * Tracks the shared steps of this tree over single document.
+     */
+    public final class Walker{
+        private final Event event;
+        private final Cursor cursors[];
+
+        public Walker(Event event){
+            this.event = event;
+            cursors = new Cursor[size];
+        }
+
+        private Cursor cursor(Node node){
+            Cursor cursor = cursors[node.index];
+            if(cursor==null)
+                cursors[node.index] = cursor = new Cursor(node);
+            return cursor;
+        }
+
+        public boolean shares(Expression expr){
+            return expr.id()<exprNodes.length && exprNodes[expr.id()]!=null;
+        }
+
+        /**
+         * creates evaluation of given expression, which starts receiving hits
+         * from the step where it leaves this tree.
+         */
+        public LocationEvaluation getResult(LocationExpression expr){
+            Node node = exprNodes[expr.id()];
+            LocationEvaluation eval = new LocationEvaluation(expr, node.depth, event);
+            Cursor cursor = cursor(node);
+            if(cursor.roots==null)
+                cursor.roots = new ArrayList<LocationEvaluation>(node.expressions);
+            cursor.roots.add(eval);
+            return eval;
+        }
+
+        /** starts tracking; must be called at document after evaluations are created */
+        public void start(){
+            Cursor root = new Cursor(PathTrie.this.root);
+            link(root);
+            EventID eventID = event.getID();
+            for(Cursor child: root.children)
+                activate(child, eventID);
+            die(root);
+        }
+
+        private void link(Cursor cursor){
+            List<Node> children = cursor.node.children;
+            cursor.children = new Cursor[children.size()];
+            for(int i=0; i<cursor.children.length; i++){
+                Cursor child = cursor.children[i] = cursor(children.get(i));
+                link(child);
+            }
+        }
+
+        private void activate(Cursor cursor, EventID eventID){
+            cursor.live++;
+            eventID.addListener(event, cursor.node.step, new Activation(cursor));
+        }
+
+        private void die(Cursor cursor){
+            List<LocationEvaluation> roots = cursor.roots;
+            if(roots!=null){
+                cursor.roots = null;
+                for(LocationEvaluation eval: roots){
+                    if(!eval.manuallyExpired)
+                        eval.expired();
+                }
+            }
+            for(Cursor child: cursor.children){
+                child.parentDead = true;
+                if(child.live==0)
+                    die(child);
+            }
+        }
+
+        private final class Activation extends AxisListener<Expression>{
+            private final Cursor cursor;
+
+            Activation(Cursor cursor){
+                super(null, event.order());
+                this.cursor = cursor;
+            }
+
+            @Override
+            public void start(){}
+
+            @Override
+            public Object getResult(){
+                return null;
+            }
+
+            @Override
+            @SuppressWarnings({"rawtypes"})
+            public void finished(Evaluation evaluation){}
+
+            @Override
+            public void onHit(EventID eventID){
+                List<LocationEvaluation> roots = cursor.roots;
+                if(roots!=null){
+                    for(int i=roots.size()-1; i>=0; i--){
+                        LocationEvaluation eval = roots.get(i);
+                        if(eval.manuallyExpired)
+                            roots.remove(i);
+                        else
+                            eval.onHit(eventID);
+                    }
+                }
+                for(Cursor child: cursor.children){
+                    if(!eventID.isEmpty(child.node.step.axis))
+                        activate(child, eventID);
+                }
+            }
+
+            @Override
+            public void expired(){
+                if(--cursor.live==0 && cursor.parentDead)
+                    die(cursor);
+            }
+        }
+    }
+
+    private static final class Cursor{
+        final Node node;
+        Cursor children[];
+        List<LocationEvaluation> roots;
+        int live;
+        boolean parentDead;
+
+        Cursor(Node node){
+            this.node = node;
+        }
+    }
+}
@@ -37,6 +37,7 @@ public final class PredicateEvaluation extends LinkableEvaluation<Expression>{
         this.event = event;
         this.predicate = predicate;
         this.booleanEvaluation = booleanEvaluation;
+        event.profileCreated(expression);
     }
 
     @Override
@@ -39,11 +39,13 @@ public final class StringEvaluation extends AxisListener<Strings>{
     private StringBuilder buff = new StringBuilder(50);
     private Event event;
     private EventID eventID;
+    private final int owner;
 
     protected StringEvaluation(Strings expression, Event event){
         super(expression, event.order());
         this.event = event;
         this.eventID = event.getID();
+        owner = event.profileCreated(expression);
     }
 
     @Override
@@ -63,18 +65,23 @@ public final class StringEvaluation extends AxisListener<Strings>{
     public void onHit(EventID eventID){
         StringBuilder str = event.buff;
         buff.append(str);
-        if(numberListeners.size()>0){
-            for(int i=str.length()-1; i>=0; --i){
-                char ch = str.charAt(i);
-                if(!Character.isDigit(ch) && ch!='.' && ch!='+' && ch!='-'){
-                    fireFinished(numberListeners, Double.NaN);
-                    if(stringListeners.size()==0)
-                        manuallyExpired = true; // i.e dispose()
-                    return;
+        int previousOwner = event.profileEnter(owner, str.length());
+        try{
+            if(numberListeners.size()>0){
+                for(int i=str.length()-1; i>=0; --i){
+                    char ch = str.charAt(i);
+                    if(!Character.isDigit(ch) && ch!='.' && ch!='+' && ch!='-'){
+                        fireFinished(numberListeners, Double.NaN);
+                        if(stringListeners.size()==0)
+                            manuallyExpired = true; // i.e dispose()
+                        return;
+                    }
                 }
-            }
-        }else if(stringListeners.size()==0) // we can't dispose in removeListener because this is being reused
-            manuallyExpired = true; // i.e dispose()
+            }else if(stringListeners.size()==0) // we can't dispose in removeListener because this is being reused
+                manuallyExpired = true; // i.e dispose()
+        }finally{
+            event.profileExit(previousOwner);
+        }
     }
 
     @Override
@@ -266,6 +266,27 @@ public final class EventID{
         }
     }
 
+    /**
+     * tells whether any listener can be hit by the nodes that are yet to
+     * come within the current element
+     */
+    public boolean isInterestedInContent(){
+        for(int axis=Axis.CHILD; axis<=Axis.FOLLOWING; axis++){
+            if(axis!=Axis.FOLLOWING_SIBLING){
+                AxisEntry axisEntry = axisEntries[axis];
+                if(axisEntry!=null && axisEntry.active){
+                    for(ConstraintEntry constraintEntry=axisEntry.constraintEntry; constraintEntry!=null; constraintEntry=constraintEntry.next){
+                        for(AxisListener<?> listener=constraintEntry.listener; listener!=null; listener=listener.nextAxisListener){
+                            if(!listener.manuallyExpired)
+                                return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     /*-------------------------------------------------[ Axis Matching ]---------------------------------------------------*/
 
     private int d;
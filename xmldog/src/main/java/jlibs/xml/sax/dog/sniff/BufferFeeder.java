@@ -0,0 +1,110 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.sniff;
+
+import jlibs.nbp.Feeder;
+import jlibs.xml.sax.SAXProperties;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.async.ChannelInputSource;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Drives AsyncXMLReader with the byte buffers pushed into Event.
+ * It is kept out of Event, so that jlibs-xml-nbp is needed only
+ * when push api is used.
+ *
+ * @author Santhosh Kumar T
+ */
+final class BufferFeeder implements ReadableByteChannel{
+    private final SAXHandler handler;
+    private final AsyncXMLReader reader = new AsyncXMLReader();
+    private Feeder feeder;
+    private boolean completed;
+
+    private ByteBuffer buffer;
+    private boolean eof;
+
+    BufferFeeder(SAXHandler handler) throws SAXException{
+        this.handler = handler;
+        reader.setContentHandler(handler);
+        reader.setProperty(SAXProperties.LEXICAL_HANDLER, handler);
+    }
+
+    /**
+     * @return true if more input is required
+     */
+    boolean feed(ByteBuffer buffer, boolean eof) throws IOException, SAXException{
+        if(completed)
+            return false;
+        this.buffer = buffer;
+        this.eof = eof;
+        try{
+            if(feeder==null){
+                handler.setElementSkipper(reader);
+                feeder = reader.createFeeder(new ChannelInputSource(this));
+            }
+            feeder = feeder.feed();
+        }catch(IOException ex){
+            if(ex.getCause()!=Event.STOP_PARSING)
+                throw ex;
+            feeder = null;
+        }finally{
+            this.buffer = null;
+        }
+        if(feeder==null){
+            completed = true;
+            return false;
+        }else if(eof)
+            throw new IOException("premature end of document");
+        return true;
+    }
+
+    void reset(){
+        feeder = null;
+        completed = false;
+        buffer = null;
+        eof = false;
+    }
+
+    @Override
+    public int read(ByteBuffer dst){
+        if(buffer==null || !buffer.hasRemaining())
+            return eof ? -1 : 0;
+        int read = Math.min(buffer.remaining(), dst.remaining());
+        if(read==buffer.remaining())
+            dst.put(buffer);
+        else{
+            int limit = buffer.limit();
+            buffer.limit(buffer.position()+read);
+            dst.put(buffer);
+            buffer.limit(limit);
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen(){
+        return !completed;
+    }
+
+    @Override
+    public void close(){}
+}
@@ -107,6 +107,12 @@ public class DOMBuilder extends XMLBuilder{
         curNode = null;
     }
 
+    @Override
+    protected void reset(){
+        super.reset();
+        document = domBuilder.newDocument();
+    }
+
     @Override
     protected void removeFromParent(Object node){
         if(node instanceof Attr){
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.sniff;
+
+import jlibs.xml.sax.dog.Scope;
+import jlibs.xml.sax.dog.expr.Expression;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects per-expression evaluation statistics of an {@link Event},
+ * to spot expressions that slow down the whole set.
+ * <p>
+ * Statistics are kept for each document scope expression, including
+ * those used internally in predicates. Work done by local scope
+ * expressions, such as predicates, is charged to the document scope
+ * expression on whose behalf it is done: an evaluation created while
+ * another evaluation is handling a sax event belongs to the owner of
+ * that evaluation. Evaluations created while no evaluation is handling
+ * a sax event, for example when an element ends, are not counted.
+ * <p>
+ * Statistics accumulate across documents sniffed with the same Event,
+ * till {@link #reset()} is called.
+ *
+ * @see Event#setProfiling(boolean)
+ *
+ * @author Santhosh Kumar T
+ */
+public final class EvaluationProfiler{
+    public static final class Profile{
+        public final Expression expression;
+
+        /** number of sax events examined */
+        public long hits;
+
+        /** number of partial evaluations created */
+        public long evaluations;
+
+        /** number of characters buffered to compute string values */
+        public long bufferedChars;
+
+        /** number of documents in which this expression finished */
+        public long documents;
+
+        /** total nano seconds from start of document to finish of this expression */
+        public long finishNanos;
+
+        Profile(Expression expression){
+            this.expression = expression;
+        }
+
+        /** @return average nano seconds taken to finish per document */
+        public long averageFinishNanos(){
+            return documents==0 ? 0 : finishNanos/documents;
+        }
+
+        @Override
+        public String toString(){
+            String xpath = expression.getXPath();
+            return xpath!=null ? xpath : expression.toString();
+        }
+    }
+
+    private final Profile profiles[];
+    private int owner = -1;
+    private long documentStarted;
+
+    /** number of documents sniffed */
+    public long documents;
+
+    EvaluationProfiler(List<Expression> exprList){
+        profiles = new Profile[exprList.size()];
+        for(int i=0; i<profiles.length; i++)
+            profiles[i] = new Profile(exprList.get(i));
+    }
+
+    /**
+     * called when evaluation of given expression is created.
+     *
+     * @return id of document scope expression owning that evaluation, -1 if none
+     */
+    int created(Expression expression){
+        int owner = expression.scope()==Scope.DOCUMENT ? expression.id() : this.owner;
+        if(owner!=-1)
+            profiles[owner].evaluations++;
+        return owner;
+    }
+
+    /**
+     * called when evaluation belonging to given owner starts handling a sax event.
+     * Evaluations created till {@link #exit(int)} belong to the same owner.
+     *
+     * @return owner to be restored on exit
+     */
+    int enter(int owner, int bufferedChars){
+        int previous = this.owner;
+        this.owner = owner;
+        if(owner!=-1){
+            Profile profile = profiles[owner];
+            profile.hits++;
+            profile.bufferedChars += bufferedChars;
+        }
+        return previous;
+    }
+
+    void exit(int previous){
+        owner = previous;
+    }
+
+    void documentStarted(){
+        documents++;
+        documentStarted = System.nanoTime();
+        owner = -1;
+    }
+
+    void evaluating(int id){
+        owner = id;
+    }
+
+    void finished(int id){
+        Profile profile = profiles[id];
+        profile.documents++;
+        profile.finishNanos += System.nanoTime()-documentStarted;
+    }
+
+    public List<Profile> getProfiles(){
+        return Collections.unmodifiableList(Arrays.asList(profiles));
+    }
+
+    public void reset(){
+        for(int i=0; i<profiles.length; i++)
+            profiles[i] = new Profile(profiles[i].expression);
+        documents = 0;
+        owner = -1;
+    }
+
+    /*-------------------------------------------------[ Report ]---------------------------------------------------*/
+
+    public static final Comparator<Profile> BY_COST = new Comparator<Profile>(){
+        @Override
+        public int compare(Profile p1, Profile p2){
+            long cost1 = p1.hits+p1.evaluations+p1.bufferedChars;
+            long cost2 = p2.hits+p2.evaluations+p2.bufferedChars;
+            return cost1<cost2 ? 1 : (cost1==cost2 ? 0 : -1);
+        }
+    };
+
+    /** prints given profiles, costliest first */
+    public static void print(Collection<Profile> profiles, PrintStream out){
+        List<Profile> list = new ArrayList<Profile>(profiles);
+        Collections.sort(list, BY_COST);
+        out.format("%12s %12s %12s %12s  %s%n", "hits", "evaluations", "buffered", "finish(us)", "expression");
+        for(Profile profile: list)
+            out.format("%12d %12d %12d %12d  %s%n", profile.hits, profile.evaluations, profile.bufferedChars,
+                    TimeUnit.NANOSECONDS.toMicros(profile.averageFinishNanos()), profile);
+    }
+
+    public void print(PrintStream out){
+        print(getProfiles(), out);
+    }
+}
@@ -23,16 +23,21 @@ import jlibs.xml.sax.dog.NodeItem;
 import jlibs.xml.sax.dog.NodeType;
 import jlibs.xml.sax.dog.Scope;
 import jlibs.xml.sax.dog.expr.*;
+import jlibs.xml.sax.dog.expr.nodset.LocationExpression;
 import jlibs.xml.sax.dog.expr.nodset.NodeSet;
 import jlibs.xml.sax.dog.expr.nodset.NodeSetListener;
+import jlibs.xml.sax.dog.expr.nodset.PathTrie;
 import jlibs.xml.sax.dog.expr.nodset.PositionTracker;
 import jlibs.xml.sax.dog.expr.nodset.StringEvaluation;
+import jlibs.xml.sax.dog.path.AxisListener;
 import jlibs.xml.sax.dog.path.EventID;
 import jlibs.xml.sax.helpers.MyNamespaceSupport;
 import org.xml.sax.Attributes;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.xpath.XPathException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 /**
@@ -44,9 +49,16 @@ public final class Event extends EvaluationListener implements NodeSetListener{
     private final EventID.ConstraintEntry listenersArray[][];
     private final SAXHandler handler;
 
-    @SuppressWarnings({"unchecked"})
+    private final PathTrie pathTrie;
+
     public Event(NamespaceContext givenNSContext, List<Expression> globalExprList, List<Expression> exprList, int noOfConstraints, boolean langInterested){
+        this(givenNSContext, globalExprList, exprList, noOfConstraints, langInterested, null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Event(NamespaceContext givenNSContext, List<Expression> globalExprList, List<Expression> exprList, int noOfConstraints, boolean langInterested, PathTrie pathTrie){
         this.givenNSContext = givenNSContext;
+        this.pathTrie = pathTrie;
         this.globalExprList = globalExprList;
         this.exprList = exprList;
 
@@ -54,6 +66,7 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         results = new Object[noOfXPaths];
         pendingInstantResults = new int[noOfXPaths];
         listeners = new List[noOfXPaths];
+        recycledListeners = new List[noOfXPaths];
         instantListenersCount = new int[noOfXPaths];
         finished = new BitSet(noOfXPaths);
         listenersArray = new EventID.ConstraintEntry[6][noOfConstraints];
@@ -68,6 +81,40 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         return handler;
     }
 
+    /*-------------------------------------------------[ Push ]---------------------------------------------------*/
+
+    private BufferFeeder bufferFeeder;
+
+    /**
+     * Feeds next chunk of xml document, without blocking. The bytes remaining
+     * in given buffer are consumed completely, so that caller can reuse it.
+     * Results are notified to listener, as soon as they are resolved.
+     * <p>
+     * This requires jlibs-xml-nbp in classpath.
+     *
+     * @return false if all expressions are evaluated and no more input is needed
+     */
+    public boolean feed(ByteBuffer buffer) throws XPathException{
+        return feed(buffer, false);
+    }
+
+    /**
+     * Tells that there is no more input for current document.
+     */
+    public void finish() throws XPathException{
+        feed(null, true);
+    }
+
+    private boolean feed(ByteBuffer buffer, boolean eof) throws XPathException{
+        try{
+            if(bufferFeeder==null)
+                bufferFeeder = new BufferFeeder(handler);
+            return bufferFeeder.feed(buffer, eof);
+        }catch(Exception ex){
+            throw new XPathException(ex);
+        }
+    }
+
     /*-------------------------------------------------[ Information ]---------------------------------------------------*/
 
     private long order;
@@ -148,7 +195,7 @@ public final class Event extends EvaluationListener implements NodeSetListener{
                 break;
             case NodeType.PI:
                 len = elementLocation.length();
-                elementLocation.append("/processing-instruction('").append(localName).append("')[").append(tailInfo.piMap.get(localName).value).append(']');
+                elementLocation.append("/processing-instruction('").append(localName).append("')[").append(tailInfo.piPos).append(']');
                 break;
             default:
                 throw new NotImplementedException();
@@ -159,6 +206,53 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         return location;
     }
 
+    /**
+     * @return compact location of current element, or of the element
+     *         owning current node. null for document
+     */
+    public NodeItem.Path path(){
+        return tailInfo==null ? null : path(tailInfo);
+    }
+
+    private static NodeItem.Path path(Info info){
+        if(info.path==null && info.elem!=null)
+            info.path = new NodeItem.Path(info.prev==null ? null : path(info.prev), info.elem, info.elemntPos);
+        return info.path;
+    }
+
+    /**
+     * @return the name used by current node in its location step,
+     *         if it is an attribute, namespace or pi
+     */
+    public String pathName(){
+        switch(type){
+            case NodeType.ATTRIBUTE:
+                return elementName(namespaceURI, localName).qname;
+            case NodeType.NAMESPACE:
+            case NodeType.PI:
+                return localName;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the position used by current node in its location step,
+     *         if it is a text, comment or pi
+     */
+    public int pathPosition(){
+        switch(type){
+            case NodeType.TEXT:
+                return tailInfo.textCount;
+            case NodeType.COMMENT:
+                return tailInfo.commentCount;
+            case NodeType.PI:
+                return tailInfo.piPos;
+            default:
+                return 0;
+        }
+    }
+
     @Override
     public String toString(){
         return location();
@@ -326,6 +420,51 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         }
     }
 
+    /*-------------------------------------------------[ Profiling ]---------------------------------------------------*/
+
+    private EvaluationProfiler profiler;
+
+    /**
+     * enables or disables collection of per-expression statistics.
+     * By default it is disabled, and costs nothing.
+     *
+     * @see #getProfiler()
+     */
+    public void setProfiling(boolean profiling){
+        if(!profiling)
+            profiler = null;
+        else if(profiler==null)
+            profiler = new EvaluationProfiler(exprList);
+    }
+
+    /** @return profiler collecting statistics, null if profiling is disabled */
+    public EvaluationProfiler getProfiler(){
+        return profiler;
+    }
+
+    /**
+     * called by evaluations when they are created
+     *
+     * @return id of document scope expression owning the evaluation, -1 if none or profiling is disabled
+     */
+    public int profileCreated(Expression expression){
+        return profiler==null ? -1 : profiler.created(expression);
+    }
+
+    /**
+     * called by evaluation belonging to given owner, before it handles a sax event
+     *
+     * @return owner to be passed to {@link #profileExit(int)} after handling the event
+     */
+    public int profileEnter(int owner, int bufferedChars){
+        return profiler==null ? -1 : profiler.enter(owner, bufferedChars);
+    }
+
+    public void profileExit(int previousOwner){
+        if(profiler!=null)
+            profiler.exit(previousOwner);
+    }
+
     /*-------------------------------------------------[ NodeSetListener ]---------------------------------------------------*/
 
     @Override
@@ -357,8 +496,10 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         assert hasInstantListener(evaluation.expression) ? evaluation.getResult()==null : evaluation.getResult()!=null;
         assert pendingExpressions>0;
 
-        int id = evaluation.expression.id;
+        int id = evaluation.expression.id();
         assert results[id]==null || results[id]==evaluation; // null for StaticEvaluation
+        if(profiler!=null)
+            profiler.finished(id);
 
 //        store result if this doc expression is used in some predicate
         boolean needEvaluation = false;
@@ -376,13 +517,14 @@ public final class Event extends EvaluationListener implements NodeSetListener{
                     listener.finished(evaluation);
                 }
             }
-            if(clearListeners)
+            if(clearListeners){
                 this.listeners[id] = null;
-            else
+                recycle(id, listeners);
+            }else
                 needEvaluation = true;
         }
         if(!needEvaluation)
-            results[id] = evaluation.expression.storeResult ? evaluation.getResult() : null;
+            results[id] = evaluation.expression.storeResult() ? evaluation.getResult() : null;
         if(--pendingExpressions==0 && tailInfo!=null){
             tailInfo = null;
             if(xmlBuilder==null)
@@ -397,22 +539,22 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         BitSet bitSet = nodeItem.expressions;
         if(bitSet==null){
             nodeItem.expressions = bitSet = new BitSet();
-            bitSet.set(expression.id);
-        }else if(bitSet.get(expression.id))
+            bitSet.set(expression.id());
+        }else if(bitSet.get(expression.id()))
             return;
         else
-            bitSet.set(expression.id);
+            bitSet.set(expression.id());
 
         if(xmlBuilder==null || nodeItem.xmlBuilt)
             fireInstantResult(expression, nodeItem);
         else
-            pendingInstantResults[expression.id]++;
+            pendingInstantResults[expression.id()]++;
     }
 
     private void fireInstantResult(Expression expression, NodeItem nodeItem){
         if(expression.getXPath()==null) // non-user given absolute xpath
             return;
-        List<EvaluationListener> listeners = this.listeners[expression.id];
+        List<EvaluationListener> listeners = this.listeners[expression.id()];
         for(EvaluationListener listener: listeners){
             if(!listener.disposed && listener instanceof InstantEvaluationListener)
                 ((InstantEvaluationListener)listener).onNodeHit(expression, nodeItem);
@@ -440,6 +582,7 @@ public final class Event extends EvaluationListener implements NodeSetListener{
                         if(!listener.disposed && listener instanceof InstantEvaluationListener)
                             listener.finished((Evaluation)results[i]);
                     }
+                    recycle(i, listeners);
                     results[i] = null;
                 }
             }
@@ -447,6 +590,49 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         }
     }
 
+    /*-------------------------------------------------[ Reset ]---------------------------------------------------*/
+
+    /**
+     * Resets this event, so that it can be reused to sniff another document.
+     * The listener is removed, and should be set again before sniffing.
+     * XMLBuilder, if any, is retained and reset.
+     */
+    @SuppressWarnings("unchecked")
+    public void reset(){
+        listener = null;
+        if(bufferFeeder!=null)
+            bufferFeeder.reset();
+        for(int i=results.length-1; i>=0; i--){
+            results[i] = null;
+            pendingInstantResults[i] = 0;
+            instantListenersCount[i] = 0;
+            List<EvaluationListener> listeners = this.listeners[i];
+            if(listeners!=null){
+                this.listeners[i] = null;
+                recycle(i, listeners);
+            }
+        }
+        finished.clear();
+        pendingExpressions = 0;
+        stopped = false;
+
+        // listeners might be left over, if parsing was aborted
+        for(EventID.ConstraintEntry constraintEntries[]: listenersArray)
+            Arrays.fill(constraintEntries, null);
+        current = null;
+
+        order = 0L;
+        nodeItem = null;
+        evaluation = null;
+        stringEvaluation = null;
+        positionTrackerStack.clear();
+        buff.setLength(0);
+        elementLocation.setLength(0);
+        locationInfo = tailInfo = null;
+        if(xmlBuilder!=null)
+            xmlBuilder.reset();
+    }
+
     private EvaluationListener listener;
     public void setListener(EvaluationListener listener){
         if(this.listener!=null)
@@ -461,14 +647,21 @@ public final class Event extends EvaluationListener implements NodeSetListener{
     }
 
     private final List<EvaluationListener> listeners[];
+    private final List<EvaluationListener> recycledListeners[];
     private final int instantListenersCount[];
     public Evaluation addListener(Expression expr, EvaluationListener evaluationListener){
         assert expr.scope()==Scope.DOCUMENT;
-        int id = expr.id;
+        int id = expr.id();
 
         List<EvaluationListener> listeners = this.listeners[id];
-        if(listeners==null)
-            this.listeners[id] = listeners=new ArrayList<EvaluationListener>();
+        if(listeners==null){
+            listeners = recycledListeners[id];
+            if(listeners==null)
+                listeners = new ArrayList<EvaluationListener>();
+            else
+                recycledListeners[id] = null;
+            this.listeners[id] = listeners;
+        }
         listeners.add(evaluationListener);
         if(supportsInstantResults(expr) && evaluationListener instanceof InstantEvaluationListener)
             instantListenersCount[id]++;
@@ -484,12 +677,17 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         }
     }
 
+    private void recycle(int id, List<EvaluationListener> listeners){
+        listeners.clear();
+        recycledListeners[id] = listeners;
+    }
+
     public void removeListener(Expression expr, EvaluationListener evaluationListener){
-        List<EvaluationListener> listeners = this.listeners[expr.id];
+        List<EvaluationListener> listeners = this.listeners[expr.id()];
         if(listeners!=null){
             if(listeners.remove(evaluationListener)){
                 if(supportsInstantResults(expr) && evaluationListener instanceof InstantEvaluationListener)
-                    instantListenersCount[expr.id]--;
+                    instantListenersCount[expr.id()]--;
             }
         }else
             evaluationListener.disposed = true;
@@ -500,12 +698,12 @@ public final class Event extends EvaluationListener implements NodeSetListener{
     }
 
     public boolean hasInstantListener(Expression expr){
-        return supportsInstantResults(expr) && instantListenersCount[expr.id]>0;
+        return supportsInstantResults(expr) && instantListenersCount[expr.id()]>0;
     }
 
     public Object result(Expression expr){
         assert expr.scope()==Scope.DOCUMENT;
-        return results[expr.id];
+        return results[expr.id()];
     }
     
     /*-------------------------------------------------[ OnEvent ]---------------------------------------------------*/
@@ -545,7 +743,8 @@ public final class Event extends EvaluationListener implements NodeSetListener{
             throw STOP_PARSING;
         pendingExpressions = noOfXPaths;
         nsContext = new DefaultNamespaceContext();
-        locationInfo = tailInfo = new Info();
+        clearNames();
+        locationInfo = tailInfo = newInfo();
         tailInfo.lang = "";
         tailInfo.slash = 0;
 
@@ -553,10 +752,19 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         type = NodeType.DOCUMENT;
         value = namespaceURI = localName = qualifiedName = "";
 
+        PathTrie.Walker walker = pathTrie==null ? null : pathTrie.new Walker(this);
+        if(profiler!=null)
+            profiler.documentStarted();
         Object results[] = this.results;
         for(int i=noOfXPaths-1; i>=0; i--){
             Expression expression = exprList.get(i);
-            Object result = expression.getResult(this);
+            if(profiler!=null)
+                profiler.evaluating(i);
+            Object result;
+            if(walker!=null && walker.shares(expression))
+                result = walker.getResult((LocationExpression)expression);
+            else
+                result = expression.getResult(this);
             if(result instanceof Evaluation){
                 results[i] = result;
                 Evaluation eval = (Evaluation)result;
@@ -574,8 +782,14 @@ public final class Event extends EvaluationListener implements NodeSetListener{
                 finished(eval);
             }
         }
-        current.listenersAdded();
-        firePush();
+        if(profiler!=null)
+            profiler.evaluating(-1);
+        if(walker!=null)
+            walker.start();
+        if(!stopped){
+            current.listenersAdded();
+            firePush();
+        }
         if(isXMLRequired())
             nodeItem.xml = xmlBuilder.doStartDocument(nodeItem);
         else if(stopped)
@@ -583,6 +797,10 @@ public final class Event extends EvaluationListener implements NodeSetListener{
     }
 
     public void onEndDocument(){
+        // AsyncXMLReader reports endDocument on fatal error also,
+        // when elements might be still open
+        if(!stopped && (tailInfo==null || tailInfo.prev!=null))
+            return;
         if(!stopped)
             pop();
         assert pendingExpressions==0;
@@ -595,9 +813,10 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         onEvent(NodeType.ELEMENT, uri, localName, qualifiedName, null);
 
         if(!stopped){
-            Info info = new Info();
-            info.elem = qname(uri, localName);
-            info.elemntPos = tailInfo.updateElementPosition(info.elem);
+            Info info = newInfo();
+            Name name = elementName(uri, localName);
+            info.elem = name.qname;
+            info.elemntPos = tailInfo.elemPositions.increment(name.id);
             info.lang = lang!=null ? lang : language();
 
             push(info);
@@ -613,6 +832,20 @@ public final class Event extends EvaluationListener implements NodeSetListener{
             throw STOP_PARSING;
     }
 
+    /**
+     * tells whether the content of current element can be skipped,
+     * because none of the xpaths can hit nodes within it
+     */
+    public boolean canSkipContent(){
+        if(stopped || (xmlBuilder!=null && xmlBuilder.active && xmlBuilder.requiresContent()))
+            return false;
+        for(EventID id=current; id!=null; id=id.previous){
+            if(id.isInterestedInContent())
+                return false;
+        }
+        return true;
+    }
+
     public void onEndElement(){
         if(!stopped)
             pop();
@@ -642,7 +875,7 @@ public final class Event extends EvaluationListener implements NodeSetListener{
 
     public void onPI(String target, String data){
         if(!stopped)
-            tailInfo.updatePIPosition(target);
+            tailInfo.piPos = tailInfo.piPositions.increment(piName(target).id);
         onEvent(NodeType.PI, "", target, target, data);
         notifyXMLBuilder();
     }
@@ -708,12 +941,22 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         tailInfo = curTailInfo.prev;
         if(tailInfo!=null)
             tailInfo.next = null;
+        curTailInfo.reset();
+        curTailInfo.next = freeInfo;
+        freeInfo = curTailInfo;
 
         firePop();
     }
 
-    static final class IntWrapper{
-        int value = 1;
+    private Info freeInfo;
+
+    private Info newInfo(){
+        Info info = freeInfo;
+        if(info==null)
+            return new Info();
+        freeInfo = info.next;
+        info.next = null;
+        return info;
     }
 
     static final class Info{
@@ -723,34 +966,119 @@ public final class Event extends EvaluationListener implements NodeSetListener{
         int slash = -1;
         String elem;
         String lang;
+        NodeItem.Path path;
 
         int elemntPos = 1;
+        final Counters elemPositions = new Counters();
+        final Counters piPositions = new Counters();
+        int piPos;
 
-        private static int updatePosition(Map<String, IntWrapper> map, String key){
-            IntWrapper position = map.get(key);
-            if(position==null){
-                map.put(key, new IntWrapper());
-                return 1;
-            }else
-                return ++position.value;
+        int textCount;
+        int commentCount;
+
+        void reset(){
+            prev = next = null;
+            slash = -1;
+            elem = lang = null;
+            path = null;
+            elemntPos = 1;
+            elemPositions.clear();
+            piPositions.clear();
+            piPos = textCount = commentCount = 0;
         }
+    }
 
-        Map<String, IntWrapper> elemMap;
-        public int updateElementPosition(String qname){
-            if(elemMap==null)
-                elemMap = new HashMap<String, IntWrapper>();
-            return updatePosition(elemMap, qname);
+    /**
+     * counts occurrences of names, keyed by their interned id
+     */
+    static final class Counters{
+        private int keys[] = new int[8]; // id+1, 0 if free
+        private int counts[] = new int[8];
+        private int size;
+
+        public int increment(int id){
+            if(size<<1>=keys.length)
+                rehash();
+            int key = id+1;
+            int mask = keys.length-1;
+            int i = id & mask;
+            while(true){
+                int k = keys[i];
+                if(k==key)
+                    return ++counts[i];
+                if(k==0){
+                    keys[i] = key;
+                    size++;
+                    return counts[i] = 1;
+                }
+                i = (i+1) & mask;
+            }
         }
 
-        Map<String, IntWrapper> piMap;
-        public int updatePIPosition(String target){
-            if(piMap==null)
-                piMap = new HashMap<String, IntWrapper>();
-            return updatePosition(piMap, target);
+        private void rehash(){
+            int oldKeys[] = keys;
+            int oldCounts[] = counts;
+            keys = new int[oldKeys.length<<1];
+            counts = new int[oldKeys.length<<1];
+            int mask = keys.length-1;
+            for(int j=0; j<oldKeys.length; j++){
+                int key = oldKeys[j];
+                if(key!=0){
+                    int i = (key-1) & mask;
+                    while(keys[i]!=0)
+                        i = (i+1) & mask;
+                    keys[i] = key;
+                    counts[i] = oldCounts[j];
+                }
+            }
         }
 
-        int textCount;
-        int commentCount;
+        public void clear(){
+            if(size>0){
+                Arrays.fill(keys, 0);
+                size = 0;
+            }
+        }
+    }
+
+    /*-------------------------------------------------[ Names ]---------------------------------------------------*/
+
+    static final class Name{
+        final int id;
+        final String qname;
+
+        Name(int id, String qname){
+            this.id = id;
+            this.qname = qname;
+        }
+    }
+
+    // names are interned per document, because qname() depends on prefixes declared in document
+    private final Map<String, Map<String, Name>> elementNames = new HashMap<String, Map<String, Name>>();
+    private final Map<String, Name> piNames = new HashMap<String, Name>();
+    private int nameCount;
+
+    private Name elementName(String uri, String localName){
+        Map<String, Name> names = elementNames.get(uri);
+        if(names==null)
+            elementNames.put(uri, names=new HashMap<String, Name>());
+        Name name = names.get(localName);
+        if(name==null)
+            names.put(localName, name=new Name(nameCount++, qname(uri, localName)));
+        return name;
+    }
+
+    private Name piName(String target){
+        Name name = piNames.get(target);
+        if(name==null)
+            piNames.put(target, name=new Name(nameCount++, target));
+        return name;
+    }
+
+    private void clearNames(){
+        elementNames.clear();
+        piNames.clear();
+        nameCount = 0;
     }
 
     /*-------------------------------------------------[ NamespaceContext ]---------------------------------------------------*/
@@ -806,7 +1134,7 @@ public final class Event extends EvaluationListener implements NodeSetListener{
             case Scope.GLOBAL:
                 return expr.getResult();
             case Scope.DOCUMENT:
-                Object value = results[expr.id];
+                Object value = results[expr.id()];
                 return value instanceof Evaluation ? null : value;
             default:
                 assert expr.scope()==Scope.LOCAL;
@@ -814,6 +1142,9 @@ public final class Event extends EvaluationListener implements NodeSetListener{
                 assert result!=null;
                 if(result instanceof Evaluation){
                     evaluation = (Evaluation)result;
+                    // location and string evaluations are counted on creation
+                    if(profiler!=null && !(result instanceof AxisListener))
+                        profiler.created(expr);
                     return null;
                 }else
                     return result;
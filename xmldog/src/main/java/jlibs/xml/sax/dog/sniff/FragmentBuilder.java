@@ -0,0 +1,277 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.sniff;
+
+import jlibs.xml.sax.ElementLocator;
+import jlibs.xml.sax.dog.NodeItem;
+import jlibs.xml.sax.helpers.MyNamespaceSupport;
+import org.xml.sax.Attributes;
+
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * XMLBuilder which captures the character offsets of matched elements
+ * in the document, rather than building them. The {@link NodeItem#xml xml}
+ * of matched elements is {@link Fragment}, from which the raw xml can be
+ * sliced out of the original document. For document, the fragment
+ * spans its root element. Other node types have no fragment.
+ * <p>
+ * Offsets count the characters decoded by the parser, like
+ * {@link org.xml.sax.ext.Locator2 Locator}. A byte order mark at the start
+ * of a byte stream is not counted, so fragments are to be sliced from
+ * the document text without it.
+ * <p>
+ * Because nothing is built, the content of matched elements is skipped
+ * by parser, unless some xpath is interested in it.
+ * <pre class="prettyprint">
+ * AsyncXMLReader reader = new AsyncXMLReader();
+ * Event event = dog.createEvent();
+ * XPathResults results = new XPathResults(event);
+ * event.setListener(results);
+ * event.setXMLBuilder(new FragmentBuilder(reader));
+ * dog.sniff(event, new InputSource(new StringReader(xml)), reader);
+ * </pre>
+ *
+ * @author Santhosh Kumar T
+ */
+public class FragmentBuilder extends XMLBuilder{
+    private final ElementLocator locator;
+
+    public FragmentBuilder(ElementLocator locator){
+        this.locator = locator;
+    }
+
+    private boolean hit;
+    private Fragment fragments[] = new Fragment[16];
+    private int depth;
+    private Fragment documentFragment;
+
+    @Override
+    Object doStartDocument(NodeItem nodeItem){
+        hit = nodeItem!=null;
+        return super.doStartDocument(nodeItem);
+    }
+
+    @Override
+    Object doStartElement(Event event, NodeItem nodeItem){
+        hit = nodeItem!=null;
+        return super.doStartElement(event, nodeItem);
+    }
+
+    @Override
+    protected Object onStartDocument(){
+        depth = 0;
+        return documentFragment = hit ? new Fragment(null) : null;
+    }
+
+    @Override
+    protected Object onStartElement(Event event){
+        Fragment fragment = null;
+        if(hit){
+            fragment = new Fragment(namespaces(event.getSAXHandler().nsSupport));
+            fragment.start = locator.getElementStartOffset();
+            fragment.nameEnd = fragment.start+1+event.qualifiedName().length();
+        }
+        if(depth==0 && documentFragment!=null){
+            documentFragment.start = locator.getElementStartOffset();
+            documentFragment.nameEnd = documentFragment.start+1+event.qualifiedName().length();
+        }
+        if(depth==fragments.length)
+            fragments = Arrays.copyOf(fragments, depth<<1);
+        fragments[depth++] = fragment;
+        return fragment;
+    }
+
+    /**
+     * returns namespaces inherited by current element, sorted by prefix,
+     * which are to be declared when it is sliced
+     */
+    private String[] namespaces(MyNamespaceSupport nsSupport){
+        List<String> inherited = null;
+        Enumeration<String> prefixes = nsSupport.getPrefixes();
+        while(prefixes.hasMoreElements()){
+            String prefix = prefixes.nextElement();
+            if(!prefix.equals("xml") && !nsSupport.isDeclaredPrefix(prefix)){
+                if(inherited==null)
+                    inherited = new ArrayList<String>();
+                inherited.add(prefix);
+            }
+        }
+        String defaultURI = nsSupport.getURI("");
+        if(defaultURI!=null && defaultURI.length()>0 && !nsSupport.isDeclaredPrefix("")){
+            if(inherited==null)
+                inherited = new ArrayList<String>();
+            inherited.add("");
+        }
+        if(inherited==null)
+            return null;
+
+        Collections.sort(inherited);
+        String namespaces[] = new String[2*inherited.size()];
+        for(int i=0; i<inherited.size(); i++){
+            String prefix = inherited.get(i);
+            namespaces[2*i] = prefix;
+            namespaces[2*i+1] = nsSupport.getURI(prefix);
+        }
+        return namespaces;
+    }
+
+    @Override
+    protected Object onEvent(Event event){
+        return null;
+    }
+
+    @Override
+    public void onAttributes(Event event, Attributes attrs){}
+
+    @Override
+    public void onAttributes(Event event, XMLStreamReader reader){}
+
+    @Override
+    public void onNamespaces(Event event, MyNamespaceSupport nsSupport){}
+
+    @Override
+    protected boolean requiresContent(){
+        return false;
+    }
+
+    @Override
+    protected Object onEndElement(){
+        Fragment fragment = fragments[--depth];
+        fragments[depth] = null;
+        if(fragment!=null)
+            fragment.end = locator.getElementEndOffset();
+        if(depth==0){
+            if(documentFragment!=null){
+                documentFragment.end = locator.getElementEndOffset();
+                documentFragment = null;
+            }
+            return null;
+        }else
+            return this;
+    }
+
+    @Override
+    protected void onEndDocument(){
+        clearCurNode();
+    }
+
+    @Override
+    protected void clearCurNode(){
+        Arrays.fill(fragments, 0, depth, null);
+        depth = 0;
+        documentFragment = null;
+    }
+
+    @Override
+    protected void removeFromParent(Object node){}
+
+    @Override
+    protected boolean hasParent(){
+        return depth>0;
+    }
+
+    /*-------------------------------------------------[ Fragment ]---------------------------------------------------*/
+
+    /**
+     * Location of matched element in the document, as character offsets.
+     */
+    public static final class Fragment{
+        int start = -1;
+        int nameEnd = -1;
+        int end = -1;
+
+        /**
+         * prefix and uri pairs of namespaces, which are declared by
+         * ancestors and are to be added, when this fragment is taken
+         * out of the document. Sorted by prefix, "" being the default
+         * namespace. null if none.
+         */
+        public final String namespaces[];
+
+        Fragment(String namespaces[]){
+            this.namespaces = namespaces;
+        }
+
+        /** character offset of {@code '<'} starting the element */
+        public int start(){
+            return start;
+        }
+
+        /** character offset following {@code '>'} ending the element */
+        public int end(){
+            return end;
+        }
+
+        /**
+         * Returns the raw xml of this fragment, without copying. Note that
+         * the {@link #namespaces inherited namespaces} are not declared in it.
+         */
+        public CharSequence slice(CharSequence document){
+            return CharBuffer.wrap(document, start, end);
+        }
+
+        /**
+         * Writes the raw xml of this fragment, declaring the
+         * {@link #namespaces inherited namespaces} on its root element.
+         */
+        public void writeTo(CharSequence document, Writer writer) throws IOException{
+            if(namespaces==null)
+                writer.append(document, start, end);
+            else{
+                writer.append(document, start, nameEnd);
+                for(int i=0; i<namespaces.length; i+=2){
+                    writer.write(namespaces[i].length()==0 ? " xmlns" : " xmlns:");
+                    writer.write(namespaces[i]);
+                    writer.write("=\"");
+                    String uri = namespaces[i+1];
+                    for(int j=0; j<uri.length(); j++){
+                        char ch = uri.charAt(j);
+                        switch(ch){
+                            case '&':
+                                writer.write("&amp;");
+                                break;
+                            case '<':
+                                writer.write("&lt;");
+                                break;
+                            case '"':
+                                writer.write("&quot;");
+                                break;
+                            default:
+                                writer.write(ch);
+                        }
+                    }
+                    writer.write('"');
+                }
+                writer.append(document, nameEnd, end);
+            }
+        }
+
+        @Override
+        public String toString(){
+            return "["+start+", "+end+")";
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package jlibs.xml.sax.dog.sniff;
 
 import jlibs.xml.Namespaces;
+import jlibs.xml.sax.ElementSkipper;
 import jlibs.xml.sax.helpers.MyNamespaceSupport;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -39,7 +40,18 @@ public final class SAXHandler extends DefaultHandler2{
         event.onStartDocument();
     }
 
-    private final MyNamespaceSupport nsSupport = new MyNamespaceSupport();
+    final MyNamespaceSupport nsSupport = new MyNamespaceSupport();
+
+    private ElementSkipper elementSkipper;
+
+    /**
+     * when set, the content of elements, that none of the xpaths are interested in,
+     * is skipped using given elementSkipper. It should be the XMLReader which
+     * reports events to this handler.
+     */
+    public void setElementSkipper(ElementSkipper elementSkipper){
+        this.elementSkipper = elementSkipper;
+    }
 
     @Override
     public void startPrefixMapping(String prefix, String uri) throws SAXException{
@@ -55,6 +67,8 @@ public final class SAXHandler extends DefaultHandler2{
         event.onStartElement(uri, localName, qName, langInterested ? attrs.getValue(Namespaces.URI_XML, "lang") : null);
         event.onNamespaces(nsSupport);
         event.onAttributes(attrs);
+        if(elementSkipper!=null && event.canSkipContent())
+            elementSkipper.skipElement();
     }
 
     @Override
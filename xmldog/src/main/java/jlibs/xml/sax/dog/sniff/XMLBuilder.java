@@ -50,6 +50,14 @@ public abstract class XMLBuilder{
 
     protected abstract Object onEvent(Event event);
 
+    /**
+     * tells whether this builder needs the events within the nodes being built.
+     * if not, the content of such nodes can be skipped by parser
+     */
+    protected boolean requiresContent(){
+        return true;
+    }
+
     protected abstract Object onEndElement();
     Object doEndElement(Event event){
         assert active;
@@ -69,7 +77,7 @@ public abstract class XMLBuilder{
             if(finishedNode!=null)
                 event.finishedXMLBuild(finishedNode);
         }
-        stack = null;
+        stack.clear();
         onEndDocument();
     }
 
@@ -143,4 +151,14 @@ public abstract class XMLBuilder{
     protected abstract void clearCurNode();
     protected abstract void removeFromParent(Object node);
     protected abstract boolean hasParent();
+
+    /**
+     * called by {@link Event#reset()}, so that this builder
+     * can build nodes of another document
+     */
+    protected void reset(){
+        active = false;
+        stack.clear();
+        clearCurNode();
+    }
 }
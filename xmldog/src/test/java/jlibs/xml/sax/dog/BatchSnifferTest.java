@@ -0,0 +1,151 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog;
+
+import jlibs.xml.DefaultNamespaceContext;
+import jlibs.xml.sax.async.ChannelInputSource;
+import jlibs.xml.sax.dog.expr.Expression;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+
+import javax.xml.xpath.XPathException;
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.*;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class BatchSnifferTest{
+    private static final int DOCUMENTS = 40;
+    /** failing documents in the middle of batch, parsed by JDK parser and AsyncXMLReader */
+    private static final List<Integer> FAILING = Arrays.asList(17, 18);
+
+    private final XMLDog dog;
+    private final List<Expression> exprs = new ArrayList<Expression>();
+
+    public BatchSnifferTest() throws Exception{
+        dog = new XMLDog(new DefaultNamespaceContext());
+        for(String xpath: new String[]{ "count(//item)", "//item[@type='x']/@id", "string(/root/@n)", "/root/item[last()]" })
+            exprs.add(dog.addXPath(xpath));
+    }
+
+    private static String document(int i){
+        if(FAILING.contains(i)) // not well-formed in the middle of document
+            return "<root n='"+i+"'><item id='1' type='x'/></mismatch><item id='2'/></root>";
+        StringBuilder buff = new StringBuilder("<root n='"+i+"'>");
+        for(int j=0; j<i%7; j++)
+            buff.append("<item id='").append(i).append('.').append(j).append("' type='").append(j%2==0 ? 'x' : 'y').append("'/>");
+        return buff.append("</root>").toString();
+    }
+
+    /** every third source is a channel, to be parsed with AsyncXMLReader */
+    private static List<InputSource> sources() throws Exception{
+        List<InputSource> sources = new ArrayList<InputSource>();
+        for(int i=0; i<DOCUMENTS; i++){
+            byte bytes[] = document(i).getBytes("UTF-8");
+            InputSource source;
+            if(i%3==0)
+                source = new ChannelInputSource(Channels.newChannel(new ByteArrayInputStream(bytes)));
+            else
+                source = new InputSource(new ByteArrayInputStream(bytes));
+            source.setSystemId(String.valueOf(i));
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private List<String> results(XPathResults results){
+        List<String> list = new ArrayList<String>();
+        for(Expression expr: exprs)
+            list.add(String.valueOf(results.getResult(expr)));
+        return list;
+    }
+
+    /** results of each document sniffed separately, null for failed document */
+    private List<List<String>> expected() throws Exception{
+        List<List<String>> expected = new ArrayList<List<String>>();
+        for(int i=0; i<DOCUMENTS; i++){
+            try{
+                expected.add(results(dog.sniff(new InputSource(new ByteArrayInputStream(document(i).getBytes("UTF-8"))))));
+            }catch(XPathException ex){
+                expected.add(null);
+            }
+        }
+        for(int i: FAILING)
+            assertNull(expected.get(i));
+        return expected;
+    }
+
+    private void assertBatch(ExecutorService executor, boolean ordered, int maxPending) throws Exception{
+        List<List<String>> expected = expected();
+
+        final List<String> delivered = new ArrayList<String>();
+        final Map<String, List<String>> actual = new HashMap<String, List<String>>();
+        BatchSniffer batch = new BatchSniffer(dog, executor);
+        batch.setMaxPending(maxPending);
+        BatchSniffer.Report report = batch.sniff(sources().iterator(), new BatchSniffer.Listener(){
+            @Override
+            public void onResult(InputSource source, XPathResults results){
+                delivered.add(source.getSystemId());
+                actual.put(source.getSystemId(), results(results));
+            }
+
+            @Override
+            public void onError(InputSource source, XPathException ex){
+                delivered.add(source.getSystemId());
+                actual.put(source.getSystemId(), null);
+            }
+        }, ordered);
+
+        assertEquals(report.documents, (long)DOCUMENTS);
+        assertEquals(report.failures, (long)FAILING.size());
+        assertEquals(delivered.size(), DOCUMENTS);
+        assertEquals(actual.size(), DOCUMENTS);
+        for(int i=0; i<DOCUMENTS; i++){
+            if(ordered)
+                assertEquals(delivered.get(i), String.valueOf(i));
+            assertEquals(actual.get(String.valueOf(i)), expected.get(i), "document "+i);
+        }
+    }
+
+    @Test(description="results in order of sources, same as sniffing each document")
+    public void ordered() throws Exception{
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            assertBatch(executor, true, 64);
+            assertBatch(executor, true, 3);
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    @Test(description="results in order of completion, same as sniffing each document")
+    public void unordered() throws Exception{
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try{
+            assertBatch(executor, false, 64);
+            assertBatch(executor, false, 1);
+        }finally{
+            executor.shutdown();
+        }
+    }
+}
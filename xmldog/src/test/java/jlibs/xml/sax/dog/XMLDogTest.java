@@ -0,0 +1,89 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog;
+
+import jlibs.xml.DefaultNamespaceContext;
+import jlibs.xml.sax.SAXUtil;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.dog.expr.Expression;
+import jlibs.xml.sax.dog.sniff.Event;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import javax.xml.xpath.XPathException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class XMLDogTest{
+    /** not well-formed after first child, so that it can be sniffed only if parsing stops early */
+    private static final String XML = "<root id='1'><child id='2'/><child id='3'></mismatch></root>";
+
+    private static Object sniff(String xpath, XMLReader reader) throws Exception{
+        XMLDog dog = new XMLDog(new DefaultNamespaceContext());
+        Expression expr = dog.addXPath(xpath);
+        Event event = dog.createEvent();
+        XPathResults results = new XPathResults(event);
+        event.setListener(results);
+        dog.sniff(event, new InputSource(new StringReader(XML)), reader);
+        return results.getResult(expr);
+    }
+
+    @Test(description="STOP_PARSING thrown as is by the parser")
+    public void stopParsingWithSAXParser() throws Exception{
+        XMLReader reader = SAXUtil.newSAXFactory(true, false, false).newSAXParser().getXMLReader();
+        assertEquals(sniff("name(/*)", reader), "root");
+        reader = SAXUtil.newSAXFactory(true, false, false).newSAXParser().getXMLReader();
+        assertEquals(sniff("string(/root/child[1]/@id)", reader), "2");
+    }
+
+    @Test(description="STOP_PARSING wrapped by the parser")
+    public void stopParsingWithAsyncXMLReader() throws Exception{
+        assertEquals(sniff("name(/*)", new AsyncXMLReader()), "root");
+        assertEquals(sniff("string(/root/child[1]/@id)", new AsyncXMLReader()), "2");
+    }
+
+    @Test(expectedExceptions=XPathException.class)
+    public void parseErrorIsReported() throws Exception{
+        sniff("count(/root/child)", new AsyncXMLReader());
+    }
+
+    @Test(description="each add compiles and registers a new expression")
+    public void repeatedAdd() throws Exception{
+        XMLDog dog = new XMLDog(new DefaultNamespaceContext());
+        Expression expr1 = dog.addXPath("/root/child");
+        Expression expr2 = dog.addXPath("/root/child");
+        assertNotSame(expr1, expr2);
+        assertEquals(expr1.id(), 0);
+        assertEquals(expr2.id(), 1);
+        assertEquals(dog.getDocumentXPathsCount(), 2);
+    }
+
+    @Test(expectedExceptions=IllegalStateException.class)
+    public void cachedXMLDogIsFrozen() throws Exception{
+        XMLDogCache cache = new XMLDogCache(10);
+        XMLDog dog = cache.get(Collections.<String, String>emptyMap(), Arrays.asList("/root"));
+        dog.addXPath("/root/child");
+    }
+}
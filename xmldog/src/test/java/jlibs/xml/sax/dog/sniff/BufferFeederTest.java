@@ -0,0 +1,175 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.sniff;
+
+import jlibs.xml.DefaultNamespaceContext;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.dog.XMLDog;
+import jlibs.xml.sax.dog.XPathResults;
+import jlibs.xml.sax.dog.expr.Expression;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+
+import javax.xml.xpath.XPathException;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link Event#feed(ByteBuffer)} and {@link Event#finish()}
+ * against {@link XMLDog#sniff(Event, InputSource, org.xml.sax.XMLReader)}
+ * on whole document.
+ *
+ * @author Santhosh Kumar T
+ */
+public class BufferFeederTest{
+    // 2, 3 and 4 byte sequences in names, attributes, text, cdata, comments and PIs
+    private static final String XML = "<?xml version='1.0'?>\n"
+            +"<r xmlns:p='urn:p'><!--\u00e9\u4e16--><?pi d\u00e9?>"
+            +"<p:\u00e9l a='\u00e0\uD835\uDC00'>t\u00e8xt<![CDATA[\u754c<>]]></p:\u00e9l>"
+            +"<b id='1'>\uD83D\uDE00</b><b id='2'>\u00fc\u00df</b>\r\n<b/></r>";
+
+    private static final String XPATHS[] = {
+        "/r/*",
+        "//b/@id",
+        "count(//b)",
+        "string(//p:*/@a)",
+        "string(/r)",
+        "//comment()",
+        "//processing-instruction()",
+        "name(/r/*[1])",
+        "//b[2]/text()",
+    };
+
+    private final XMLDog dog;
+    private final List<Expression> exprs = new ArrayList<Expression>();
+
+    public BufferFeederTest() throws Exception{
+        DefaultNamespaceContext nsContext = new DefaultNamespaceContext();
+        nsContext.declarePrefix("p", "urn:p");
+        dog = new XMLDog(nsContext);
+        for(String xpath: XPATHS)
+            exprs.add(dog.addXPath(xpath));
+    }
+
+    private List<String> results(XPathResults results){
+        List<String> list = new ArrayList<String>();
+        for(Expression expr: exprs)
+            list.add(String.valueOf(results.getResult(expr)));
+        return list;
+    }
+
+    private List<String> sniff(byte bytes[]) throws Exception{
+        Event event = dog.createEvent();
+        XPathResults results = new XPathResults(event);
+        event.setListener(results);
+        dog.sniff(event, new InputSource(new ByteArrayInputStream(bytes)), new AsyncXMLReader());
+        return results(results);
+    }
+
+    /** feeds bytes in chunks ending at given offsets */
+    private List<String> feed(Event event, byte bytes[], int... splits) throws Exception{
+        event.reset();
+        XPathResults results = new XPathResults(event);
+        event.setListener(results);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+        int from = 0;
+        for(int i=0; i<=splits.length; i++){
+            int to = i==splits.length ? bytes.length : splits[i];
+            buffer.clear();
+            buffer.put(bytes, from, to-from);
+            buffer.flip();
+            event.feed(buffer);
+            assertFalse(buffer.hasRemaining());
+            from = to;
+        }
+        event.finish();
+        return results(results);
+    }
+
+    private void assertSplits(byte bytes[]) throws Exception{
+        List<String> expected = sniff(bytes);
+        Event event = dog.createEvent();
+        assertEquals(feed(event, bytes), expected);
+
+        // every single split, and every single byte chunk
+        for(int i=0; i<=bytes.length; i++){
+            assertEquals(feed(event, bytes, i), expected, "split at "+i);
+            if(i<bytes.length)
+                assertEquals(feed(event, bytes, i, i+1), expected, "byte chunk at "+i);
+        }
+
+        // byte by byte
+        int splits[] = new int[bytes.length];
+        for(int i=0; i<splits.length; i++)
+            splits[i] = i;
+        assertEquals(feed(event, bytes, splits), expected);
+
+        // random chunks
+        Random random = new Random(bytes.length);
+        for(int n=0; n<100; n++){
+            splits = new int[1+random.nextInt(8)];
+            for(int i=0; i<splits.length; i++)
+                splits[i] = random.nextInt(bytes.length+1);
+            java.util.Arrays.sort(splits);
+            assertEquals(feed(event, bytes, splits), expected, java.util.Arrays.toString(splits));
+        }
+    }
+
+    @Test(description="chunks split inside multibyte UTF-8 sequences")
+    public void utf8() throws Exception{
+        byte bytes[] = XML.getBytes("UTF-8");
+        List<String> expected = sniff(bytes);
+        assertEquals(expected.get(2), "3.0");
+        assertEquals(expected.get(3), "\u00e0\uD835\uDC00");
+        assertSplits(bytes);
+    }
+
+    @Test(description="chunks split inside byte order mark and UTF-16 surrogate pairs")
+    public void utf16() throws Exception{
+        assertSplits(XML.replace("<?xml version='1.0'?>", "<?xml version='1.0' encoding='UTF-16'?>").getBytes("UTF-16"));
+    }
+
+    @Test(description="feed returns false, once all expressions are evaluated")
+    public void stopEarly() throws Exception{
+        XMLDog dog = new XMLDog(new DefaultNamespaceContext());
+        Expression expr = dog.addXPath("name(/*)");
+        Event event = dog.createEvent();
+        XPathResults results = new XPathResults(event);
+        event.setListener(results);
+
+        // not well-formed after root start tag
+        byte bytes[] = "<root><a></b>".getBytes("UTF-8");
+        assertTrue(event.feed(ByteBuffer.wrap(bytes, 0, 3)));
+        assertFalse(event.feed(ByteBuffer.wrap(bytes, 3, bytes.length-3)));
+        assertFalse(event.feed(ByteBuffer.wrap(bytes)));
+        event.finish();
+        assertEquals(results.getResult(expr), "root");
+    }
+
+    @Test(expectedExceptions=XPathException.class, description="finish before end of document")
+    public void prematureEnd() throws Exception{
+        Event event = dog.createEvent();
+        event.setListener(new XPathResults(event));
+        event.feed(ByteBuffer.wrap(XML.substring(0, XML.length()-4).getBytes("UTF-8")));
+        event.finish();
+    }
+}
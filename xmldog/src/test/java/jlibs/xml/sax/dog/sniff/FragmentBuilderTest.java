@@ -0,0 +1,143 @@
+/**
+ * Copyright 2015 Santhosh Kumar Tekuri
+ *
+ * The JLibs authors license this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package jlibs.xml.sax.dog.sniff;
+
+import jlibs.xml.DefaultNamespaceContext;
+import jlibs.xml.sax.async.AsyncXMLReader;
+import jlibs.xml.sax.dog.NodeItem;
+import jlibs.xml.sax.dog.XMLDog;
+import jlibs.xml.sax.dog.XPathResults;
+import jlibs.xml.sax.dog.expr.Expression;
+import org.testng.annotations.Test;
+import org.xml.sax.InputSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * @author Santhosh Kumar T
+ */
+public class FragmentBuilderTest{
+    private static List<FragmentBuilder.Fragment> fragments(String xpath, InputSource source) throws Exception{
+        DefaultNamespaceContext nsContext = new DefaultNamespaceContext();
+        nsContext.declarePrefix("d", "urn:d");
+        nsContext.declarePrefix("p", "urn:p");
+        XMLDog dog = new XMLDog(nsContext);
+        Expression expr = dog.addXPath(xpath);
+
+        AsyncXMLReader reader = new AsyncXMLReader();
+        Event event = dog.createEvent();
+        XPathResults results = new XPathResults(event);
+        event.setListener(results);
+        event.setXMLBuilder(new FragmentBuilder(reader));
+        dog.sniff(event, source, reader);
+
+        List<FragmentBuilder.Fragment> fragments = new ArrayList<FragmentBuilder.Fragment>();
+        for(Object item: (List<?>)results.getResult(expr))
+            fragments.add((FragmentBuilder.Fragment)((NodeItem)item).xml);
+        return fragments;
+    }
+
+    private static List<FragmentBuilder.Fragment> fragments(String xpath, String xml) throws Exception{
+        return fragments(xpath, new InputSource(new StringReader(xml)));
+    }
+
+    private static String slice(FragmentBuilder.Fragment fragment, String xml){
+        return fragment.slice(xml).toString();
+    }
+
+    private static String write(FragmentBuilder.Fragment fragment, String xml) throws Exception{
+        StringWriter writer = new StringWriter();
+        fragment.writeTo(xml, writer);
+        return writer.toString();
+    }
+
+    @Test(description="nested elements, empty elements and document")
+    public void nested() throws Exception{
+        String xml = "<?xml version='1.0'?>\r\n<!--c--><r>\r\n  <a id='1'><a id='2'>x</a><b/></a>\r\n  <b></b>\n</r>\n<!--after-->";
+
+        List<FragmentBuilder.Fragment> fragments = fragments("//a", xml);
+        assertEquals(fragments.size(), 2);
+        assertEquals(slice(fragments.get(0), xml), "<a id='1'><a id='2'>x</a><b/></a>");
+        assertEquals(slice(fragments.get(1), xml), "<a id='2'>x</a>");
+
+        fragments = fragments("//b", xml);
+        assertEquals(fragments.size(), 2);
+        assertEquals(slice(fragments.get(0), xml), "<b/>");
+        assertEquals(slice(fragments.get(1), xml), "<b></b>");
+        assertNull(fragments.get(0).namespaces);
+        assertEquals(write(fragments.get(0), xml), "<b/>");
+
+        fragments = fragments("/", xml);
+        assertEquals(fragments.size(), 1);
+        assertEquals(slice(fragments.get(0), xml), xml.substring(xml.indexOf("<r>"), xml.indexOf("\n<!--after")));
+    }
+
+    @Test(description="namespaces declared by ancestors are declared by writeTo")
+    public void inheritedNamespaces() throws Exception{
+        String xml = "<r xmlns='urn:d' xmlns:p='urn:p' xmlns:z='urn:z&amp;&lt;&quot;'>"
+                +"<p:a xmlns:q='urn:q'><q:b z:x='1'>t</q:b><d:c xmlns:d='urn:d2'/></p:a>"
+                +"<p:a xmlns='' xmlns:p='urn:p'><e/></p:a>"
+                +"</r>";
+
+        List<FragmentBuilder.Fragment> fragments = fragments("//p:a", xml);
+        assertEquals(fragments.size(), 2);
+        assertEquals(slice(fragments.get(0), xml), "<p:a xmlns:q='urn:q'><q:b z:x='1'>t</q:b><d:c xmlns:d='urn:d2'/></p:a>");
+        assertEquals(write(fragments.get(0), xml),
+                "<p:a xmlns=\"urn:d\" xmlns:p=\"urn:p\" xmlns:z=\"urn:z&amp;&lt;&quot;\" xmlns:q='urn:q'><q:b z:x='1'>t</q:b><d:c xmlns:d='urn:d2'/></p:a>");
+        // redeclared prefix and undeclared default namespace are not inherited
+        assertEquals(write(fragments.get(1), xml),
+                "<p:a xmlns:z=\"urn:z&amp;&lt;&quot;\" xmlns='' xmlns:p='urn:p'><e/></p:a>");
+
+        fragments = fragments("//*[local-name()='b']", xml);
+        assertEquals(fragments.size(), 1);
+        assertEquals(write(fragments.get(0), xml),
+                "<q:b xmlns=\"urn:d\" xmlns:p=\"urn:p\" xmlns:q=\"urn:q\" xmlns:z=\"urn:z&amp;&lt;&quot;\" z:x='1'>t</q:b>");
+
+        fragments = fragments("//e", xml);
+        assertEquals(fragments.size(), 1);
+        assertEquals(write(fragments.get(0), xml), "<e xmlns:p=\"urn:p\" xmlns:z=\"urn:z&amp;&lt;&quot;\"/>");
+    }
+
+    @Test(description="offsets count chars, not bytes; byte order mark is not counted")
+    public void bytes() throws Exception{
+        String xml = "<r>h\u00e9llo <a>\u4e16\u754c\uD835\uDC00</a>\r\n<a/></r>";
+        byte utf8[] = xml.getBytes("UTF-8");
+        byte utf8WithBOM[] = new byte[3+utf8.length];
+        utf8WithBOM[0] = (byte)0xEF;
+        utf8WithBOM[1] = (byte)0xBB;
+        utf8WithBOM[2] = (byte)0xBF;
+        System.arraycopy(utf8, 0, utf8WithBOM, 3, utf8.length);
+        byte utf16WithBOM[] = xml.getBytes("UTF-16");
+
+        for(byte bytes[]: new byte[][]{ utf8, utf8WithBOM, utf16WithBOM }){
+            List<FragmentBuilder.Fragment> fragments = fragments("//a", new InputSource(new ByteArrayInputStream(bytes)));
+            assertEquals(fragments.size(), 2);
+            assertEquals(slice(fragments.get(0), xml), "<a>\u4e16\u754c\uD835\uDC00</a>");
+            assertEquals(slice(fragments.get(1), xml), "<a/>");
+
+            fragments = fragments("/", new InputSource(new ByteArrayInputStream(bytes)));
+            assertEquals(slice(fragments.get(0), xml), xml);
+        }
+    }
+}